@@ -0,0 +1,138 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic calendars. The same seed and parameters always give the same events and
+ * requests, so benchmark runs can be compared with each other.
+ *
+ * <p>Events last 15 minutes to 2 hours, start on a 5 minute boundary and have 1 to
+ * {@link #MAX_ATTENDEES_PER_EVENT} attendees drawn uniformly from the people. The calendar spans
+ * as many days as it takes for each person to be busy for {@code busyFraction} of their day on
+ * average, counting overlapping events twice.
+ */
+public final class CalendarGenerator {
+  public static final int MAX_ATTENDEES_PER_EVENT = 8;
+
+  private static final int MIN_DURATION = 15;
+  private static final int MAX_DURATION = 120;
+  private static final int STEP = 5;
+
+  private final Random random;
+  private final int eventCount;
+  private final String[] people;
+  private final int days;
+
+  /**
+   * Creates a new generator.
+   *
+   * @param seed The seed of the random numbers.
+   * @param eventCount The number of events to generate. Must be non-negative.
+   * @param peopleCount The number of different people. Must be positive.
+   * @param busyFraction The average fraction of each day that a person is busy. Must be positive.
+   */
+  public CalendarGenerator(long seed, int eventCount, int peopleCount, double busyFraction) {
+    if (eventCount < 0) {
+      throw new IllegalArgumentException("eventCount cannot be negative");
+    }
+
+    if (peopleCount <= 0) {
+      throw new IllegalArgumentException("peopleCount must be positive");
+    }
+
+    if (busyFraction <= 0) {
+      throw new IllegalArgumentException("busyFraction must be positive");
+    }
+
+    this.random = new Random(seed);
+    this.eventCount = eventCount;
+    this.people = new String[peopleCount];
+    for (int i = 0; i < peopleCount; i++) {
+      people[i] = String.format("Person %06d", i);
+    }
+
+    double meanDuration = (MIN_DURATION + MAX_DURATION) / 2.0;
+    double meanAttendees = (1 + MAX_ATTENDEES_PER_EVENT) / 2.0;
+    double busyMinutes = eventCount * meanDuration * meanAttendees;
+    this.days = (int) Math.max(1,
+        Math.ceil(busyMinutes / (peopleCount * busyFraction * TimeRange.MINUTES_PER_DAY)));
+  }
+
+  /**
+   * Returns the number of days the events are spread over, starting at day 0.
+   */
+  public int getDays() {
+    return days;
+  }
+
+  /**
+   * Generates the events of the calendar.
+   */
+  public List<Event> events() {
+    List<Event> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      int duration = between(MIN_DURATION, MAX_DURATION);
+      int start = STEP * random.nextInt((days * TimeRange.MINUTES_PER_DAY - duration) / STEP + 1);
+      int attendees = 1 + random.nextInt(MAX_ATTENDEES_PER_EVENT);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          pickPeople(attendees)));
+    }
+    return events;
+  }
+
+  /**
+   * Generates a meeting request inside {@code window}.
+   *
+   * @param attendees The number of required attendees.
+   * @param optionalAttendees The number of optional attendees.
+   */
+  public MeetingRequest request(int attendees, int optionalAttendees, TimeRange window) {
+    Set<String> chosen = pickPeople(Math.min(attendees + optionalAttendees, people.length));
+    List<String> required = new ArrayList<>(chosen).subList(0, Math.min(attendees, chosen.size()));
+
+    MeetingRequest request =
+        new MeetingRequest(new ArrayList<>(required), between(MIN_DURATION, 60), window);
+    for (String person : chosen) {
+      if (!required.contains(person)) {
+        request.addOptionalAttendee(person);
+      }
+    }
+    return request;
+  }
+
+  // Returns a multiple of STEP in [min, max].
+  private int between(int min, int max) {
+    return min + STEP * random.nextInt((max - min) / STEP + 1);
+  }
+
+  // Returns count different people, or everyone if there are fewer.
+  private Set<String> pickPeople(int count) {
+    count = Math.min(count, people.length);
+    Set<String> picked = new LinkedHashSet<>();
+    while (picked.size() < count) {
+      picked.add(people[random.nextInt(people.length)]);
+    }
+    return picked;
+  }
+}
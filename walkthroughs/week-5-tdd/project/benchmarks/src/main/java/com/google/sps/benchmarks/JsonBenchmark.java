@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.sps.json.CalendarJson;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the JSON the servlets read and write: the events of /get-events, and the requests and
+ * answers of /query and /query-batch, each written and read back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonBenchmark {
+  private static final long SEED = 20190801L;
+  private static final int PEOPLE = 500;
+  private static final Type EVENTS = new TypeToken<List<Event>>() {}.getType();
+
+  @Param({"100", "10000"})
+  public int eventCount;
+
+  private final Gson gson = CalendarJson.gson;
+
+  private List<Event> events;
+  private String eventsJson;
+  private MeetingRequest[] requests;
+  private String requestsJson;
+  private List<TimeRange> answers;
+  private String answersJson;
+
+  @Setup
+  public void generate() {
+    CalendarGenerator generator = new CalendarGenerator(SEED, eventCount, PEOPLE, 0.5);
+    events = generator.events();
+    eventsJson = gson.toJson(events, EVENTS);
+
+    // A batch of requests as big as the calendar, and all of their answers.
+    requests = new MeetingRequest[eventCount];
+    answers = new ArrayList<>();
+    FindMeetingQuery query = new FindMeetingQuery();
+    for (int i = 0; i < eventCount; i++) {
+      requests[i] = generator.request(3, 2, TimeRange.WHOLE_DAY);
+      answers.addAll(query.query(events, requests[i]));
+    }
+    requestsJson = gson.toJson(requests);
+    answersJson = gson.toJson(answers);
+  }
+
+  @Benchmark
+  public String writeEvents() {
+    return gson.toJson(events, EVENTS);
+  }
+
+  @Benchmark
+  public List<Event> readEvents() {
+    return gson.fromJson(eventsJson, EVENTS);
+  }
+
+  @Benchmark
+  public String writeRequests() {
+    return gson.toJson(requests);
+  }
+
+  @Benchmark
+  public MeetingRequest[] readRequests() {
+    return gson.fromJson(requestsJson, MeetingRequest[].class);
+  }
+
+  @Benchmark
+  public MeetingRequest[] roundTripRequests() {
+    return gson.fromJson(gson.toJson(requests), MeetingRequest[].class);
+  }
+
+  @Benchmark
+  public TimeRange[] roundTripAnswers() {
+    return gson.fromJson(gson.toJson(answers), TimeRange[].class);
+  }
+
+  @Benchmark
+  public TimeRange[] readAnswers() {
+    return gson.fromJson(answersJson, TimeRange[].class);
+  }
+}
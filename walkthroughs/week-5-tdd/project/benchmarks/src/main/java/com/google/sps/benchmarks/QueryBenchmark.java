@@ -0,0 +1,131 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeVersions;
+import com.google.sps.CalendarStore;
+import com.google.sps.Event;
+import com.google.sps.EventIndex;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link FindMeetingQuery} on generated calendars, reading the events directly, through
+ * an {@link EventIndex} and through a {@link CalendarStore}. Every invocation answers the next of
+ * a fixed set of requests, so that no single request dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class QueryBenchmark {
+  private static final long SEED = 20190801L;
+  private static final int REQUESTS = 256;
+  private static final int WEEK = 7;
+
+  @Param({"100", "10000", "1000000"})
+  public int eventCount;
+
+  @Param({"50", "5000"})
+  public int peopleCount;
+
+  @Param({"0.2", "0.8"})
+  public double busyFraction;
+
+  @Param({"2", "10"})
+  public int requestSize;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  private List<Event> events;
+  private EventIndex index;
+  private CalendarStore store;
+  private MeetingRequest[] dayRequests;
+  private MeetingRequest[] weekRequests;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    CalendarGenerator generator =
+        new CalendarGenerator(SEED, eventCount, peopleCount, busyFraction);
+    events = generator.events();
+    index = new EventIndex(events);
+    store = CalendarStore.of(events, new AttendeeVersions());
+
+    TimeRange week = TimeRange.fromDays(0, Math.min(WEEK, generator.getDays()));
+    dayRequests = new MeetingRequest[REQUESTS];
+    weekRequests = new MeetingRequest[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      // Half of the attendees are optional.
+      int optional = requestSize / 2;
+      dayRequests[i] =
+          generator.request(requestSize - optional, optional, TimeRange.WHOLE_DAY);
+      weekRequests[i] = generator.request(requestSize - optional, optional, week);
+    }
+  }
+
+  private int nextRequest() {
+    next = (next + 1) % REQUESTS;
+    return next;
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryEvents() {
+    return query.query(events, dayRequests[nextRequest()]);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndex() {
+    return query.query(index, dayRequests[nextRequest()]);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryStore() {
+    return query.query(store, dayRequests[nextRequest()]);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndexWeek() {
+    return query.query(index, weekRequests[nextRequest()]);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryEventsWithOptionalAttendees() {
+    return query.queryWithOptionalAttendees(events, dayRequests[nextRequest()]);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndexWithOptionalAttendees() {
+    return query.queryWithOptionalAttendees(index, dayRequests[nextRequest()]);
+  }
+}
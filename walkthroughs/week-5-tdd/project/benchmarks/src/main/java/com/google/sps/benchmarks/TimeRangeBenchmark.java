@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.TimeRange;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link TimeRange} comparisons that the query runs once per event. Each invocation
+ * compares the next pair of a fixed set of random ranges, so the branches can't be predicted from
+ * one call to the next.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TimeRangeBenchmark {
+  private static final long SEED = 20190801L;
+  // A power of two, so that the index can wrap around with a mask.
+  private static final int RANGES = 4096;
+
+  private final TimeRange[] ranges = new TimeRange[RANGES];
+  private final int[] points = new int[RANGES];
+  private int next;
+
+  @Setup
+  public void generate() {
+    Random random = new Random(SEED);
+    for (int i = 0; i < RANGES; i++) {
+      int start = random.nextInt(TimeRange.END_OF_DAY);
+      int duration = random.nextInt(TimeRange.END_OF_DAY - start + 1);
+      ranges[i] = TimeRange.fromStartDuration(start, duration);
+      points[i] = random.nextInt(TimeRange.MINUTES_PER_DAY);
+    }
+  }
+
+  @Benchmark
+  public boolean overlaps() {
+    int i = next++ & (RANGES - 1);
+    return ranges[i].overlaps(ranges[(i + 1) & (RANGES - 1)]);
+  }
+
+  @Benchmark
+  public boolean containsRange() {
+    int i = next++ & (RANGES - 1);
+    return ranges[i].contains(ranges[(i + 1) & (RANGES - 1)]);
+  }
+
+  @Benchmark
+  public boolean containsPoint() {
+    int i = next++ & (RANGES - 1);
+    return ranges[i].contains(points[i]);
+  }
+}
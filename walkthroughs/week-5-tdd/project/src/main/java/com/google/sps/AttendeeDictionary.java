@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global dictionary that assigns every attendee name a dense int id, starting at 0. Ids are never
+ * reused or removed, so they can be stored in place of the names and compared directly. Safe to
+ * use from multiple threads.
+ */
+public final class AttendeeDictionary {
+  /** Returned by {@link #lookup(String)} for names that have never been interned. */
+  public static final int UNKNOWN = -1;
+
+  private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+  // Written under the class lock. Each name is stored before its id is published through the map,
+  // so anyone who got an id from the map can read its name.
+  private static volatile String[] names = new String[64];
+  private static int size = 0;
+
+  private AttendeeDictionary() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the id for {@code name}, assigning the next free id if it has not been seen before.
+   */
+  public static int intern(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+
+    synchronized (AttendeeDictionary.class) {
+      id = ids.get(name);
+      if (id != null) {
+        return id;
+      }
+
+      if (size == names.length) {
+        names = Arrays.copyOf(names, size * 2);
+      }
+      names[size] = name;
+      ids.put(name, size);
+      return size++;
+    }
+  }
+
+  /**
+   * Returns the id for {@code name}, or {@link #UNKNOWN} if it has never been interned. Unlike
+   * {@link #intern(String)}, this never grows the dictionary, so it is safe to call with names
+   * that come straight from a request.
+   */
+  public static int lookup(String name) {
+    Integer id = ids.get(name);
+    return id == null ? UNKNOWN : id;
+  }
+
+  /**
+   * Returns the name for an id that was handed out by {@link #intern(String)}.
+   */
+  public static String name(int id) {
+    String[] currentNames = names;
+    if (id < 0 || id >= currentNames.length || currentNames[id] == null) {
+      throw new IllegalArgumentException("Unknown attendee id: " + id);
+    }
+    return currentNames[id];
+  }
+
+  /**
+   * Returns the number of ids handed out so far. Every id is less than this value.
+   */
+  public static int size() {
+    return ids.size();
+  }
+}
@@ -0,0 +1,185 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only set of attendees stored as a sorted array of {@link AttendeeDictionary} ids. It is
+ * also a {@code Set<String>} of the attendee names, so it can be handed out without copying.
+ */
+public final class AttendeeSet extends AbstractSet<String> {
+  public static final AttendeeSet EMPTY = new AttendeeSet(new int[0]);
+
+  // When one set is this many times larger than the other, binary searching the larger one is
+  // cheaper than walking both.
+  private static final int GALLOP_RATIO = 8;
+
+  private final int[] ids;
+
+  private AttendeeSet(int[] ids) {
+    this.ids = ids;
+  }
+
+  /**
+   * Creates a set of {@code names}, interning any name that has not been seen before.
+   */
+  public static AttendeeSet intern(Collection<String> names) {
+    int[] ids = new int[names.size()];
+    int size = 0;
+    for (String name : names) {
+      ids[size++] = AttendeeDictionary.intern(name);
+    }
+    return fromIds(ids, size);
+  }
+
+  /**
+   * Creates a set of the {@code names} that are already known to the dictionary. Unknown names
+   * are left out, since nobody can be busy who has never been interned.
+   */
+  public static AttendeeSet lookup(Collection<String> names) {
+    int[] ids = new int[names.size()];
+    int size = 0;
+    for (String name : names) {
+      int id = AttendeeDictionary.lookup(name);
+      if (id != AttendeeDictionary.UNKNOWN) {
+        ids[size++] = id;
+      }
+    }
+    return fromIds(ids, size);
+  }
+
+  /**
+   * Creates a set from the first {@code size} entries of {@code ids}, which may be unsorted and
+   * contain duplicates. The array may be reused by the caller.
+   */
+  public static AttendeeSet fromIds(int[] ids, int size) {
+    if (size == 0) {
+      return EMPTY;
+    }
+
+    int[] sorted = Arrays.copyOf(ids, size);
+    Arrays.sort(sorted);
+    int unique = 1;
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i] != sorted[unique - 1]) {
+        sorted[unique++] = sorted[i];
+      }
+    }
+    return new AttendeeSet(unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique));
+  }
+
+  /**
+   * Returns the id at {@code index}, where ids are in ascending order.
+   */
+  public int id(int index) {
+    return ids[index];
+  }
+
+  /**
+   * Returns the position of {@code id} in this set, or a negative number if it is not a member.
+   */
+  public int indexOf(int id) {
+    return Arrays.binarySearch(ids, id);
+  }
+
+  public boolean containsId(int id) {
+    return indexOf(id) >= 0;
+  }
+
+  /**
+   * Checks if at least one attendee is in both sets.
+   */
+  public boolean overlaps(AttendeeSet other) {
+    int[] small = ids.length <= other.ids.length ? ids : other.ids;
+    int[] large = small == ids ? other.ids : ids;
+    if (small.length == 0) {
+      return false;
+    }
+
+    if (large.length / small.length >= GALLOP_RATIO) {
+      for (int id : small) {
+        if (Arrays.binarySearch(large, id) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    int i = 0;
+    int j = 0;
+    while (i < small.length && j < large.length) {
+      if (small[i] == large[j]) {
+        return true;
+      } else if (small[i] < large[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int size() {
+    return ids.length;
+  }
+
+  @Override
+  public boolean contains(Object name) {
+    if (!(name instanceof String)) {
+      return false;
+    }
+    int id = AttendeeDictionary.lookup((String) name);
+    return id != AttendeeDictionary.UNKNOWN && containsId(id);
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < ids.length;
+      }
+
+      @Override
+      public String next() {
+        if (next >= ids.length) {
+          throw new NoSuchElementException();
+        }
+        return AttendeeDictionary.name(ids[next++]);
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (other instanceof AttendeeSet) {
+      return Arrays.equals(ids, ((AttendeeSet) other).ids);
+    }
+    return super.equals(other);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+}
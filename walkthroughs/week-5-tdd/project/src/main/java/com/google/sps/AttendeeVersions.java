@@ -0,0 +1,51 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counter for every attendee that goes up whenever one of their events changes. Anything computed
+ * from an attendee's schedule is still valid as long as their version has not moved. Safe to use
+ * from multiple threads.
+ */
+public final class AttendeeVersions {
+  private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the current version of {@code attendee}. People whose events never changed are at
+   * version 0.
+   */
+  public long get(String attendee) {
+    return versions.getOrDefault(attendee, 0L);
+  }
+
+  /**
+   * Records that one of the events of {@code attendee} changed.
+   */
+  public void increment(String attendee) {
+    versions.merge(attendee, 1L, Long::sum);
+  }
+
+  /**
+   * Records that an event with all of {@code attendees} changed.
+   */
+  public void incrementAll(Collection<String> attendees) {
+    for (String attendee : attendees) {
+      increment(attendee);
+    }
+  }
+}
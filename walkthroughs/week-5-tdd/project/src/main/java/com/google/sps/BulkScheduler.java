@@ -0,0 +1,365 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Places many meetings at once, so that none of them collides with the existing events of its
+ * attendees or with another placed meeting that shares an attendee. Only required attendees are
+ * considered.
+ *
+ * <p>Every attendee gets a bitmap of their busy minutes over the span of all the request windows.
+ * The most constrained requests are placed first, each at the earliest free run that fits all of
+ * its attendees. When a request doesn't fit anywhere, up to {@value #MAX_REPAIRS} of the placed
+ * meetings it shares attendees with are moved, one at a time, to make room. A request that still
+ * doesn't fit is reported as unschedulable and the search moves on, so the cost grows linearly
+ * with the number of requests.
+ */
+public final class BulkScheduler {
+  // How many placed meetings to try moving before giving up on a request.
+  private static final int MAX_REPAIRS = 4;
+  // How many start times to consider for a request. The free runs are tried in order, starting at
+  // each end of the run.
+  private static final int MAX_CANDIDATES = 16;
+  // The bitmaps hold one bit per minute of the span of all windows, for every attendee.
+  private static final long MAX_HORIZON = 366L * TimeRange.MINUTES_PER_DAY;
+  // The bitmaps of all attendees together can take at most 32 MB: around 500 people over a year,
+  // or far more over a week.
+  private static final long MAX_BITMAP_WORDS = 1L << 22;
+
+  private final Schedule schedule;
+
+  /** The outcome of a call to {@link #schedule}. */
+  public static final class Result {
+    private final List<TimeRange> assignments;
+    private final List<Integer> unschedulable;
+
+    private Result(List<TimeRange> assignments, List<Integer> unschedulable) {
+      this.assignments = Collections.unmodifiableList(assignments);
+      this.unschedulable = Collections.unmodifiableList(unschedulable);
+    }
+
+    /**
+     * Returns when each meeting was placed, in the order of the requests. The entries of
+     * unschedulable requests are null.
+     */
+    public List<TimeRange> getAssignments() {
+      return assignments;
+    }
+
+    /**
+     * Returns the indexes of the requests that could not be placed, in increasing order.
+     */
+    public List<Integer> getUnschedulable() {
+      return unschedulable;
+    }
+  }
+
+  /**
+   * Creates a scheduler that places meetings around the events of {@code schedule}.
+   */
+  public BulkScheduler(Schedule schedule) {
+    if (schedule == null) {
+      throw new IllegalArgumentException("schedule cannot be null");
+    }
+
+    this.schedule = schedule;
+  }
+
+  /**
+   * Places every request that fits. The schedule itself is not changed.
+   *
+   * @throws IllegalArgumentException if the request windows span more than a year together, or
+   *     if there are too many attendees for the span of the windows.
+   */
+  public Result schedule(List<MeetingRequest> requests) {
+    return new Search(requests).run();
+  }
+
+  /** The state of one call to {@link #schedule}. */
+  private final class Search {
+    private final List<MeetingRequest> requests;
+    // Sets of local ids, see localIds. Only read through their ids, never as names.
+    private final AttendeeSet[] attendees;
+    private final boolean[] valid;
+    private final int horizonStart;
+    // Every person in the requests gets an id that only lives as long as the search, so that
+    // names from the request never reach the dictionary. The sets in attendees hold these ids.
+    private final Map<String, Integer> localIds = new HashMap<>();
+    // The dictionary id of every local id, or UNKNOWN for people who have no events.
+    private final List<Integer> dictionaryIds = new ArrayList<>();
+    // Busy minutes since horizonStart, by local id. Null for people who are in no valid request.
+    private final long[][] busy;
+
+    // Start of each placed meeting, or -1.
+    private final long[] placed;
+    private final List<Integer> placementOrder = new ArrayList<>();
+
+    private Search(List<MeetingRequest> requests) {
+      this.requests = requests;
+      this.attendees = new AttendeeSet[requests.size()];
+      this.valid = new boolean[requests.size()];
+      this.placed = new long[requests.size()];
+      Arrays.fill(placed, -1);
+
+      long start = Long.MAX_VALUE;
+      long end = Long.MIN_VALUE;
+      for (int i = 0; i < requests.size(); i++) {
+        MeetingRequest request = requests.get(i);
+        // Attendees who were never interned have no events, but still can't be in two meetings.
+        attendees[i] = localSet(request.getAttendees());
+        TimeRange window = request.getWindow();
+        valid[i] = request.getDuration() > 0 && request.getDuration() <= window.duration();
+        if (!valid[i]) {
+          continue;
+        }
+        start = Math.min(start, window.start());
+        end = Math.max(end, window.end());
+      }
+      if (end - start > MAX_HORIZON) {
+        throw new IllegalArgumentException("The request windows cannot span more than a year.");
+      }
+
+      if (start == Long.MAX_VALUE) {
+        // No request can be placed.
+        start = 0;
+        end = 0;
+      }
+      this.horizonStart = (int) start;
+      int words = (int) ((end - start + 63) >>> 6);
+      if ((long) localIds.size() * words > MAX_BITMAP_WORDS) {
+        throw new IllegalArgumentException(
+            "Too many attendees for windows this far apart. Split the requests up.");
+      }
+      this.busy = new long[localIds.size()][];
+      TimeRange horizon = TimeRange.fromStartDuration(horizonStart, (int) (end - start));
+      PackedRangeList busyTimes = new PackedRangeList();
+      // Every attendee is read as of the same moment.
+      Schedule pinned = schedule.pin();
+      for (int i = 0; i < requests.size(); i++) {
+        if (!valid[i]) {
+          continue;
+        }
+        for (int j = 0; j < attendees[i].size(); j++) {
+          int id = attendees[i].id(j);
+          if (busy[id] != null) {
+            continue;
+          }
+          busy[id] = new long[words];
+          int dictionaryId = dictionaryIds.get(id);
+          if (dictionaryId == AttendeeDictionary.UNKNOWN) {
+            continue;
+          }
+          busyTimes.clear();
+          pinned.addBusyTimes(dictionaryId, horizon, busyTimes);
+          for (int k = 0; k < busyTimes.size(); k++) {
+            long range = busyTimes.get(k);
+            setBits(busy[id], (int) (PackedRange.start(range) - start),
+                (int) (PackedRange.end(range) - start), true);
+          }
+        }
+      }
+    }
+
+    private AttendeeSet localSet(Collection<String> names) {
+      int[] ids = new int[names.size()];
+      int size = 0;
+      for (String name : names) {
+        Integer id = localIds.get(name);
+        if (id == null) {
+          id = localIds.size();
+          localIds.put(name, id);
+          dictionaryIds.add(AttendeeDictionary.lookup(name));
+        }
+        ids[size++] = id;
+      }
+      return AttendeeSet.fromIds(ids, size);
+    }
+
+    private Result run() {
+      for (int i : byConstraint()) {
+        if (valid[i] && !placeEarliest(i) && !repair(i)) {
+          valid[i] = false;
+        }
+      }
+
+      List<TimeRange> assignments = new ArrayList<>(requests.size());
+      List<Integer> unschedulable = new ArrayList<>();
+      for (int i = 0; i < requests.size(); i++) {
+        if (placed[i] < 0) {
+          assignments.add(null);
+          unschedulable.add(i);
+        } else {
+          assignments.add(TimeRange.fromStartDuration(
+              (int) placed[i] + horizonStart, (int) requests.get(i).getDuration()));
+        }
+      }
+      return new Result(assignments, unschedulable);
+    }
+
+    // Returns the request indexes with the hardest to place first: most attendees, then longest,
+    // then narrowest window.
+    private List<Integer> byConstraint() {
+      List<Integer> order = new ArrayList<>(requests.size());
+      for (int i = 0; i < requests.size(); i++) {
+        order.add(i);
+      }
+      Collections.sort(order, Comparator
+          .<Integer>comparingInt(i -> -attendees[i].size())
+          .thenComparingLong(i -> -requests.get(i).getDuration())
+          .thenComparingInt(i -> requests.get(i).getWindow().duration())
+          .thenComparingInt(i -> i));
+      return order;
+    }
+
+    private boolean placeEarliest(int request) {
+      int[] candidates = candidates(request);
+      if (candidates.length == 0) {
+        return false;
+      }
+      place(request, candidates[0]);
+      placementOrder.add(request);
+      return true;
+    }
+
+    // Tries to make room for the request by moving one of the most recently placed meetings that
+    // shares an attendee with it.
+    private boolean repair(int request) {
+      TimeRange window = requests.get(request).getWindow();
+      int tried = 0;
+      for (int k = placementOrder.size() - 1; k >= 0 && tried < MAX_REPAIRS; k--) {
+        int other = placementOrder.get(k);
+        if (!attendees[other].overlaps(attendees[request])
+            || !window.overlaps(requests.get(other).getWindow())) {
+          continue;
+        }
+        tried++;
+
+        int otherStart = (int) placed[other];
+        unplace(other);
+        for (int candidate : candidates(request)) {
+          place(request, candidate);
+          int[] otherCandidates = candidates(other);
+          if (otherCandidates.length > 0) {
+            place(other, otherCandidates[0]);
+            placementOrder.add(request);
+            return true;
+          }
+          unplace(request);
+        }
+        place(other, otherStart);
+      }
+      return false;
+    }
+
+    private void place(int request, int start) {
+      int end = start + (int) requests.get(request).getDuration();
+      for (int j = 0; j < attendees[request].size(); j++) {
+        setBits(busy[attendees[request].id(j)], start, end, true);
+      }
+      placed[request] = start;
+    }
+
+    private void unplace(int request) {
+      int start = (int) placed[request];
+      int end = start + (int) requests.get(request).getDuration();
+      for (int j = 0; j < attendees[request].size(); j++) {
+        setBits(busy[attendees[request].id(j)], start, end, false);
+      }
+      placed[request] = -1;
+    }
+
+    // Returns the start times, relative to the horizon, at which the request fits right now: both
+    // ends of every free run of its attendees inside its window that is long enough, in order.
+    private int[] candidates(int request) {
+      MeetingRequest meetingRequest = requests.get(request);
+      int from = meetingRequest.getWindow().start() - horizonStart;
+      int to = meetingRequest.getWindow().end() - horizonStart;
+      int duration = (int) meetingRequest.getDuration();
+
+      // The minutes when any of the attendees is busy, for the words that cover the window.
+      int firstWord = from >>> 6;
+      long[] combined = new long[((to - 1) >>> 6) - firstWord + 1];
+      for (int j = 0; j < attendees[request].size(); j++) {
+        long[] attendeeBusy = busy[attendees[request].id(j)];
+        for (int w = 0; w < combined.length; w++) {
+          combined[w] |= attendeeBusy[firstWord + w];
+        }
+      }
+      int offset = firstWord << 6;
+
+      int[] candidates = new int[MAX_CANDIDATES];
+      int count = 0;
+      int start = nextClear(combined, from - offset, to - offset);
+      while (start < to - offset && count < MAX_CANDIDATES) {
+        int end = nextSet(combined, start, to - offset);
+        if (end - start >= duration) {
+          candidates[count++] = start + offset;
+          if (end - start > duration && count < MAX_CANDIDATES) {
+            candidates[count++] = end - duration + offset;
+          }
+        }
+        start = nextClear(combined, end, to - offset);
+      }
+      return Arrays.copyOf(candidates, count);
+    }
+  }
+
+  // Sets or clears the bits [from, to).
+  private static void setBits(long[] words, int from, int to, boolean value) {
+    for (int minute = Math.max(from, 0); minute < Math.min(to, words.length << 6); ) {
+      int word = minute >>> 6;
+      int last = Math.min(to, (word + 1) << 6);
+      // The bits from minute up to last within this word.
+      long mask = (-1L << minute) & (last - (word << 6) == 64 ? -1L : ~(-1L << last));
+      words[word] = value ? words[word] | mask : words[word] & ~mask;
+      minute = last;
+    }
+  }
+
+  // Returns the first set bit in [from, limit), or limit if there is none.
+  private static int nextSet(long[] words, int from, int limit) {
+    return next(words, from, limit, false);
+  }
+
+  // Returns the first clear bit in [from, limit), or limit if there is none.
+  private static int nextClear(long[] words, int from, int limit) {
+    return next(words, from, limit, true);
+  }
+
+  private static int next(long[] words, int from, int limit, boolean clear) {
+    if (from >= limit) {
+      return limit;
+    }
+
+    int i = from >>> 6;
+    long word = (clear ? ~words[i] : words[i]) & (-1L << from);
+    while (word == 0) {
+      if (++i == words.length) {
+        return limit;
+      }
+      word = clear ? ~words[i] : words[i];
+    }
+    return Math.min(limit, (i << 6) + Long.numberOfTrailingZeros(word));
+  }
+}
@@ -0,0 +1,678 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only log of the changes to a {@link CalendarStore}, so that they survive a restart.
+ *
+ * <p>The log lives in a directory of segment files, named after the sequence number of their
+ * first record, plus a checkpoint holding every event as of some sequence number. Each record is
+ * framed as its length and CRC32 followed by the sequence number, the operation, the event id and,
+ * for adds and updates, the event. The last record of every batch is marked, and recovery only
+ * applies a batch once it has read that record, so a batch is recovered whole or not at all. A
+ * crash can leave the last batch of the last segment half written; recovery drops it along with
+ * anything after it.
+ *
+ * <p>Changes are appended to a buffer in memory while the store holds its lock, and made durable
+ * afterwards with {@link #sync}. The first writer to sync becomes the leader: it writes everything
+ * buffered so far and forces it to disk once, while the writers that come in meanwhile wait for
+ * the next round. So a burst of changes costs one {@link FileChannel#force} per round rather than
+ * one per change.
+ *
+ * <p>{@link CalendarStore#compact()} starts a new segment, writes a checkpoint of the version the
+ * old segments end at, and then deletes them, so that recovery reads the checkpoint plus a short
+ * tail.
+ */
+public final class CalendarLog implements Closeable {
+  static final byte ADD = 1;
+  static final byte UPDATE = 2;
+  static final byte DELETE = 3;
+  // Set on the operation of the last record of a batch.
+  private static final byte END_OF_BATCH = (byte) 0x80;
+
+  private static final int CHECKPOINT_MAGIC = 0x43414c43; // "CALC"
+  private static final int CHECKPOINT_FORMAT = 1;
+  private static final String CHECKPOINT = "checkpoint";
+  private static final String SEGMENT_PREFIX = "log-";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+
+  // Sequence number, operation and event id.
+  private static final int RECORD_HEADER_SIZE = 8 + 1 + 4;
+  // Far more than any real event needs. Larger records are refused, so a larger length on disk can
+  // only be a torn or corrupt record.
+  private static final int MAX_RECORD_SIZE = 16 << 20;
+
+  private final Path directory;
+
+  // Guards everything below. Never held while writing to disk.
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition flushed = lock.newCondition();
+
+  // Segments in order, by the sequence number of their first record. The last one is appended to.
+  private final List<Long> segments = new ArrayList<>();
+  private FileChannel channel;
+
+  // Records appended but not written yet.
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private final CRC32 crc = new CRC32();
+  private long appended;
+  private long durable;
+  private boolean flushing = false;
+  private long forces = 0;
+  // Once a write fails, nothing after it can be made durable.
+  private IOException failure;
+  private boolean closed = false;
+
+  // The sequence number the checkpoint on disk was written at. Only changed by checkpoint, which
+  // is synchronized.
+  private long checkpointed;
+
+  // What was read at startup, until the store takes it.
+  private Map<Integer, Event> recovered;
+  private int recoveredNextEventId;
+
+  private CalendarLog(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Opens the log in {@code directory}, creating it if needed, and reads the checkpoint and the
+   * records after it. Pass the log to {@link CalendarStore#CalendarStore(AttendeeVersions,
+   * CalendarLog)} to get the events back and log the changes from then on.
+   *
+   * @throws IOException if the files can't be read, or are corrupt anywhere but at the end of the
+   *     last segment.
+   */
+  public static CalendarLog open(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    CalendarLog log = new CalendarLog(directory);
+    log.recover();
+    return log;
+  }
+
+  private void recover() throws IOException {
+    List<Path> segmentPaths = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(TEMPORARY_SUFFIX)) {
+          // Left behind by a checkpoint that didn't finish.
+          Files.delete(file);
+        } else if (name.startsWith(SEGMENT_PREFIX)) {
+          segmentPaths.add(file);
+        }
+      }
+    }
+    // The names are zero-padded, so this is also the order of the sequence numbers.
+    Collections.sort(segmentPaths);
+
+    recovered = new HashMap<>();
+    Path checkpoint = directory.resolve(CHECKPOINT);
+    if (Files.exists(checkpoint)) {
+      readCheckpoint(checkpoint);
+    }
+    appended = checkpointed;
+
+    for (int i = 0; i < segmentPaths.size(); i++) {
+      Path segment = segmentPaths.get(i);
+      long first = Long.parseLong(segment.getFileName().toString().substring(
+          SEGMENT_PREFIX.length()));
+      segments.add(first);
+      long length = replay(segment);
+      if (length < Files.size(segment)) {
+        if (i < segmentPaths.size() - 1) {
+          throw new IOException("Corrupt record in " + segment + " at offset " + length);
+        }
+        try (FileChannel torn = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+          torn.truncate(length);
+          torn.force(true);
+        }
+      }
+    }
+    durable = appended;
+
+    if (segments.isEmpty()) {
+      segments.add(appended + 1);
+      channel = createSegment(appended + 1);
+    } else {
+      channel = FileChannel.open(
+          segmentPath(segments.get(segments.size() - 1)), StandardOpenOption.WRITE);
+      channel.position(channel.size());
+    }
+  }
+
+  private void readCheckpoint(Path path) throws IOException {
+    CRC32 checksum = new CRC32();
+    try (InputStream file = Files.newInputStream(path)) {
+      DataInputStream in = new DataInputStream(
+          new CheckedInputStream(new BufferedInputStream(file, 1 << 16), checksum));
+      if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_FORMAT) {
+        throw new IOException(path + " is not a calendar checkpoint");
+      }
+      checkpointed = in.readLong();
+      recoveredNextEventId = in.readInt();
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        int id = in.readInt();
+        recovered.put(id, readEvent(in));
+      }
+      long expected = checksum.getValue();
+      if (in.readLong() != expected) {
+        throw new IOException("Checksum mismatch in " + path);
+      }
+    } catch (EOFException e) {
+      throw new IOException(path + " is truncated", e);
+    }
+  }
+
+  // Applies the batches of the segment that come after the checkpoint, and returns the length of
+  // the segment up to the end of the last whole batch before the first record that is torn or
+  // corrupt.
+  private long replay(Path segment) throws IOException {
+    long length = 0;
+    long committed = 0;
+    // The changes of the batch being read, applied once its last record is read. The event is
+    // null for deletes.
+    List<Integer> batchIds = new ArrayList<>();
+    List<Event> batchEvents = new ArrayList<>();
+    long lastSequence = appended;
+    try (InputStream file = Files.newInputStream(segment)) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16));
+      CRC32 checksum = new CRC32();
+      byte[] body = new byte[256];
+      while (true) {
+        int size;
+        int expected;
+        try {
+          size = in.readInt();
+          expected = in.readInt();
+          if (size < RECORD_HEADER_SIZE || size > MAX_RECORD_SIZE) {
+            return committed;
+          }
+          if (body.length < size) {
+            body = new byte[Math.max(size, body.length * 2)];
+          }
+          in.readFully(body, 0, size);
+        } catch (EOFException e) {
+          return committed;
+        }
+        checksum.reset();
+        checksum.update(body, 0, size);
+        if ((int) checksum.getValue() != expected) {
+          return committed;
+        }
+        length += 8 + size;
+
+        ByteBuffer record = ByteBuffer.wrap(body, 0, size);
+        long sequence = record.getLong();
+        byte operation = record.get();
+        int id = record.getInt();
+        boolean endOfBatch = (operation & END_OF_BATCH) != 0;
+        if (sequence > checkpointed) {
+          if (sequence <= lastSequence) {
+            throw new IOException("Out of order record " + sequence + " in " + segment);
+          }
+          lastSequence = sequence;
+          batchIds.add(id);
+          if ((byte) (operation & ~END_OF_BATCH) == DELETE) {
+            batchEvents.add(null);
+          } else {
+            batchEvents.add(readEvent(new DataInputStream(new ByteArrayInputStream(
+                body, RECORD_HEADER_SIZE, size - RECORD_HEADER_SIZE))));
+          }
+          if (endOfBatch) {
+            applyRecovered(batchIds, batchEvents);
+            appended = sequence;
+          }
+        }
+        if (endOfBatch) {
+          committed = length;
+        }
+      }
+    }
+  }
+
+  private void applyRecovered(List<Integer> ids, List<Event> events) {
+    for (int i = 0; i < ids.size(); i++) {
+      if (events.get(i) == null) {
+        recovered.remove(ids.get(i));
+      } else {
+        recovered.put(ids.get(i), events.get(i));
+      }
+      recoveredNextEventId = Math.max(recoveredNextEventId, ids.get(i) + 1);
+    }
+    ids.clear();
+    events.clear();
+  }
+
+  /**
+   * Puts every recovered event into {@code builder}, and returns the lowest id that was never
+   * used. Can only be called once.
+   */
+  int restore(CalendarVersion.Builder builder) {
+    lock.lock();
+    try {
+      if (recovered == null) {
+        throw new IllegalStateException("The log was restored already");
+      }
+      for (Map.Entry<Integer, Event> entry : recovered.entrySet()) {
+        builder.put(entry.getKey(), entry.getValue());
+      }
+      recovered = null;
+      return recoveredNextEventId;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * The changes of one batch, encoded ahead of {@link #append}. Not safe to use from multiple
+   * threads.
+   */
+  static final class Changes {
+    private final List<byte[]> records = new ArrayList<>();
+
+    /**
+     * Adds a change. The event is null for deletes.
+     *
+     * @throws IllegalArgumentException if the event is too large to log.
+     */
+    void add(byte operation, int id, Event event) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+      DataOutputStream out = new DataOutputStream(bytes);
+      try {
+        // The sequence number is filled in by append.
+        out.writeLong(0);
+        out.writeByte(operation);
+        out.writeInt(id);
+        if (event != null) {
+          writeEvent(out, event);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      if (bytes.size() > MAX_RECORD_SIZE) {
+        throw new IllegalArgumentException(
+            "Events can take at most " + MAX_RECORD_SIZE + " bytes to log.");
+      }
+      records.add(bytes.toByteArray());
+    }
+
+    boolean isEmpty() {
+      return records.isEmpty();
+    }
+  }
+
+  /**
+   * Buffers the records of {@code changes}, all at once and with the last one marked, and returns
+   * the sequence number of the last one. The changes are only durable once {@link #sync} has been
+   * called with that number.
+   */
+  long append(Changes changes) throws IOException {
+    lock.lock();
+    try {
+      checkOpen();
+      DataOutputStream framed = new DataOutputStream(pending);
+      for (int i = 0; i < changes.records.size(); i++) {
+        byte[] body = changes.records.get(i);
+        ByteBuffer.wrap(body).putLong(0, ++appended);
+        if (i == changes.records.size() - 1) {
+          body[8] |= END_OF_BATCH;
+        }
+        crc.reset();
+        crc.update(body, 0, body.length);
+        framed.writeInt(body.length);
+        framed.writeInt((int) crc.getValue());
+        framed.write(body);
+      }
+      return appended;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the sequence number of the last record appended.
+   */
+  long getAppended() {
+    lock.lock();
+    try {
+      return appended;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns how many times the log has been forced to disk since it was opened.
+   */
+  long getForceCount() {
+    lock.lock();
+    try {
+      return forces;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until every record up to {@code sequence} is on disk, writing them if no other thread is
+   * already doing so.
+   */
+  void sync(long sequence) throws IOException {
+    lock.lock();
+    try {
+      while (durable < sequence) {
+        checkOpen();
+        if (flushing) {
+          flushed.awaitUninterruptibly();
+        } else {
+          flush();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Writes and forces everything pending, releasing the lock meanwhile. Called with the lock held
+  // and no other flush in progress.
+  private void flush() throws IOException {
+    flushing = true;
+    ByteBuffer batch = ByteBuffer.wrap(pending.toByteArray());
+    pending.reset();
+    long last = appended;
+    FileChannel target = channel;
+    lock.unlock();
+    IOException error = null;
+    try {
+      while (batch.hasRemaining()) {
+        target.write(batch);
+      }
+      target.force(false);
+    } catch (IOException e) {
+      error = e;
+    } finally {
+      lock.lock();
+      flushing = false;
+      flushed.signalAll();
+    }
+    if (error != null) {
+      failure = error;
+      throw error;
+    }
+    durable = last;
+    forces++;
+  }
+
+  /**
+   * Makes every record appended so far durable and starts a new segment for the records after
+   * them. Returns the sequence number of the last record before the new segment, which a
+   * checkpoint of the current version should be written at. Nothing must be appended meanwhile.
+   */
+  long roll() throws IOException {
+    lock.lock();
+    try {
+      while (flushing) {
+        flushed.awaitUninterruptibly();
+      }
+      checkOpen();
+      if (appended == checkpointed || appended < segments.get(segments.size() - 1)) {
+        // Nothing was written since the last checkpoint or roll.
+        return appended;
+      }
+      if (durable < appended) {
+        flush();
+      }
+      FileChannel next = createSegment(appended + 1);
+      channel.close();
+      channel = next;
+      segments.add(appended + 1);
+      return appended;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes {@code events} as the checkpoint at {@code sequence}, and deletes the segments it makes
+   * obsolete. Does nothing if the checkpoint on disk is as recent already.
+   */
+  synchronized void checkpoint(Map<Integer, Event> events, int nextEventId, long sequence)
+      throws IOException {
+    if (sequence <= checkpointed) {
+      return;
+    }
+
+    Path path = directory.resolve(CHECKPOINT);
+    Path temporary = directory.resolve(CHECKPOINT + TEMPORARY_SUFFIX);
+    try {
+      try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        CheckedOutputStream checked = new CheckedOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(file), 1 << 16), new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+        out.writeInt(CHECKPOINT_MAGIC);
+        out.writeInt(CHECKPOINT_FORMAT);
+        out.writeLong(sequence);
+        out.writeInt(nextEventId);
+        out.writeInt(events.size());
+        for (Map.Entry<Integer, Event> entry : events.entrySet()) {
+          out.writeInt(entry.getKey());
+          writeEvent(out, entry.getValue());
+        }
+        out.writeLong(checked.getChecksum().getValue());
+        out.flush();
+        file.force(true);
+      }
+      Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+    syncDirectory();
+
+    // A segment only holds records before the first record of the next one.
+    List<Long> obsolete = new ArrayList<>();
+    lock.lock();
+    try {
+      checkpointed = sequence;
+      while (segments.size() > 1 && segments.get(1) <= sequence + 1) {
+        obsolete.add(segments.remove(0));
+      }
+    } finally {
+      lock.unlock();
+    }
+    for (long first : obsolete) {
+      Files.deleteIfExists(segmentPath(first));
+    }
+    syncDirectory();
+  }
+
+  /**
+   * Makes every record appended so far durable and closes the log.
+   */
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      while (flushing) {
+        flushed.awaitUninterruptibly();
+      }
+      try {
+        if (failure == null && durable < appended) {
+          flush();
+        }
+      } finally {
+        closed = true;
+        channel.close();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void checkOpen() throws IOException {
+    if (failure != null) {
+      throw new IOException("The log failed to write earlier", failure);
+    }
+    if (closed) {
+      throw new IOException("The log is closed");
+    }
+  }
+
+  private FileChannel createSegment(long first) throws IOException {
+    FileChannel segment = FileChannel.open(
+        segmentPath(first), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    syncDirectory();
+    return segment;
+  }
+
+  private Path segmentPath(long first) {
+    return directory.resolve(String.format("%s%020d", SEGMENT_PREFIX, first));
+  }
+
+  // Makes new, renamed and deleted files in the directory durable. Not every platform can open a
+  // directory, and there is nothing more to do on those.
+  private void syncDirectory() {
+    try (FileChannel handle = FileChannel.open(directory, StandardOpenOption.READ)) {
+      handle.force(true);
+    } catch (IOException e) {
+      // Best effort.
+    }
+  }
+
+  private static void writeEvent(DataOutputStream out, Event event) throws IOException {
+    writeString(out, event.getTitle());
+    out.writeInt(event.getWhen().start());
+    out.writeInt(event.getWhen().duration());
+    out.writeInt(event.getAttendees().size());
+    for (String attendee : event.getAttendees()) {
+      writeString(out, attendee);
+    }
+
+    Recurrence recurrence = event.getRecurrence();
+    out.writeBoolean(recurrence != null);
+    if (recurrence != null) {
+      out.writeByte(recurrence.getFrequency().ordinal());
+      out.writeInt(recurrence.getInterval());
+      int days = 0;
+      for (DayOfWeek day : recurrence.getDays()) {
+        days |= 1 << day.ordinal();
+      }
+      out.writeByte(days);
+      out.writeInt(recurrence.getCount());
+      out.writeInt(recurrence.getUntil());
+      int[] exceptions = recurrence.getExceptions();
+      out.writeInt(exceptions.length);
+      for (int exception : exceptions) {
+        out.writeInt(exception);
+      }
+    }
+  }
+
+  private static Event readEvent(DataInputStream in) throws IOException {
+    String title = readString(in);
+    TimeRange when = TimeRange.fromStartDuration(in.readInt(), in.readInt());
+    int attendeeCount = in.readInt();
+    List<String> attendees = new ArrayList<>(attendeeCount);
+    for (int i = 0; i < attendeeCount; i++) {
+      attendees.add(readString(in));
+    }
+
+    Recurrence recurrence = null;
+    if (in.readBoolean()) {
+      Recurrence.Frequency frequency = Recurrence.Frequency.values()[in.readByte()];
+      int interval = in.readInt();
+      int dayBits = in.readByte();
+      EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+      for (DayOfWeek day : DayOfWeek.values()) {
+        if ((dayBits & (1 << day.ordinal())) != 0) {
+          days.add(day);
+        }
+      }
+      int count = in.readInt();
+      int until = in.readInt();
+      int[] exceptions = new int[in.readInt()];
+      for (int i = 0; i < exceptions.length; i++) {
+        exceptions[i] = in.readInt();
+      }
+
+      recurrence = frequency == Recurrence.Frequency.DAILY
+          ? Recurrence.daily()
+          : Recurrence.weekly(days);
+      recurrence = recurrence.every(interval).except(exceptions);
+      if (count > 0) {
+        recurrence = recurrence.times(count);
+      }
+      if (until != Integer.MAX_VALUE) {
+        recurrence = recurrence.until(until);
+      }
+    }
+    return new Event(title, when, attendees, recurrence);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > MAX_RECORD_SIZE) {
+      throw new IOException("Corrupt string length " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,377 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only calendar stored in a compact binary file, which is memory-mapped rather than read.
+ * Opening a snapshot only reads the attendee names, so that they can be matched to
+ * {@link AttendeeDictionary} ids. Busy times are read straight from the mapped file for each
+ * query, without ever creating {@link Event}s.
+ *
+ * <p>The file is little-endian and made of, in order:
+ *
+ * <ul>
+ *   <li>a header: magic number, format version, attendee count, event count, and the offsets of
+ *       the sections below, as ints;
+ *   <li>the attendee table: for each attendee, the offset of their name in the string pool, the
+ *       index of their first busy time, their number of busy times and their longest busy time;
+ *   <li>the event table: for each event, the offset of its title, its start and duration, and
+ *       where its attendees are in the attendee list;
+ *   <li>the attendee list: attendee indexes for every event, one after the other;
+ *   <li>the busy times: {@link PackedRange packed ranges}, sorted by start for every attendee;
+ *   <li>the string pool: byte length and UTF-8 bytes of every name and title.
+ * </ul>
+ */
+public final class CalendarSnapshot implements Schedule {
+  private static final int MAGIC = 0x534C4143; // "CALS" in little-endian
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int HEADER_SIZE = 40;
+  private static final int ATTENDEE_SIZE = 4 * Integer.BYTES;
+  private static final int EVENT_SIZE = 5 * Integer.BYTES;
+
+  private final ByteBuffer buffer;
+  private final int attendeeCount;
+  private final int eventCount;
+  private final int attendeeTable;
+  private final int eventTable;
+  private final int attendeeList;
+  private final int busyTimes;
+  private final int strings;
+
+  // Snapshot attendee index by AttendeeDictionary id, or -1. Ids interned after the snapshot was
+  // opened are past the end.
+  private final int[] attendeeIndexes;
+
+  private CalendarSnapshot(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a calendar snapshot.");
+    }
+    if (buffer.getInt(4) != FORMAT_VERSION) {
+      throw new IOException("Unsupported snapshot version " + buffer.getInt(4) + ".");
+    }
+
+    this.attendeeCount = buffer.getInt(8);
+    this.eventCount = buffer.getInt(12);
+    this.attendeeTable = buffer.getInt(16);
+    this.eventTable = buffer.getInt(20);
+    this.attendeeList = buffer.getInt(24);
+    this.busyTimes = buffer.getInt(28);
+    this.strings = buffer.getInt(32);
+
+    int[] ids = new int[attendeeCount];
+    int maxId = -1;
+    for (int i = 0; i < attendeeCount; i++) {
+      ids[i] = AttendeeDictionary.intern(string(buffer.getInt(attendeeTable + i * ATTENDEE_SIZE)));
+      maxId = Math.max(maxId, ids[i]);
+    }
+    this.attendeeIndexes = new int[maxId + 1];
+    Arrays.fill(attendeeIndexes, -1);
+    for (int i = 0; i < attendeeCount; i++) {
+      attendeeIndexes[ids[i]] = i;
+    }
+  }
+
+  /**
+   * Maps the snapshot at {@code path} into memory. The file must not be changed while it is
+   * mapped, which {@link #write} guarantees by replacing it instead.
+   */
+  public static CalendarSnapshot open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Snapshots are limited to 2 GB.");
+      }
+      return new CalendarSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Reads a snapshot that is already in memory, e.g. for tests.
+   */
+  public static CalendarSnapshot wrap(ByteBuffer buffer) throws IOException {
+    return new CalendarSnapshot(buffer.duplicate());
+  }
+
+  /**
+   * Returns the number of events in the snapshot.
+   */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Decodes the event at {@code index}, which is its position in the collection the snapshot was
+   * written from.
+   */
+  public Event getEvent(int index) {
+    if (index < 0 || index >= eventCount) {
+      throw new IllegalArgumentException("No event at index " + index);
+    }
+
+    int offset = eventTable + index * EVENT_SIZE;
+    TimeRange when =
+        TimeRange.fromStartDuration(buffer.getInt(offset + 4), buffer.getInt(offset + 8));
+    int first = buffer.getInt(offset + 12);
+    int count = buffer.getInt(offset + 16);
+    List<String> attendees = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int attendee = buffer.getInt(attendeeList + (first + i) * Integer.BYTES);
+      attendees.add(string(buffer.getInt(attendeeTable + attendee * ATTENDEE_SIZE)));
+    }
+    return new Event(string(buffer.getInt(offset)), when, attendees);
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimes(int attendeeId, TimeRange window) {
+    PackedRangeList ranges = new PackedRangeList();
+    addBusyTimes(attendeeId, window, ranges);
+    return ranges.toTimeRanges();
+  }
+
+  @Override
+  public void addBusyTimes(int attendeeId, TimeRange window, PackedRangeList ranges) {
+    if (attendeeId < 0 || attendeeId >= attendeeIndexes.length
+        || attendeeIndexes[attendeeId] < 0) {
+      return;
+    }
+
+    int offset = attendeeTable + attendeeIndexes[attendeeId] * ATTENDEE_SIZE;
+    int first = buffer.getInt(offset + 4);
+    int end = first + buffer.getInt(offset + 8);
+    int maxDuration = buffer.getInt(offset + 12);
+
+    // Anything starting more than maxDuration before the window ends before the window starts.
+    long from = (long) window.start() - maxDuration;
+    for (int i = firstStartingAt(first, end, from); i < end; i++) {
+      long range = busyTime(i);
+      if (PackedRange.start(range) >= window.end()) {
+        break;
+      }
+      if (PackedRange.end(range) > window.start() && PackedRange.duration(range) > 0) {
+        ranges.add(range);
+      }
+    }
+  }
+
+  // Returns the index of the first busy time in [from, to) that starts at or after start.
+  private int firstStartingAt(int from, int to, long start) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (PackedRange.start(busyTime(middle)) < start) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private long busyTime(int index) {
+    return buffer.getLong(busyTimes + index * Long.BYTES);
+  }
+
+  private String string(int offset) {
+    int length = buffer.getInt(strings + offset);
+    byte[] bytes = new byte[length];
+    ByteBuffer view = buffer.duplicate();
+    view.position(strings + offset + Integer.BYTES);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes {@code events} as a snapshot to {@code path}. The snapshot is written to a temporary
+   * file next to it first, and then moved into place, so a reader opening {@code path} never sees
+   * a partly written snapshot. Recurring events are rejected, as in {@link #encode}.
+   */
+  public static void write(Collection<Event> events, Path path) throws IOException {
+    ByteBuffer snapshot = encode(events);
+
+    Path directory = path.toAbsolutePath().getParent();
+    Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        while (snapshot.hasRemaining()) {
+          channel.write(snapshot);
+        }
+        channel.force(true);
+      }
+      Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Returns {@code events} in the snapshot format, ready to be read.
+   *
+   * @throws IllegalArgumentException if any of the events is recurring, which the format can't
+   *     hold yet.
+   */
+  public static ByteBuffer encode(Collection<Event> events) {
+    // Give every attendee an index, in order of appearance, and collect their busy times.
+    Map<String, Integer> attendeeIndexes = new LinkedHashMap<>();
+    List<PackedRangeList> attendeeBusyTimes = new ArrayList<>();
+    long attendeeListSize = 0;
+    for (Event event : events) {
+      if (event.isRecurring()) {
+        throw new IllegalArgumentException("Snapshots can't hold recurring events.");
+      }
+      for (String attendee : event.getAttendees()) {
+        Integer index = attendeeIndexes.get(attendee);
+        if (index == null) {
+          index = attendeeIndexes.size();
+          attendeeIndexes.put(attendee, index);
+          attendeeBusyTimes.add(new PackedRangeList());
+        }
+        attendeeBusyTimes.get(index).add(event.getWhen());
+        attendeeListSize++;
+      }
+    }
+    // Every attendee of every event has one busy time.
+    long busyTimeCount = attendeeListSize;
+
+    // Lay out the string pool: names first, then titles.
+    StringPool pool = new StringPool();
+    int[] nameOffsets = new int[attendeeIndexes.size()];
+    int i = 0;
+    for (String attendee : attendeeIndexes.keySet()) {
+      nameOffsets[i++] = pool.add(attendee);
+    }
+    int[] titleOffsets = new int[events.size()];
+    i = 0;
+    for (Event event : events) {
+      titleOffsets[i++] = pool.add(event.getTitle());
+    }
+
+    long attendeeTableOffset = HEADER_SIZE;
+    long eventTableOffset = attendeeTableOffset + (long) attendeeIndexes.size() * ATTENDEE_SIZE;
+    long attendeeListOffset = eventTableOffset + (long) events.size() * EVENT_SIZE;
+    // Keep the busy times aligned to 8 bytes.
+    long busyTimesOffset = align(attendeeListOffset + attendeeListSize * Integer.BYTES, Long.BYTES);
+    long stringsOffset = busyTimesOffset + busyTimeCount * Long.BYTES;
+    long size = stringsOffset + pool.size();
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Snapshots are limited to 2 GB.");
+    }
+    int attendeeTable = (int) attendeeTableOffset;
+    int eventTable = (int) eventTableOffset;
+    int attendeeList = (int) attendeeListOffset;
+    int busyTimes = (int) busyTimesOffset;
+    int strings = (int) stringsOffset;
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(FORMAT_VERSION)
+        .putInt(attendeeIndexes.size()).putInt(events.size())
+        .putInt(attendeeTable).putInt(eventTable).putInt(attendeeList)
+        .putInt(busyTimes).putInt(strings);
+
+    int busyTimeIndex = 0;
+    for (i = 0; i < attendeeBusyTimes.size(); i++) {
+      PackedRangeList ranges = attendeeBusyTimes.get(i);
+      ranges.sort();
+      int maxDuration = 0;
+      for (int j = 0; j < ranges.size(); j++) {
+        maxDuration = Math.max(maxDuration, PackedRange.duration(ranges.get(j)));
+        buffer.putLong(busyTimes + (busyTimeIndex + j) * Long.BYTES, ranges.get(j));
+      }
+      int offset = attendeeTable + i * ATTENDEE_SIZE;
+      buffer.putInt(offset, nameOffsets[i]);
+      buffer.putInt(offset + 4, busyTimeIndex);
+      buffer.putInt(offset + 8, ranges.size());
+      buffer.putInt(offset + 12, maxDuration);
+      busyTimeIndex += ranges.size();
+    }
+
+    int listIndex = 0;
+    i = 0;
+    for (Event event : events) {
+      int offset = eventTable + i * EVENT_SIZE;
+      buffer.putInt(offset, titleOffsets[i]);
+      buffer.putInt(offset + 4, event.getWhen().start());
+      buffer.putInt(offset + 8, event.getWhen().duration());
+      buffer.putInt(offset + 12, listIndex);
+      buffer.putInt(offset + 16, event.getAttendees().size());
+      for (String attendee : event.getAttendees()) {
+        buffer.putInt(attendeeList + listIndex++ * Integer.BYTES, attendeeIndexes.get(attendee));
+      }
+      i++;
+    }
+
+    buffer.position(strings);
+    pool.writeTo(buffer);
+    buffer.flip();
+    return buffer;
+  }
+
+  private static long align(long offset, int alignment) {
+    return (offset + alignment - 1) / alignment * alignment;
+  }
+
+  /** Length-prefixed UTF-8 strings, each stored once. */
+  private static final class StringPool {
+    private final Map<String, Integer> offsets = new LinkedHashMap<>();
+    private final List<byte[]> encoded = new ArrayList<>();
+    private long size = 0;
+
+    // Returns the offset of the string in the pool.
+    private int add(String string) {
+      Integer offset = offsets.get(string);
+      if (offset != null) {
+        return offset;
+      }
+
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      if (size + Integer.BYTES + bytes.length > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Snapshots are limited to 2 GB.");
+      }
+      int added = (int) size;
+      offsets.put(string, added);
+      encoded.add(bytes);
+      size += Integer.BYTES + bytes.length;
+      return added;
+    }
+
+    private long size() {
+      return size;
+    }
+
+    private void writeTo(ByteBuffer buffer) {
+      for (byte[] bytes : encoded) {
+        buffer.putInt(bytes.length).put(bytes);
+      }
+    }
+  }
+}
@@ -0,0 +1,326 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory calendar that events can be added to, updated in and deleted from. The calendar is
+ * a series of immutable {@link CalendarVersion}s, and the current one is published through a
+ * single atomic reference. A change builds the next version out of the current one, copying
+ * only the paths to what changed, in O(log n) per attendee involved, and swaps it in.
+ *
+ * <p>Readers never take a lock and never wait for writers. Each call reads the version that is
+ * current when it starts; a query that reads many attendees should {@link #pin()} one version
+ * and read that, so that it sees every attendee as of the same moment. Writers are applied one at
+ * a time, and a {@link Batch} of changes becomes visible all at once.
+ *
+ * <p>With a {@link CalendarLog}, every change is logged before it is published, and a write only
+ * returns once its change is on disk. Writers wait for the disk outside of the lock, so that the
+ * changes of concurrent writers reach the disk together.
+ */
+public final class CalendarStore implements Schedule {
+  private final AtomicReference<CalendarVersion> current =
+      new AtomicReference<>(CalendarVersion.EMPTY);
+  private final AttendeeVersions versions;
+  // Null if changes are only kept in memory.
+  private final CalendarLog log;
+
+  // Ids are handed out before their batch is committed, so they can't be guarded by this.
+  private final AtomicInteger nextEventId = new AtomicInteger();
+
+  /**
+   * Changes to publish as one new version. Ids for new events are reserved right away, but no
+   * change is visible until {@link #commit()}. Not safe to use from multiple threads.
+   */
+  public final class Batch {
+    // One entry per change, in order. The event is null for a delete.
+    private final List<Integer> ids = new ArrayList<>();
+    private final List<Event> events = new ArrayList<>();
+    private final List<Boolean> mustExist = new ArrayList<>();
+    private boolean committed = false;
+    // Set by apply: how many of the changes applied, and the log record of the last of them.
+    private int applied = 0;
+    private long sequence = 0;
+
+    private Batch() {}
+
+    /**
+     * Adds {@code event}, and returns the id it will have.
+     */
+    public int add(Event event) {
+      checkEvent(event);
+      int id = nextEventId.getAndIncrement();
+      record(id, event, false);
+      return id;
+    }
+
+    /**
+     * Replaces the event with {@code id} by {@code event}, if there still is such an event when
+     * the batch is committed.
+     */
+    public void update(int id, Event event) {
+      checkEvent(event);
+      record(id, event, true);
+    }
+
+    /**
+     * Deletes the event with {@code id}, if there still is one when the batch is committed.
+     */
+    public void delete(int id) {
+      record(id, null, true);
+    }
+
+    /**
+     * Applies every change in order and publishes the result. Returns the new version, or the
+     * current one if nothing changed.
+     *
+     * @throws UncheckedIOException if the changes could not be logged. They may still be visible
+     *     until the next restart.
+     * @throws IllegalArgumentException if an event is too large to log. Nothing is applied then.
+     */
+    public CalendarVersion commit() {
+      if (committed) {
+        throw new IllegalStateException("The batch was committed already");
+      }
+      committed = true;
+      CalendarVersion version = apply(this);
+      if (applied > 0 && log != null) {
+        try {
+          log.sync(sequence);
+        } catch (IOException e) {
+          throw new UncheckedIOException("Failed to log the changes", e);
+        }
+      }
+      return version;
+    }
+
+    private void record(int id, Event event, boolean mustExist) {
+      if (committed) {
+        throw new IllegalStateException("The batch was committed already");
+      }
+      this.ids.add(id);
+      this.events.add(event);
+      this.mustExist.add(mustExist);
+    }
+  }
+
+  /**
+   * Creates an empty calendar.
+   *
+   * @param versions Incremented for every attendee of every event that changes. Must be non-null.
+   */
+  public CalendarStore(AttendeeVersions versions) {
+    this(versions, null);
+  }
+
+  /**
+   * Creates a calendar holding the events recovered by {@code log}, which then logs every change.
+   *
+   * @param versions Incremented for every attendee of every event that changes. Must be non-null.
+   * @param log Freshly opened, and not given to any other store. Null to keep changes in memory
+   *     only.
+   */
+  public CalendarStore(AttendeeVersions versions, CalendarLog log) {
+    if (versions == null) {
+      throw new IllegalArgumentException("versions cannot be null");
+    }
+
+    this.versions = versions;
+    this.log = log;
+    if (log != null) {
+      CalendarVersion.Builder recovered = new CalendarVersion.Builder(CalendarVersion.EMPTY);
+      nextEventId.set(log.restore(recovered));
+      current.set(recovered.build());
+    }
+  }
+
+  /**
+   * Starts a batch of changes.
+   */
+  public Batch newBatch() {
+    return new Batch();
+  }
+
+  /**
+   * Adds {@code event} to the calendar and returns the id it can be updated or deleted with.
+   */
+  public int add(Event event) {
+    Batch batch = newBatch();
+    int id = batch.add(event);
+    batch.commit();
+    return id;
+  }
+
+  /**
+   * Replaces the event with {@code id} by {@code event}. Returns false if there is no such event.
+   */
+  public boolean update(int id, Event event) {
+    Batch batch = newBatch();
+    batch.update(id, event);
+    batch.commit();
+    return batch.applied > 0;
+  }
+
+  /**
+   * Deletes the event with {@code id}. Returns false if there is no such event.
+   */
+  public boolean delete(int id) {
+    Batch batch = newBatch();
+    batch.delete(id);
+    batch.commit();
+    return batch.applied > 0;
+  }
+
+  /**
+   * Writes a checkpoint of the current version to the log and deletes the records it covers, so
+   * that the next startup has less to replay. Writers only wait for the records already buffered to
+   * reach the disk, not for the checkpoint.
+   *
+   * @throws IllegalStateException if the calendar has no log.
+   */
+  public void compact() throws IOException {
+    if (log == null) {
+      throw new IllegalStateException("The calendar has no log");
+    }
+
+    CalendarVersion version;
+    long sequence;
+    // Every change is logged and published under this lock, so the version is exactly the one
+    // the log is at.
+    synchronized (this) {
+      sequence = log.roll();
+      version = current.get();
+    }
+    log.checkpoint(version.getEvents(), nextEventId.get(), sequence);
+  }
+
+  /**
+   * Returns the current version, which stays the same however the calendar changes later.
+   */
+  @Override
+  public CalendarVersion pin() {
+    return current.get();
+  }
+
+  /**
+   * Returns the number of versions published so far, one for every change or batch. Anything
+   * computed from the whole calendar is still valid as long as this has not moved, provided the
+   * version was read before computing it.
+   */
+  public long getVersion() {
+    return current.get().getVersion();
+  }
+
+  /**
+   * Returns the event with {@code id}, or null if there is none.
+   */
+  public Event get(int id) {
+    return current.get().get(id);
+  }
+
+  /**
+   * Returns a read-only map of every event by id, as of the current version.
+   */
+  public Map<Integer, Event> getEvents() {
+    return current.get().getEvents();
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimes(int attendeeId, TimeRange window) {
+    return current.get().getBusyTimes(attendeeId, window);
+  }
+
+  @Override
+  public void addBusyTimes(int attendeeId, TimeRange window, PackedRangeList busyTimes) {
+    current.get().addBusyTimes(attendeeId, window, busyTimes);
+  }
+
+  private synchronized CalendarVersion apply(Batch batch) {
+    CalendarVersion.Builder next = new CalendarVersion.Builder(current.get());
+    List<Event> changed = new ArrayList<>();
+    // Logged as one unit, so that recovery restores the whole batch or none of it.
+    CalendarLog.Changes logged = log == null ? null : new CalendarLog.Changes();
+    int applied = 0;
+    for (int i = 0; i < batch.ids.size(); i++) {
+      int id = batch.ids.get(i);
+      Event event = batch.events.get(i);
+      Event old = next.get(id);
+      if (batch.mustExist.get(i) && old == null) {
+        continue;
+      }
+      if (logged != null) {
+        logged.add(event == null ? CalendarLog.DELETE
+            : old == null ? CalendarLog.ADD : CalendarLog.UPDATE, id, event);
+      }
+      if (event == null) {
+        next.remove(id);
+      } else {
+        next.put(id, event);
+        changed.add(event);
+      }
+      if (old != null) {
+        changed.add(old);
+      }
+      applied++;
+    }
+    if (changed.isEmpty()) {
+      return current.get();
+    }
+    if (logged != null) {
+      try {
+        batch.sequence = log.append(logged);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to log the changes", e);
+      }
+    }
+    batch.applied = applied;
+
+    CalendarVersion version = next.build();
+    current.set(version);
+    // Only move the versions once the change is visible, so that nothing computed before the
+    // change can be stored under the new versions.
+    for (Event event : changed) {
+      versions.incrementAll(event.getAttendees());
+    }
+    return version;
+  }
+
+  private static void checkEvent(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+  }
+
+  /**
+   * Creates a calendar holding {@code events}, added as one batch.
+   */
+  public static CalendarStore of(Collection<Event> events, AttendeeVersions versions) {
+    CalendarStore store = new CalendarStore(versions);
+    Batch batch = store.newBatch();
+    for (Event event : events) {
+      batch.add(event);
+    }
+    batch.commit();
+    return store;
+  }
+}
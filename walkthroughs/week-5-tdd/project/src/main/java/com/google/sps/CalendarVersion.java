@@ -0,0 +1,214 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One version of a {@link CalendarStore}: every event, and every attendee's timeline, as they
+ * were right after one change. Nothing in a version ever changes, so a query can read one for as
+ * long as it takes without locks, and sees every attendee as of the same moment. Each version
+ * shares all but the changed paths of its maps and {@link IntervalTree}s with the one before.
+ */
+public final class CalendarVersion implements Schedule {
+  static final CalendarVersion EMPTY =
+      new CalendarVersion(0, PersistentIntMap.empty(), PersistentIntMap.empty());
+
+  private final long version;
+  // By event id.
+  private final PersistentIntMap<Event> events;
+  // By attendee id. Only people with at least one event have a timeline.
+  private final PersistentIntMap<Timeline> timelines;
+
+  /** The events of one attendee. */
+  private static final class Timeline {
+    private static final Timeline EMPTY =
+        new Timeline(IntervalTree.EMPTY, PersistentIntMap.empty());
+
+    private final IntervalTree ranges;
+    // Recurring events by event id. They are expanded for each window instead of being stored
+    // once per occurrence.
+    private final PersistentIntMap<Event> recurring;
+
+    Timeline(IntervalTree ranges, PersistentIntMap<Event> recurring) {
+      this.ranges = ranges;
+      this.recurring = recurring;
+    }
+
+    Timeline with(int id, Event event) {
+      return event.isRecurring()
+          ? new Timeline(ranges, recurring.with(id, event))
+          : new Timeline(ranges.with(event.getWhen(), id), recurring);
+    }
+
+    // Returns null instead of an empty timeline.
+    Timeline without(int id, Event event) {
+      Timeline timeline = event.isRecurring()
+          ? new Timeline(ranges, recurring.with(id, null))
+          : new Timeline(ranges.without(event.getWhen(), id), recurring);
+      return timeline.ranges.isEmpty() && timeline.recurring.isEmpty() ? null : timeline;
+    }
+  }
+
+  private CalendarVersion(long version, PersistentIntMap<Event> events,
+      PersistentIntMap<Timeline> timelines) {
+    this.version = version;
+    this.events = events;
+    this.timelines = timelines;
+  }
+
+  /**
+   * Returns the number of versions published before this one, plus one. The empty calendar is
+   * version 0.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the event with {@code id}, or null if there is none.
+   */
+  public Event get(int id) {
+    return id < 0 ? null : events.get(id);
+  }
+
+  /**
+   * Returns every event by id, in id order.
+   */
+  public Map<Integer, Event> getEvents() {
+    return new AbstractMap<Integer, Event>() {
+      @Override
+      public Event get(Object key) {
+        return key instanceof Integer ? CalendarVersion.this.get((Integer) key) : null;
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        return get(key) != null;
+      }
+
+      @Override
+      public Set<Map.Entry<Integer, Event>> entrySet() {
+        return new AbstractSet<Map.Entry<Integer, Event>>() {
+          @Override
+          public int size() {
+            return events.size();
+          }
+
+          @Override
+          public Iterator<Map.Entry<Integer, Event>> iterator() {
+            List<Map.Entry<Integer, Event>> entries = new ArrayList<>(events.size());
+            events.forEach((event, id) -> entries.add(new SimpleImmutableEntry<>(id, event)));
+            return Collections.unmodifiableList(entries).iterator();
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimes(int attendeeId, TimeRange window) {
+    PackedRangeList busyTimes = new PackedRangeList();
+    addBusyTimes(attendeeId, window, busyTimes);
+    if (busyTimes.isEmpty()) {
+      return Collections.emptyList();
+    }
+    busyTimes.sort();
+    return busyTimes.toTimeRanges();
+  }
+
+  @Override
+  public void addBusyTimes(int attendeeId, TimeRange window, PackedRangeList busyTimes) {
+    Timeline timeline = attendeeId < 0 ? null : timelines.get(attendeeId);
+    if (timeline == null) {
+      return;
+    }
+
+    timeline.ranges.addOverlapping(window, busyTimes);
+    timeline.recurring.forEach((event, id) -> event.addOccurrences(window, busyTimes));
+  }
+
+  /**
+   * Returns this version, which never changes.
+   */
+  @Override
+  public CalendarVersion pin() {
+    return this;
+  }
+
+  /**
+   * Collects changes to one version, to publish them all at once as the next one. Not safe to
+   * use from multiple threads.
+   */
+  static final class Builder {
+    private final long version;
+    private PersistentIntMap<Event> events;
+    private PersistentIntMap<Timeline> timelines;
+
+    Builder(CalendarVersion base) {
+      this.version = base.version + 1;
+      this.events = base.events;
+      this.timelines = base.timelines;
+    }
+
+    Event get(int id) {
+      return events.get(id);
+    }
+
+    /**
+     * Stores {@code event} under {@code id}, replacing the event that had the id before.
+     */
+    void put(int id, Event event) {
+      remove(id);
+      events = events.with(id, event);
+      AttendeeSet attendees = event.getAttendeeIds();
+      for (int i = 0; i < attendees.size(); i++) {
+        Timeline timeline = timelines.get(attendees.id(i));
+        timeline = timeline == null ? Timeline.EMPTY : timeline;
+        timelines = timelines.with(attendees.id(i), timeline.with(id, event));
+      }
+    }
+
+    /**
+     * Removes the event with {@code id}, and returns it, or null if there is none.
+     */
+    Event remove(int id) {
+      Event old = events.get(id);
+      if (old == null) {
+        return null;
+      }
+      events = events.with(id, null);
+      AttendeeSet attendees = old.getAttendeeIds();
+      for (int i = 0; i < attendees.size(); i++) {
+        Timeline timeline = timelines.get(attendees.id(i));
+        if (timeline != null) {
+          timelines = timelines.with(attendees.id(i), timeline.without(id, old));
+        }
+      }
+      return old;
+    }
+
+    CalendarVersion build() {
+      return new CalendarVersion(version, events, timelines);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A time for a meeting that some of the required attendees can't make, and who they are.
+ */
+public final class ConflictSlot {
+  private final TimeRange when;
+  private final int available;
+  private final List<String> conflicts;
+
+  /**
+   * Creates a slot.
+   *
+   * @param when The range the meeting can be placed anywhere in, with the same conflicts.
+   * @param available How many required attendees can make it.
+   * @param conflicts The required attendees who can't, sorted.
+   */
+  public ConflictSlot(TimeRange when, int available, List<String> conflicts) {
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+    if (conflicts == null) {
+      throw new IllegalArgumentException("conflicts cannot be null");
+    }
+
+    this.when = when;
+    this.available = available;
+    this.conflicts = Collections.unmodifiableList(conflicts);
+  }
+
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  public int getAvailable() {
+    return available;
+  }
+
+  public List<String> getConflicts() {
+    return conflicts;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof ConflictSlot)) {
+      return false;
+    }
+    ConflictSlot slot = (ConflictSlot) other;
+    return when.equals(slot.when) && available == slot.available
+        && conflicts.equals(slot.conflicts);
+  }
+
+  @Override
+  public int hashCode() {
+    return (when.hashCode() * 31 + available) * 31 + conflicts.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return when + " without " + conflicts;
+  }
+}
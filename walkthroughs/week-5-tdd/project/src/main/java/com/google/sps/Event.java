@@ -15,18 +15,24 @@
 package com.google.sps;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
  * Event is the container class for when a specific group of people are meeting and are therefore
  * busy. Events are considered read-only.
+ *
+ * <p>An event can repeat by a {@link Recurrence}. A repeating event is still a single object, and
+ * its occurrences are only worked out for the windows that are asked about.
  */
 public final class Event {
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+  private final AttendeeSet attendees;
+  // Null for events that happen once.
+  private final Recurrence recurrence;
+  // The latest start of an occurrence, taking the count of the recurrence into account.
+  private final int lastStart;
 
   /**
    * Creates a new event.
@@ -36,6 +42,20 @@ public final class Event {
    * @param attendees The collection of people attending the event. Must be non-null.
    */
   public Event(String title, TimeRange when, Collection<String> attendees) {
+    this(title, when, attendees, null);
+  }
+
+  /**
+   * Creates a new event that repeats.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param when The time of the first occurrence. If it is not on one of the days of the
+   *     recurrence, the event starts on the next one instead, at the same time of day.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   * @param recurrence How the event repeats, or null if it only happens once.
+   */
+  public Event(String title, TimeRange when, Collection<String> attendees,
+      Recurrence recurrence) {
     if (title == null) {
       throw new IllegalArgumentException("title cannot be null");
     }
@@ -50,7 +70,23 @@ public final class Event {
 
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+    this.attendees = AttendeeSet.intern(attendees);
+    this.recurrence = recurrence;
+    this.lastStart = recurrence == null ? when.start() : lastStart(when, recurrence);
+  }
+
+  // Turns the count into a last start, so that expanding a window doesn't depend on how many
+  // occurrences came before it.
+  private static int lastStart(TimeRange when, Recurrence recurrence) {
+    if (recurrence.getCount() == 0) {
+      return recurrence.getUntil();
+    }
+
+    int firstDay = Math.floorDiv(when.start(), TimeRange.MINUTES_PER_DAY);
+    int timeOfDay = when.start() - firstDay * TimeRange.MINUTES_PER_DAY;
+    long lastDay = recurrence.lastDay(firstDay);
+    return (int) Math.min(lastDay * TimeRange.MINUTES_PER_DAY + timeOfDay,
+        recurrence.getUntil());
   }
 
   /**
@@ -67,13 +103,63 @@ public final class Event {
     return when;
   }
 
+  /**
+   * Returns how this event repeats, or null if it happens once.
+   */
+  public Recurrence getRecurrence() {
+    return recurrence;
+  }
+
+  /**
+   * Checks if this event repeats.
+   */
+  public boolean isRecurring() {
+    return recurrence != null;
+  }
+
+  /**
+   * Appends the occurrences of this event that overlap {@code window} to {@code ranges}, in
+   * order. Only the days of the window are looked at, however long the event has been repeating.
+   */
+  public void addOccurrences(TimeRange window, PackedRangeList ranges) {
+    if (recurrence == null) {
+      if (when.start() < window.end() && when.end() > window.start()) {
+        ranges.add(when);
+      }
+      return;
+    }
+
+    int firstDay = Math.floorDiv(when.start(), TimeRange.MINUTES_PER_DAY);
+    int timeOfDay = when.start() - firstDay * TimeRange.MINUTES_PER_DAY;
+    // The earliest day whose occurrence can still reach into the window.
+    int day = Math.floorDiv(window.start() - when.duration() - timeOfDay,
+        TimeRange.MINUTES_PER_DAY);
+    while (true) {
+      day = recurrence.nextDay(firstDay, day);
+      long start = (long) day * TimeRange.MINUTES_PER_DAY + timeOfDay;
+      if (start >= window.end() || start > lastStart) {
+        return;
+      }
+      if (start + when.duration() > window.start() && !recurrence.isException((int) start)) {
+        ranges.add(PackedRange.pack((int) start, when.duration()));
+      }
+      day++;
+    }
+  }
+
   /**
    * Returns a read-only set of required attendees for this event.
    */
   public Set<String> getAttendees() {
-    // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
-    return Collections.unmodifiableSet(attendees);
+    // The attendee set is read-only, so it can be returned without wrapping or copying it.
+    return attendees;
+  }
+
+  /**
+   * Returns the attendees of this event as a sorted set of {@link AttendeeDictionary} ids.
+   */
+  public AttendeeSet getAttendeeIds() {
+    return attendees;
   }
 
   @Override
@@ -89,8 +175,9 @@ public final class Event {
   }
 
   private static boolean equals(Event a, Event b) {
-    // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
-    // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    // Both attendee sets hold sorted ids from the same dictionary, so comparing them is a single
+    // array comparison.
+    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees)
+        && Objects.equals(a.recurrence, b.recurrence);
   }
 }
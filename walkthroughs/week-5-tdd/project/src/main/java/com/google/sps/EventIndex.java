@@ -0,0 +1,197 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Index from each attendee to the times they are busy. The index is built once from a collection
+ * of events so that a query only has to look at the events of the people it asks about. Indexes
+ * are read-only.
+ */
+public final class EventIndex implements Schedule {
+  // Busy times by attendee id. Ids that were interned after the index was built are past the end.
+  private final IntervalSet[] busyTimes;
+  // The busy times on the first day as a bitmap, by attendee id. Null for people without events.
+  private final MinuteBitmap[] busyMinutes;
+  // The recurring events, by attendee id, which are expanded for each window. Null for people
+  // without any.
+  private final Event[][] recurring;
+  private final int attendeeCount;
+
+  /**
+   * Creates a new index.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public EventIndex(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty collection instead.");
+    }
+
+    int maxId = -1;
+    for (Event event : events) {
+      AttendeeSet attendees = event.getAttendeeIds();
+      if (attendees.size() > 0) {
+        maxId = Math.max(maxId, attendees.id(attendees.size() - 1));
+      }
+    }
+
+    List<List<TimeRange>> grouped = new ArrayList<>(maxId + 1);
+    List<List<Event>> groupedRecurring = new ArrayList<>(maxId + 1);
+    for (int id = 0; id <= maxId; id++) {
+      grouped.add(null);
+      groupedRecurring.add(null);
+    }
+    for (Event event : events) {
+      AttendeeSet attendees = event.getAttendeeIds();
+      for (int i = 0; i < attendees.size(); i++) {
+        int id = attendees.id(i);
+        if (event.isRecurring()) {
+          if (groupedRecurring.get(id) == null) {
+            groupedRecurring.set(id, new ArrayList<>());
+          }
+          groupedRecurring.get(id).add(event);
+          continue;
+        }
+        if (grouped.get(id) == null) {
+          grouped.set(id, new ArrayList<>());
+        }
+        grouped.get(id).add(event.getWhen());
+      }
+    }
+
+    this.busyTimes = new IntervalSet[maxId + 1];
+    this.busyMinutes = new MinuteBitmap[maxId + 1];
+    this.recurring = new Event[maxId + 1][];
+    PackedRangeList occurrences = new PackedRangeList();
+    int count = 0;
+    for (int id = 0; id <= maxId; id++) {
+      List<TimeRange> attendeeBusyTimes = grouped.get(id);
+      List<Event> attendeeRecurring = groupedRecurring.get(id);
+      busyTimes[id] =
+          attendeeBusyTimes == null ? IntervalSet.EMPTY : IntervalSet.of(attendeeBusyTimes);
+      if (attendeeBusyTimes == null && attendeeRecurring == null) {
+        continue;
+      }
+
+      busyMinutes[id] = new MinuteBitmap();
+      for (TimeRange range : busyTimes[id].overlapping(TimeRange.WHOLE_DAY)) {
+        busyMinutes[id].add(range);
+      }
+      if (attendeeRecurring != null) {
+        recurring[id] = attendeeRecurring.toArray(new Event[0]);
+        occurrences.clear();
+        addOccurrences(recurring[id], TimeRange.WHOLE_DAY, occurrences);
+        for (TimeRange range : occurrences.toTimeRanges()) {
+          busyMinutes[id].add(range);
+        }
+      }
+      count++;
+    }
+    this.attendeeCount = count;
+  }
+
+  /**
+   * Returns the times when {@code attendee} is busy, sorted by start time. Overlapping and
+   * back-to-back events are merged, so the ranges never touch each other. Returns an empty list
+   * for people without any events. Recurring events are left out, since they may never end.
+   */
+  public List<TimeRange> getBusyTimes(String attendee) {
+    return getBusyTimes(AttendeeDictionary.lookup(attendee));
+  }
+
+  /**
+   * Same as {@link #getBusyTimes(String)}, but looks the attendee up by their
+   * {@link AttendeeDictionary} id.
+   */
+  public List<TimeRange> getBusyTimes(int attendeeId) {
+    return busyTimes(attendeeId).asList();
+  }
+
+  /**
+   * Returns the times when the attendee is busy that overlap {@code window}, sorted by start time.
+   * This is a binary search into the attendee's busy times, so it does not depend on how far the
+   * calendar reaches outside of the window.
+   */
+  @Override
+  public List<TimeRange> getBusyTimes(int attendeeId, TimeRange window) {
+    Event[] attendeeRecurring = recurring(attendeeId);
+    if (attendeeRecurring == null) {
+      return busyTimes(attendeeId).overlapping(window);
+    }
+
+    PackedRangeList ranges = new PackedRangeList();
+    addBusyTimes(attendeeId, window, ranges);
+    ranges.sort();
+    return ranges.toTimeRanges();
+  }
+
+  @Override
+  public void addBusyTimes(int attendeeId, TimeRange window, PackedRangeList busyTimes) {
+    busyTimes(attendeeId).addOverlapping(window, busyTimes);
+    Event[] attendeeRecurring = recurring(attendeeId);
+    if (attendeeRecurring != null) {
+      addOccurrences(attendeeRecurring, window, busyTimes);
+    }
+  }
+
+  private static void addOccurrences(Event[] events, TimeRange window,
+      PackedRangeList busyTimes) {
+    for (Event event : events) {
+      event.addOccurrences(window, busyTimes);
+    }
+  }
+
+  /**
+   * Returns a new bitmap of the minutes of {@link TimeRange#WHOLE_DAY} when at least one of
+   * {@code attendees} is busy. This costs a few word operations per attendee, however many events
+   * they have.
+   */
+  @Override
+  public MinuteBitmap getBusyMinutes(AttendeeSet attendees) {
+    MinuteBitmap busy = new MinuteBitmap();
+    for (int i = 0; i < attendees.size(); i++) {
+      int id = attendees.id(i);
+      if (id < busyMinutes.length && busyMinutes[id] != null) {
+        busy.or(busyMinutes[id]);
+      }
+    }
+    return busy;
+  }
+
+  /**
+   * Returns the number of people with at least one event in this index.
+   */
+  public int getAttendeeCount() {
+    return attendeeCount;
+  }
+
+  private Event[] recurring(int attendeeId) {
+    if (attendeeId < 0 || attendeeId >= recurring.length) {
+      return null;
+    }
+    return recurring[attendeeId];
+  }
+
+  private IntervalSet busyTimes(int attendeeId) {
+    if (attendeeId < 0 || attendeeId >= busyTimes.length) {
+      return IntervalSet.EMPTY;
+    }
+    return busyTimes[attendeeId];
+  }
+}
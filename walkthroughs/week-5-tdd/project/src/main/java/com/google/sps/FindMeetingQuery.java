@@ -14,173 +14,602 @@
 
 package com.google.sps;
 
-import java.util.Collection;
-import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Set;
-import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 public final class FindMeetingQuery {
 
-  private final int DAY_LENGTH = 24 * 60;  
   private final int MIN_DURATION = 0;
-  private final int MAX_DURATION = DAY_LENGTH;
 
-  // Method for checking of there is overlap between the guests of two events
-  private Boolean attendeesOverlap(Collection<String> eventOneAttendees, 
-                                   Set<String> eventTwoAttendees) {
-    for (String attendee: eventOneAttendees) {
-      if (eventTwoAttendees.contains(attendee)) {
-        return true;
+  // Null when the queries are not measured.
+  private final QueryMetrics metrics;
+
+  public FindMeetingQuery() {
+    this(null);
+  }
+
+  /**
+   * Creates a query that counts the busy ranges it reads and merges in {@code metrics}.
+   */
+  public FindMeetingQuery(QueryMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  // Lists the free times of the attendees in order, scanning the window one day at a time as the
+  // caller asks for more. A free range that runs into the next day is only listed once the day
+  // that ends it has been scanned.
+  private final class EarliestSlots implements Iterator<TimeRange> {
+    private final Schedule schedule;
+    private final AttendeeSet attendees;
+    private final TimeRange window;
+    private final long duration;
+
+    // Where the next day to scan starts.
+    private int scanned;
+    // Whether the last scanned day ended with a free range, and where that range started.
+    private boolean open = false;
+    private int openStart;
+
+    private final PackedRangeList ready = new PackedRangeList();
+    private int readyIndex = 0;
+
+    private EarliestSlots(Schedule schedule, MeetingRequest request) {
+      // The days are scanned as the caller asks for them, so they all have to come from the same
+      // version of the schedule.
+      this.schedule = schedule.pin();
+      this.attendees = request.getAttendeeIds();
+      this.window = request.getWindow();
+      this.duration = request.getDuration();
+      this.scanned = window.start();
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (readyIndex == ready.size() && scanned < window.end()) {
+        scanNextDay();
+      }
+      return readyIndex < ready.size();
+    }
+
+    @Override
+    public TimeRange next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return PackedRange.toTimeRange(ready.get(readyIndex++));
+    }
+
+    private void scanNextDay() {
+      ready.clear();
+      readyIndex = 0;
+
+      int dayStart = scanned;
+      int dayEnd = (int) Math.min((long) dayStart + TimeRange.MINUTES_PER_DAY, window.end());
+      TimeRange day = TimeRange.fromStartEnd(dayStart, dayEnd, false);
+      PackedRangeList gaps = freeTimes(busyTimes(schedule, attendees, day), day, MIN_DURATION);
+      scanned = dayEnd;
+
+      // the free range left open by the previous day ends where this day starts busy
+      if (open && (gaps.isEmpty() || PackedRange.start(gaps.get(0)) != dayStart)) {
+        addIfLongEnough(openStart, dayStart);
+        open = false;
+      }
+      for (int i = 0; i < gaps.size(); i++) {
+        int start = PackedRange.start(gaps.get(i));
+        int end = PackedRange.end(gaps.get(i));
+        if (open) {
+          start = openStart;
+          open = false;
+        }
+        if (end == dayEnd && dayEnd < window.end()) {
+          open = true;
+          openStart = start;
+        } else {
+          addIfLongEnough(start, end);
+        }
+      }
+    }
+
+    private void addIfLongEnough(int start, int end) {
+      if (end - start >= duration) {
+        ready.add(start, end);
       }
     }
-    return false;
   }
-  
-  // Method for removing overlap by starting the event later
-  private TimeRange cutEventFromStart(TimeRange conflictingEvent,
-                                      TimeRange proposedEvent, long neededDuration) {
-    
-    // checking that the overlapping event isn't longer than the proposed event
-    if (!endsAfter(conflictingEvent, proposedEvent)) {
 
-      int newDuration = proposedEvent.end() - conflictingEvent.end();
-      if (newDuration >= neededDuration) { 
-        return TimeRange.fromStartDuration(conflictingEvent.end(), newDuration); 
-      }      
+  // A run of consecutive meeting start times, [start, end), that the same number of optional
+  // attendees would have to miss.
+  private static final class StartRun {
+    private final int start;
+    private int end;
+    private final int unavailable;
+
+    private StartRun(int start, int end, int unavailable) {
+      this.start = start;
+      this.end = end;
+      this.unavailable = unavailable;
     }
+  }
 
-    return null;                                        
+  // method for indicating whether or not a proposed duration is invalid, i.e. not positive or
+  // longer than the window the meeting has to fit in
+  private boolean invalidDuration(MeetingRequest request) {
+    long duration = request.getDuration();
+    return duration <= MIN_DURATION || duration > request.getWindow().duration();
   }
 
-   // Method for removing overlap by evending the event earlier
-   private TimeRange cutEventFromEnd(TimeRange conflictingEvent,
-                                       TimeRange proposedEvent, long neededDuration) {
+  // method for collecting the times inside the window at which at least one of the attendees is
+  // busy, filtering the events only once. Recurring events only add their occurrences inside the
+  // window.
+  private PackedRangeList busyTimes(Collection<Event> events, AttendeeSet attendees,
+      TimeRange window) {
+    PackedRangeList busyTimes = new PackedRangeList();
+    for (Event event: events) {
+      if (event.getAttendeeIds().overlaps(attendees)) {
+        event.addOccurrences(window, busyTimes);
+      }
+    }
+    countRead(events.size());
+    return busyTimes;
+  }
 
-     int newDuration = conflictingEvent.start() - proposedEvent.start();
-     if (newDuration >= neededDuration) {
-       return TimeRange.fromStartDuration(proposedEvent.start(), newDuration);    
-     }
+  // method for collecting the busy times of the attendees inside the window from the schedule,
+  // without creating a TimeRange for each of them
+  private PackedRangeList busyTimes(Schedule schedule, AttendeeSet attendees, TimeRange window) {
+    PackedRangeList busyTimes = new PackedRangeList();
+    for (int i = 0; i < attendees.size(); i++) {
+      schedule.addBusyTimes(attendees.id(i), window, busyTimes);
+    }
+    countRead(busyTimes.size());
+    return busyTimes;
+  }
 
-     return null;
-   }
+  // method for merging busy times in place, counting how many ranges were folded into others
+  private void merge(PackedRangeList busyTimes) {
+    int before = busyTimes.size();
+    busyTimes.merge();
+    if (metrics != null) {
+      metrics.recordRangesMerged(before - busyTimes.size());
+    }
+  }
 
+  // method for counting the busy ranges or events a query has looked at
+  private void countRead(int count) {
+    if (metrics != null) {
+      metrics.recordRangesRead(count);
+    }
+  }
 
-  // Method for checking is one event starts after another event
-  private boolean startsAfter(TimeRange rangeOne, TimeRange rangeTwo) {
-    return rangeOne.start() > rangeTwo.start();
+  // method for cutting the busy times out of the window and keeping the gaps that the meeting fits
+  // in. The busy times are merged in place first.
+  private PackedRangeList freeTimes(PackedRangeList busyTimes, TimeRange window, long duration) {
+    merge(busyTimes);
+    PackedRangeList windowRanges = new PackedRangeList(1);
+    windowRanges.add(window);
+
+    PackedRangeList freeTimes = new PackedRangeList();
+    windowRanges.subtract(busyTimes, freeTimes);
+    freeTimes.removeShorterThan(duration);
+    return freeTimes;
   }
 
-  private boolean endsAfter(TimeRange rangeOne, TimeRange rangeTwo) {
-    return rangeOne.end() > rangeTwo.end();
+  /**
+   * Method for querying appropriate time slots based on the request length and attendees'
+   * schedules, inside the request's window. The relevant events are sorted by start time and
+   * merged in a single sweep, so the cost is O(n log n) in the number of events.
+   */
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    // checking for invalid meeting requests
+    if (invalidDuration(request)) {
+      return new ArrayList<>();
+    }
+
+    TimeRange window = request.getWindow();
+    PackedRangeList busyTimes = busyTimes(events, request.getAttendeeIds(), window);
+    return freeTimes(busyTimes, window, request.getDuration()).toTimeRanges();
   }
 
-  // Method for removing the overlap between two events
-  private Collection<TimeRange> removeOverlap(TimeRange conflictingEvent, 
-                                              TimeRange proposedEvent, long neededDuration) {
-    
-    Collection<TimeRange> alteredEvents = new ArrayList<>();
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but reads the attendees' schedules from
+   * {@code schedule}, e.g. an {@link EventIndex} or a {@link CalendarStore}. For
+   * {@link TimeRange#WHOLE_DAY} the attendees' minute bitmaps are OR-ed together and scanned for
+   * free runs, so with an index the cost depends on the number of attendees only. Any other
+   * window, e.g. a two week horizon, only reads the busy times that overlap it. Every attendee is
+   * read from the same {@link Schedule#pin() pinned} version of the schedule.
+   */
+  public Collection<TimeRange> query(Schedule schedule, MeetingRequest request) {
+    // checking for invalid meeting requests
+    if (invalidDuration(request)) {
+      return new ArrayList<>();
+    }
 
-    // event attendee is already registered for starts before or concurrently with the
-    // event to be chopped
-    if (startsAfter(conflictingEvent, proposedEvent)) {  
-      TimeRange alteredEvent = cutEventFromEnd(conflictingEvent, proposedEvent, neededDuration);
+    schedule = schedule.pin();
+    TimeRange window = request.getWindow();
+    if (window.equals(TimeRange.WHOLE_DAY)) {
+      return schedule.getBusyMinutes(request.getAttendeeIds()).freeRanges(request.getDuration());
+    }
 
-      if (alteredEvent != null) {
-        alteredEvents.add(alteredEvent);    
-      }   
+    PackedRangeList busyTimes = busyTimes(schedule, request.getAttendeeIds(), window);
+    return freeTimes(busyTimes, window, request.getDuration()).toTimeRanges();
+  }
 
-      // case where the prposed event also ends after the original event, meaning a second event
-      // needs to be created, one that starts after the conflicting event
-      if (endsAfter(proposedEvent, conflictingEvent)) {
-        TimeRange secondEvent = cutEventFromStart(conflictingEvent, proposedEvent, neededDuration);
+  /**
+   * Same as {@link #query(Schedule, MeetingRequest)}, but with the busy times of all the required
+   * attendees gathered already, e.g. from the shards of a
+   * {@link com.google.sps.shard.ShardCoordinator}. The busy times can be in any order and overlap,
+   * and are merged in place.
+   */
+  public Collection<TimeRange> query(PackedRangeList busyTimes, MeetingRequest request) {
+    // checking for invalid meeting requests
+    if (invalidDuration(request)) {
+      return new ArrayList<>();
+    }
+
+    countRead(busyTimes.size());
+    return freeTimes(busyTimes, request.getWindow(), request.getDuration()).toTimeRanges();
+  }
+
+  /**
+   * Method for listing the time slots of {@link #query(Schedule, MeetingRequest)} one at a time, in
+   * the given order. In {@link SlotOrder#EARLIEST} order the window is scanned a day at a time as
+   * the iterator advances, so a caller that only wants the first few slots of a long window never
+   * looks at the rest of it. Any other order has to see every slot before it can rank them, so
+   * they are all found up front and only turned into {@code TimeRange}s as they are listed.
+   */
+  public Iterator<TimeRange> slots(Schedule schedule, MeetingRequest request, SlotOrder order) {
+    // checking for invalid meeting requests
+    if (invalidDuration(request)) {
+      return Collections.emptyIterator();
+    }
 
-        if (secondEvent != null) {
-          alteredEvents.add(secondEvent);  
+    if (order.isChronological()) {
+      return new EarliestSlots(schedule, request);
+    }
+
+    TimeRange window = request.getWindow();
+    PackedRangeList busyTimes = busyTimes(schedule.pin(), request.getAttendeeIds(), window);
+    return order.rank(freeTimes(busyTimes, window, request.getDuration()), request.getDuration());
+  }
+
+  // method for grouping the busy times of every optional attendee by attendee, filtering the
+  // events only once. The lists are in the same order as the attendee ids, and merged.
+  private List<PackedRangeList> busyTimesByAttendee(Collection<Event> events,
+      AttendeeSet attendees, TimeRange window) {
+    List<PackedRangeList> busyTimes = new ArrayList<>(attendees.size());
+    for (int i = 0; i < attendees.size(); i++) {
+      busyTimes.add(new PackedRangeList());
+    }
+    PackedRangeList occurrences = new PackedRangeList();
+    for (Event event: events) {
+      occurrences.clear();
+      event.addOccurrences(window, occurrences);
+      if (occurrences.isEmpty()) {
+        continue;
+      }
+      AttendeeSet eventAttendees = event.getAttendeeIds();
+      for (int i = 0; i < eventAttendees.size(); i++) {
+        int index = attendees.indexOf(eventAttendees.id(i));
+        if (index >= 0) {
+          busyTimes.get(index).addAll(occurrences);
         }
       }
-    // event attendee is already registered for starts after the event to be chopped
-    } else { 
-      TimeRange alteredEvent = cutEventFromStart(conflictingEvent, proposedEvent, neededDuration); 
-      
-      if (alteredEvent != null) {
-        alteredEvents.add(alteredEvent);
-      }      
-    } 
+    }
+    countRead(events.size());
+    for (PackedRangeList attendeeBusyTimes: busyTimes) {
+      merge(attendeeBusyTimes);
+    }
+    return busyTimes;
+  }
 
-    return alteredEvents;
+  // method for turning an attendee's busy times into the meeting start times they block. A
+  // meeting starting at t conflicts with [start, end) exactly when t is in [start - duration + 1,
+  // end), so each merged busy range is widened by the duration and merged again. The blocked
+  // start ranges are appended to blockedStarts/blockedEnds, returning the new size. The busy
+  // times must be merged.
+  private int addBlockedStarts(PackedRangeList busyTimes, int duration, int[] blockedStarts,
+      int[] blockedEnds, int size) {
+    int first = size;
+    for (int i = 0; i < busyTimes.size(); i++) {
+      long busyTime = busyTimes.get(i);
+      int start = PackedRange.start(busyTime) - duration + 1;
+      int end = PackedRange.end(busyTime);
+      if (size > first && start <= blockedEnds[size - 1]) {
+        blockedEnds[size - 1] = Math.max(blockedEnds[size - 1], end);
+      } else {
+        blockedStarts[size] = start;
+        blockedEnds[size] = end;
+        size++;
+      }
+    }
+    return size;
   }
 
+  // method for appending [start, end) to the runs, merging it into the last run if they touch and
+  // block the same number of optional attendees
+  private void addRun(List<StartRun> runs, int start, int end, int unavailable) {
+    if (start >= end) {
+      return;
+    }
+    StartRun last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+    if (last != null && last.end == start && last.unavailable == unavailable) {
+      last.end = end;
+    } else {
+      runs.add(new StartRun(start, end, unavailable));
+    }
+  }
 
-  // method for updating the proposed times by cutting out conflicts
-  private Collection<TimeRange> updateProposedTimes(Collection<TimeRange> proposedTimesCopy, 
-      TimeRange eventTimeRange, TimeRange proposedTimeRange, long duration) {
-    // removing overlapping event and reconfiguring it to remove overlap
-    proposedTimesCopy.remove(proposedTimeRange);
-    Collection<TimeRange> updatedTimeRanges = 
-      removeOverlap(eventTimeRange, proposedTimeRange, duration);
+  // method for counting, for every valid meeting start inside the free times, how many optional
+  // attendees would miss the meeting. The blocked start ranges are swept in order, so this is
+  // linear after sorting.
+  private List<StartRun> countUnavailable(PackedRangeList freeTimes, int[] blockedStarts,
+      int[] blockedEnds, int size, int duration) {
+    Arrays.sort(blockedStarts, 0, size);
+    Arrays.sort(blockedEnds, 0, size);
+
+    List<StartRun> runs = new ArrayList<>();
+    int startIndex = 0;
+    int endIndex = 0;
+    int unavailable = 0;
+    for (int i = 0; i < freeTimes.size(); i++) {
+      // the meeting can start anywhere in [position, lastStart)
+      int position = PackedRange.start(freeTimes.get(i));
+      int lastStart = PackedRange.end(freeTimes.get(i)) - duration + 1;
+      while (position < lastStart) {
+        // apply every change in the count at or before the current position
+        while (endIndex < size && blockedEnds[endIndex] <= position) {
+          endIndex++;
+          unavailable--;
+        }
+        while (startIndex < size && blockedStarts[startIndex] <= position) {
+          startIndex++;
+          unavailable++;
+        }
+        int nextChange = lastStart;
+        if (startIndex < size) {
+          nextChange = Math.min(nextChange, blockedStarts[startIndex]);
+        }
+        if (endIndex < size) {
+          nextChange = Math.min(nextChange, blockedEnds[endIndex]);
+        }
+        addRun(runs, position, nextChange, unavailable);
+        position = nextChange;
+      }
+    }
+    return runs;
+  }
+
+  // method for finding the start times that reach the most optional attendees, given the busy
+  // times of the mandatory attendees and the merged busy times of each optional attendee
+  private List<TimeRange> bestTimes(PackedRangeList mandatoryBusyTimes,
+      Collection<PackedRangeList> optionalBusyTimes, MeetingRequest request) {
+    int duration = (int) request.getDuration();
+    PackedRangeList mandatoryFreeTimes =
+        freeTimes(mandatoryBusyTimes, request.getWindow(), duration);
+    if (mandatoryFreeTimes.isEmpty()) {
+      return new ArrayList<>();
+    }
 
-    // for loop because the event might get split in half and become two events        
-    for (TimeRange timeRange: updatedTimeRanges) { 
-      proposedTimesCopy.add(timeRange);
+    int capacity = 0;
+    for (PackedRangeList busyTimes: optionalBusyTimes) {
+      capacity += busyTimes.size();
     }
-    return proposedTimesCopy;
+    int[] blockedStarts = new int[capacity];
+    int[] blockedEnds = new int[capacity];
+    int size = 0;
+    for (PackedRangeList busyTimes: optionalBusyTimes) {
+      size = addBlockedStarts(busyTimes, duration, blockedStarts, blockedEnds, size);
+    }
+
+    List<StartRun> runs =
+        countUnavailable(mandatoryFreeTimes, blockedStarts, blockedEnds, size, duration);
+    int optionalCount = request.getOptionalAttendees().size();
+    int fewestUnavailable = optionalCount;
+    for (StartRun run: runs) {
+      fewestUnavailable = Math.min(fewestUnavailable, run.unavailable);
+    }
+
+    // nobody optional can make it, so only the mandatory attendees matter
+    if (fewestUnavailable == optionalCount) {
+      return request.getAttendees().isEmpty()
+          ? new ArrayList<>() : mandatoryFreeTimes.toTimeRanges();
+    }
+
+    List<TimeRange> bestTimes = new ArrayList<>();
+    for (StartRun run: runs) {
+      if (run.unavailable == fewestUnavailable) {
+        bestTimes.add(TimeRange.fromStartEnd(run.start, run.end - 1 + duration, false));
+      }
+    }
+    return bestTimes;
   }
 
-  // method for indicating whether all conflicts have been resolved yet
-  private boolean allConflictsResolved(Collection<Event> events, Event currEvent) {
-    // checks that the end of the list has been reached, meaning all conflicts have been resolved
-    return currEvent.equals(events.toArray()[events.size() - 1]);
+  /**
+   * Method for querying the time slots where every mandatory attendee is free and the greatest
+   * possible number of optional attendees can also attend. If no optional attendee can make any
+   * slot, this falls back to the slots for the mandatory attendees alone (or to no slots at all
+   * when there are no mandatory attendees).
+   *
+   * <p>Each returned range is a window in which the meeting may start anywhere and still reach the
+   * maximum number of optional attendees. Two windows can overlap if they are separated by start
+   * times that reach fewer optional attendees. The cost is O(n log n) in the number of events,
+   * independent of how many optional attendees are invited.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(Collection<Event> events,
+      MeetingRequest request) {
+    Collection<String> optionalAttendees = request.getOptionalAttendees();
+    if (optionalAttendees.isEmpty() || invalidDuration(request)) {
+      return query(events, request);
+    }
+
+    TimeRange window = request.getWindow();
+    return bestTimes(busyTimes(events, request.getAttendeeIds(), window),
+        busyTimesByAttendee(events, request.getOptionalAttendeeIds(), window), request);
   }
 
-  // method for indicating whether or not a proposed duration is invalid
-  private boolean invalidDuration(long duration) {
-    return duration <= MIN_DURATION || duration > MAX_DURATION;
+  /**
+   * Same as {@link #queryWithOptionalAttendees(Collection, MeetingRequest)}, but only looks at the
+   * busy times of the requested attendees.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(Schedule schedule,
+      MeetingRequest request) {
+    Collection<String> optionalAttendees = request.getOptionalAttendees();
+    if (optionalAttendees.isEmpty() || invalidDuration(request)) {
+      return query(schedule, request);
+    }
+
+    schedule = schedule.pin();
+    TimeRange window = request.getWindow();
+    AttendeeSet optionalAttendeeIds = request.getOptionalAttendeeIds();
+    List<PackedRangeList> optionalBusyTimes = new ArrayList<>(optionalAttendeeIds.size());
+    for (int i = 0; i < optionalAttendeeIds.size(); i++) {
+      PackedRangeList busyTimes = new PackedRangeList();
+      schedule.addBusyTimes(optionalAttendeeIds.id(i), window, busyTimes);
+      countRead(busyTimes.size());
+      merge(busyTimes);
+      optionalBusyTimes.add(busyTimes);
+    }
+    return bestTimes(busyTimes(schedule, request.getAttendeeIds(), window), optionalBusyTimes,
+        request);
   }
 
   /**
-   * Method for querying appropriate time slots based on the request length and attendees'
-   * schedules.
+   * Method for querying the slots where the fewest required attendees have a conflict, for when
+   * no slot suits everyone, e.g. for an all-hands. When some slot does suit everyone, these are the
+   * same ranges as {@link #query(Schedule, MeetingRequest)} returns. Each slot lists the people
+   * who can't make it.
+   *
+   * <p>Every range can hold the meeting anywhere inside it with the same conflicts, so two ranges
+   * can overlap where their conflicts differ. Only the starts where someone's conflicts change are
+   * visited, so the cost is O(r log r) in the number of busy ranges, however long the window is.
    */
-  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {    
+  public List<ConflictSlot> leastConflictSlots(Schedule schedule, MeetingRequest request) {
+    return conflictSlots(schedule, request, -1);
+  }
 
-    long duration = request.getDuration();
+  /**
+   * Same as {@link #leastConflictSlots(Schedule, MeetingRequest)}, but returns every slot that at
+   * least {@code quorum} of the required attendees can make, in order.
+   */
+  public List<ConflictSlot> quorumSlots(Schedule schedule, MeetingRequest request, int quorum) {
+    int attendeeCount = request.getAttendees().size();
+    if (quorum < 0 || quorum > attendeeCount) {
+      throw new IllegalArgumentException(
+          "quorum must be between 0 and the number of required attendees");
+    }
+    return conflictSlots(schedule, request, attendeeCount - quorum);
+  }
 
-    // checking for invalid meeting requests
-    if (invalidDuration(duration)) {
-      return new ArrayList<>();  
+  // method for sweeping every meeting start in the window, keeping the runs of starts with at most
+  // maxConflicts required attendees blocked, or the fewest when maxConflicts is negative. Starts
+  // are counted from the start of the window.
+  private List<ConflictSlot> conflictSlots(Schedule schedule, MeetingRequest request,
+      int maxConflicts) {
+    if (invalidDuration(request)) {
+      return new ArrayList<>();
     }
 
-    Collection<String> attendees = request.getAttendees();
+    schedule = schedule.pin();
+    TimeRange window = request.getWindow();
+    int duration = (int) request.getDuration();
+    int startCount = window.duration() - duration + 1;
+    AttendeeSet attendees = request.getAttendeeIds();
+
+    // the start times each attendee blocks, clamped to the window. A range of one attendee never
+    // touches the next one, so an attendee is never blocked twice at the same start.
+    int capacity = 16;
+    int[] blockedAttendees = new int[capacity];
+    int[] blockedStarts = new int[capacity];
+    int[] blockedEnds = new int[capacity];
+    int size = 0;
+    PackedRangeList busyTimes = new PackedRangeList();
+    for (int a = 0; a < attendees.size(); a++) {
+      busyTimes.clear();
+      schedule.addBusyTimes(attendees.id(a), window, busyTimes);
+      countRead(busyTimes.size());
+      merge(busyTimes);
+      if (size + busyTimes.size() > capacity) {
+        capacity = Math.max(2 * capacity, size + busyTimes.size());
+        blockedAttendees = Arrays.copyOf(blockedAttendees, capacity);
+        blockedStarts = Arrays.copyOf(blockedStarts, capacity);
+        blockedEnds = Arrays.copyOf(blockedEnds, capacity);
+      }
+      int first = size;
+      size = addBlockedStarts(busyTimes, duration, blockedStarts, blockedEnds, size);
+      for (int i = first; i < size; i++) {
+        blockedAttendees[i] = a;
+        blockedStarts[i] = Math.max(blockedStarts[i] - window.start(), 0);
+        blockedEnds[i] = Math.min(blockedEnds[i] - window.start(), startCount);
+      }
+    }
 
-    // setting the initial proposed times to be the entire day
-    //  this implementation is built upon eliminating conflicts as they come up
-    TimeRange allDay = TimeRange.fromStartDuration(0, DAY_LENGTH);
-    Collection<TimeRange> proposedTimes = new ArrayList<>(Arrays.asList(allDay));
-    Collection<TimeRange> proposedTimesCopy = new ArrayList<>();
+    // the boundaries of the ranges, sorted by start with the ends before the beginnings at the
+    // same start, so that the sweeps below only visit starts where someone's state changes
+    long[] boundaries = new long[2 * size];
+    int boundaryCount = 0;
+    for (int i = 0; i < size; i++) {
+      if (blockedStarts[i] < blockedEnds[i]) {
+        boundaries[boundaryCount++] = (long) blockedEnds[i] << 32 | i;
+        boundaries[boundaryCount++] = (long) blockedStarts[i] << 32 | 1L << 31 | i;
+      }
+    }
+    Arrays.sort(boundaries, 0, boundaryCount);
+
+    if (maxConflicts < 0) {
+      // the fewest attendees blocked at any start
+      maxConflicts = Integer.MAX_VALUE;
+      int blocked = 0;
+      for (int t = 0, b = 0; t < startCount; ) {
+        for (; b < boundaryCount && (int) (boundaries[b] >>> 32) == t; b++) {
+          blocked += (boundaries[b] & 1L << 31) != 0 ? 1 : -1;
+        }
+        maxConflicts = Math.min(maxConflicts, blocked);
+        t = b < boundaryCount ? (int) (boundaries[b] >>> 32) : startCount;
+      }
+    }
 
-    // looping through existing events
-    for (Event event: events) {
-      // checking for attendee overlap   
-      if (attendeesOverlap(attendees, event.getAttendees())) {
-
-        TimeRange eventTimeRange = event.getWhen();
-        for (TimeRange proposedTimeRange: proposedTimes) {
-          // checking for time overlap
-          if (eventTimeRange.overlaps(proposedTimeRange)) {
-            proposedTimes = 
-              updateProposedTimes(proposedTimesCopy, eventTimeRange, proposedTimeRange, duration);
-
-            if (allConflictsResolved(events, event)) {
-              return proposedTimesCopy;   
-            }
-          }
+    // sweep the starts where something changes, keeping the blocked attendees in a set with O(1)
+    // add and remove
+    int[] blocked = new int[attendees.size()];
+    int[] positions = new int[attendees.size()];
+    int blockedCount = 0;
+    int attendeeCount = request.getAttendees().size();
+    List<ConflictSlot> slots = new ArrayList<>();
+    int runStart = 0;
+    int b = 0;
+    while (runStart < startCount) {
+      // apply every boundary at runStart, then find where the next one is
+      while (b < boundaryCount && (int) (boundaries[b] >>> 32) == runStart) {
+        int range = (int) boundaries[b] & Integer.MAX_VALUE;
+        int attendee = blockedAttendees[range];
+        if ((boundaries[b] & 1L << 31) != 0) {
+          positions[attendee] = blockedCount;
+          blocked[blockedCount++] = attendee;
+        } else {
+          int last = blocked[--blockedCount];
+          blocked[positions[attendee]] = last;
+          positions[last] = positions[attendee];
+        }
+        b++;
+      }
+      int runEnd = b < boundaryCount ? (int) (boundaries[b] >>> 32) : startCount;
+
+      if (blockedCount <= maxConflicts) {
+        List<String> conflicts = new ArrayList<>(blockedCount);
+        for (int i = 0; i < blockedCount; i++) {
+          conflicts.add(AttendeeDictionary.name(attendees.id(blocked[i])));
         }
-        // updating the proposed so that the time conflicts that have been detected are removed
-        proposedTimes = proposedTimesCopy;
+        Collections.sort(conflicts);
+        slots.add(new ConflictSlot(TimeRange.fromStartEnd(window.start() + runStart,
+            window.start() + runEnd - 1 + duration, false), attendeeCount - blockedCount,
+            conflicts));
       }
+      runStart = runEnd;
     }
-    return proposedTimes;
+    return slots;
   }
 }
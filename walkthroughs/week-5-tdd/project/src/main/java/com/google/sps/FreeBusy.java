@@ -0,0 +1,154 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * When one attendee is busy inside a window, in forms that are cheap to send to clients. The busy
+ * ranges are read from a {@link Schedule} as packed ranges, so no {@link Event}s are created, and
+ * they are merged and cut to the window.
+ *
+ * <p>{@link #toRunLengths()} alternates the lengths of free and busy runs, starting with a free
+ * one, and {@link #toBitmap()} has one bit per minute. A client can intersect the availability of
+ * many people with either, without knowing anything about their events.
+ */
+public final class FreeBusy {
+  private final TimeRange window;
+
+  // Merged, and inside the window.
+  private final PackedRangeList busyTimes;
+
+  private FreeBusy(TimeRange window, PackedRangeList busyTimes) {
+    this.window = window;
+    this.busyTimes = busyTimes;
+  }
+
+  /**
+   * Reads when {@code attendee} is busy in {@code window} from {@code schedule}. Someone who was
+   * never seen is free the whole time.
+   */
+  public static FreeBusy of(Schedule schedule, String attendee, TimeRange window) {
+    PackedRangeList busyTimes = new PackedRangeList();
+    int id = AttendeeDictionary.lookup(attendee);
+    if (id != AttendeeDictionary.UNKNOWN) {
+      schedule.addBusyTimes(id, window, busyTimes);
+      busyTimes.merge();
+    }
+
+    PackedRangeList windowRanges = new PackedRangeList(1);
+    windowRanges.add(window);
+    PackedRangeList clipped = new PackedRangeList(busyTimes.size());
+    busyTimes.intersect(windowRanges, clipped);
+    return new FreeBusy(window, clipped);
+  }
+
+  /**
+   * Reads the form {@link #toRunLengths()} returns back, for {@code window}.
+   */
+  public static FreeBusy fromRunLengths(TimeRange window, int[] runLengths) {
+    PackedRangeList busyTimes = new PackedRangeList(runLengths.length / 2);
+    long minute = window.start();
+    for (int i = 0; i < runLengths.length; i++) {
+      // Only the first free run can be empty.
+      if (runLengths[i] < 0 || (runLengths[i] == 0 && i > 0)) {
+        throw new IllegalArgumentException("Run lengths must be positive.");
+      }
+      long end = minute + runLengths[i];
+      if (end > window.end()) {
+        throw new IllegalArgumentException("Runs go past the end of the window.");
+      }
+      if (i % 2 == 1) {
+        busyTimes.add((int) minute, (int) end);
+      }
+      minute = end;
+    }
+    return new FreeBusy(window, busyTimes);
+  }
+
+  public TimeRange getWindow() {
+    return window;
+  }
+
+  /**
+   * Returns the busy ranges in order, none of them overlapping or touching.
+   */
+  public List<TimeRange> getBusyTimes() {
+    return busyTimes.toTimeRanges();
+  }
+
+  /**
+   * Returns the lengths in minutes of the free and busy runs of the window, alternating and
+   * starting with a free run, which is 0 when the window starts busy. The free time after the
+   * last busy run is left out, so someone who is free all along has no runs at all.
+   */
+  public int[] toRunLengths() {
+    int[] runLengths = new int[2 * busyTimes.size()];
+    int minute = window.start();
+    for (int i = 0; i < busyTimes.size(); i++) {
+      long range = busyTimes.get(i);
+      runLengths[2 * i] = PackedRange.start(range) - minute;
+      runLengths[2 * i + 1] = PackedRange.duration(range);
+      minute = PackedRange.end(range);
+    }
+    return runLengths;
+  }
+
+  /**
+   * Returns one bit for every minute of the window, set when the attendee is busy. Minute
+   * {@code i} of the window is bit {@code i % 8} of byte {@code i / 8}, counting from the least
+   * significant bit.
+   */
+  public byte[] toBitmap() {
+    byte[] bitmap = new byte[(window.duration() + 7) / 8];
+    for (int i = 0; i < busyTimes.size(); i++) {
+      long range = busyTimes.get(i);
+      int from = PackedRange.start(range) - window.start();
+      int to = PackedRange.end(range) - window.start();
+      // Set the bits up to the first whole byte, then whole bytes, then the bits that are left.
+      while (from < to && from % 8 != 0) {
+        bitmap[from / 8] |= 1 << (from % 8);
+        from++;
+      }
+      Arrays.fill(bitmap, from / 8, Math.max(from / 8, to / 8), (byte) 0xFF);
+      from = Math.max(from, to / 8 * 8);
+      while (from < to) {
+        bitmap[from / 8] |= 1 << (from % 8);
+        from++;
+      }
+    }
+    return bitmap;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof FreeBusy)) {
+      return false;
+    }
+    FreeBusy that = (FreeBusy) other;
+    return window.equals(that.window) && getBusyTimes().equals(that.getBusyTimes());
+  }
+
+  @Override
+  public int hashCode() {
+    return window.hashCode() ^ getBusyTimes().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "FreeBusy " + window + ": " + getBusyTimes();
+  }
+}
@@ -0,0 +1,153 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only set of disjoint time ranges, sorted by start time. The ranges are kept in two parallel
+ * arrays, so finding the ranges that overlap a window is a binary search followed by a scan of
+ * the matches, however long the horizon is.
+ */
+public final class IntervalSet {
+  public static final IntervalSet EMPTY = new IntervalSet(new int[0], new int[0]);
+
+  private final int[] starts;
+  private final int[] ends;
+
+  private IntervalSet(int[] starts, int[] ends) {
+    this.starts = starts;
+    this.ends = ends;
+  }
+
+  /**
+   * Creates a set covering every minute of {@code ranges}. Overlapping and back-to-back ranges
+   * are merged, and empty ranges are dropped.
+   */
+  public static IntervalSet of(Collection<TimeRange> ranges) {
+    List<TimeRange> sorted = new ArrayList<>(ranges);
+    Collections.sort(sorted, TimeRange.ORDER_BY_START);
+
+    int[] starts = new int[sorted.size()];
+    int[] ends = new int[sorted.size()];
+    int size = 0;
+    for (TimeRange range : sorted) {
+      if (range.duration() <= 0) {
+        continue;
+      }
+
+      if (size > 0 && range.start() <= ends[size - 1]) {
+        ends[size - 1] = Math.max(ends[size - 1], range.end());
+      } else {
+        starts[size] = range.start();
+        ends[size] = range.end();
+        size++;
+      }
+    }
+    if (size == 0) {
+      return EMPTY;
+    }
+    return new IntervalSet(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size));
+  }
+
+  /**
+   * Returns the number of disjoint ranges in this set.
+   */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * Returns every range in this set, in order.
+   */
+  public List<TimeRange> asList() {
+    return new RangeList(0, starts.length);
+  }
+
+  /**
+   * Returns the ranges that overlap {@code window}, in order. Ranges that stick out of the window
+   * are returned whole.
+   */
+  public List<TimeRange> overlapping(TimeRange window) {
+    int from = firstOverlapping(window);
+    return new RangeList(from, Math.max(from, pastOverlapping(window)));
+  }
+
+  /**
+   * Appends the ranges that overlap {@code window} to {@code ranges}, packed and in order.
+   */
+  public void addOverlapping(TimeRange window, PackedRangeList ranges) {
+    int to = pastOverlapping(window);
+    for (int i = firstOverlapping(window); i < to; i++) {
+      ranges.add(starts[i], ends[i]);
+    }
+  }
+
+  // Returns the index of the first range that ends after the window starts. Ends are sorted
+  // because the ranges are disjoint.
+  private int firstOverlapping(TimeRange window) {
+    return firstIndexAbove(ends, window.start());
+  }
+
+  // Returns the index of the first range that starts at or after the window ends.
+  private int pastOverlapping(TimeRange window) {
+    return firstIndexAbove(starts, window.end() - 1);
+  }
+
+  // Returns the index of the first value greater than key, or values.length if there is none.
+  private static int firstIndexAbove(int[] values, int key) {
+    int low = 0;
+    int high = values.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (values[middle] <= key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** A read-only view of the ranges from index {@code from} up to {@code to}. */
+  private final class RangeList extends AbstractList<TimeRange> {
+    private final int from;
+    private final int to;
+
+    private RangeList(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public TimeRange get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+      }
+      int i = from + index;
+      return TimeRange.fromStartEnd(starts[i], ends[i], false);
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+  }
+}
@@ -0,0 +1,195 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Immutable set of busy ranges, each tagged with the id of its event, as an AVL tree ordered by
+ * start time and then id. Every node knows the latest end in its subtree, so a search for the
+ * ranges that overlap a window skips every subtree that ends before the window starts. Adding or
+ * removing a range copies only the O(log n) nodes on its path, and shares the rest with the tree
+ * it came from.
+ */
+final class IntervalTree {
+  static final IntervalTree EMPTY = new IntervalTree(null);
+
+  private final Node root;
+
+  private static final class Node {
+    // Start time in the high 32 bits and event id in the low 32 bits.
+    private final long key;
+    private final int duration;
+    private final Node left;
+    private final Node right;
+    private final int height;
+    // The latest end of any range in this subtree.
+    private final int maxEnd;
+
+    Node(long key, int duration, Node left, Node right) {
+      this.key = key;
+      this.duration = duration;
+      this.left = left;
+      this.right = right;
+      this.height = 1 + Math.max(height(left), height(right));
+      int end = start(key) + duration;
+      this.maxEnd = Math.max(end, Math.max(maxEnd(left), maxEnd(right)));
+    }
+
+    Node withChildren(Node left, Node right) {
+      return new Node(key, duration, left, right);
+    }
+  }
+
+  private IntervalTree(Node root) {
+    this.root = root;
+  }
+
+  boolean isEmpty() {
+    return root == null;
+  }
+
+  /**
+   * Returns a tree that also holds {@code range} for the event with {@code eventId}. An event can
+   * only have one range in a tree.
+   */
+  IntervalTree with(TimeRange range, int eventId) {
+    return new IntervalTree(insert(root, key(range, eventId), range.duration()));
+  }
+
+  /**
+   * Returns a tree without the range of the event with {@code eventId}, which started at
+   * {@code range}.
+   */
+  IntervalTree without(TimeRange range, int eventId) {
+    Node newRoot = remove(root, key(range, eventId));
+    return newRoot == root ? this : new IntervalTree(newRoot);
+  }
+
+  /**
+   * Appends the non-empty ranges that overlap {@code window} to {@code ranges}, in start order.
+   */
+  void addOverlapping(TimeRange window, PackedRangeList ranges) {
+    addOverlapping(root, window.start(), window.end(), ranges);
+  }
+
+  private static void addOverlapping(Node node, int windowStart, int windowEnd,
+      PackedRangeList ranges) {
+    // Nothing in this subtree ends inside the window.
+    if (node == null || node.maxEnd <= windowStart) {
+      return;
+    }
+    addOverlapping(node.left, windowStart, windowEnd, ranges);
+    int start = start(node.key);
+    if (start >= windowEnd) {
+      // Everything to the right starts even later.
+      return;
+    }
+    if (start + node.duration > windowStart && node.duration > 0) {
+      ranges.add(PackedRange.pack(start, node.duration));
+    }
+    addOverlapping(node.right, windowStart, windowEnd, ranges);
+  }
+
+  private static Node insert(Node node, long key, int duration) {
+    if (node == null) {
+      return new Node(key, duration, null, null);
+    }
+    if (key < node.key) {
+      return balance(node.withChildren(insert(node.left, key, duration), node.right));
+    }
+    if (key > node.key) {
+      return balance(node.withChildren(node.left, insert(node.right, key, duration)));
+    }
+    return new Node(key, duration, node.left, node.right);
+  }
+
+  private static Node remove(Node node, long key) {
+    if (node == null) {
+      return null;
+    }
+    if (key < node.key) {
+      Node left = remove(node.left, key);
+      return left == node.left ? node : balance(node.withChildren(left, node.right));
+    }
+    if (key > node.key) {
+      Node right = remove(node.right, key);
+      return right == node.right ? node : balance(node.withChildren(node.left, right));
+    }
+    if (node.left == null) {
+      return node.right;
+    }
+    if (node.right == null) {
+      return node.left;
+    }
+    // Put the first range of the right subtree in place of this one.
+    Node first = node.right;
+    while (first.left != null) {
+      first = first.left;
+    }
+    return balance(new Node(first.key, first.duration, node.left, removeFirst(node.right)));
+  }
+
+  private static Node removeFirst(Node node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node.withChildren(removeFirst(node.left), node.right));
+  }
+
+  // Restores the AVL property at the node, whose subtrees differ in height by at most 2.
+  private static Node balance(Node node) {
+    int difference = height(node.left) - height(node.right);
+    if (difference > 1) {
+      Node left = node.left;
+      if (height(left.left) < height(left.right)) {
+        left = rotateLeft(left);
+      }
+      return rotateRight(node.withChildren(left, node.right));
+    }
+    if (difference < -1) {
+      Node right = node.right;
+      if (height(right.right) < height(right.left)) {
+        right = rotateRight(right);
+      }
+      return rotateLeft(node.withChildren(node.left, right));
+    }
+    return node;
+  }
+
+  private static Node rotateRight(Node node) {
+    Node left = node.left;
+    return left.withChildren(left.left, node.withChildren(left.right, node.right));
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node right = node.right;
+    return right.withChildren(node.withChildren(node.left, right.left), right.right);
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static int maxEnd(Node node) {
+    return node == null ? Integer.MIN_VALUE : node.maxEnd;
+  }
+
+  private static int start(long key) {
+    return (int) (key >> 32);
+  }
+
+  private static long key(TimeRange range, int eventId) {
+    return ((long) range.start() << 32) | (eventId & 0xFFFFFFFFL);
+  }
+}
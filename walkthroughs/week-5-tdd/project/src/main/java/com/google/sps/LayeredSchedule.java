@@ -0,0 +1,71 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Two schedules read as one: someone is busy whenever they are busy in either. Used to put the
+ * changes made since startup on top of a read-only {@link CalendarSnapshot}.
+ */
+public final class LayeredSchedule implements Schedule {
+  private final Schedule base;
+  private final Schedule changes;
+
+  public LayeredSchedule(Schedule base, Schedule changes) {
+    if (base == null || changes == null) {
+      throw new IllegalArgumentException("schedules cannot be null");
+    }
+
+    this.base = base;
+    this.changes = changes;
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimes(int attendeeId, TimeRange window) {
+    List<TimeRange> changed = changes.getBusyTimes(attendeeId, window);
+    if (changed.isEmpty()) {
+      return base.getBusyTimes(attendeeId, window);
+    }
+
+    List<TimeRange> busyTimes = new ArrayList<>(base.getBusyTimes(attendeeId, window));
+    busyTimes.addAll(changed);
+    Collections.sort(busyTimes, TimeRange.ORDER_BY_START);
+    return busyTimes;
+  }
+
+  @Override
+  public void addBusyTimes(int attendeeId, TimeRange window, PackedRangeList busyTimes) {
+    base.addBusyTimes(attendeeId, window, busyTimes);
+    changes.addBusyTimes(attendeeId, window, busyTimes);
+  }
+
+  @Override
+  public Schedule pin() {
+    Schedule pinnedBase = base.pin();
+    Schedule pinnedChanges = changes.pin();
+    return pinnedBase == base && pinnedChanges == changes
+        ? this : new LayeredSchedule(pinnedBase, pinnedChanges);
+  }
+
+  @Override
+  public MinuteBitmap getBusyMinutes(AttendeeSet attendees) {
+    MinuteBitmap busy = base.getBusyMinutes(attendees);
+    busy.or(changes.getBusyMinutes(attendees));
+    return busy;
+  }
+}
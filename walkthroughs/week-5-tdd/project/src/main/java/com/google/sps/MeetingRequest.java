@@ -30,8 +30,25 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // The span of time the meeting has to fit in. Null when the request was read from JSON without
+  // one, which means the whole day.
+  private final TimeRange window;
+
   public MeetingRequest(Collection<String> attendees, long duration) {
+    this(attendees, duration, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Creates a request for a meeting that has to fit inside {@code window}. The window can span
+   * many days, e.g. {@code TimeRange.fromDays(firstDay, 14)} to search two weeks at once.
+   */
+  public MeetingRequest(Collection<String> attendees, long duration, TimeRange window) {
+    if (window == null) {
+      throw new IllegalArgumentException("window cannot be null");
+    }
+
     this.duration = duration;
+    this.window = window;
     this.attendees.addAll(attendees);
   }
 
@@ -39,14 +56,31 @@ public final class MeetingRequest {
    * Returns a read-only copy of the people who are required to attend this meeting.
    */
   public Collection<String> getAttendees() {
-    return Collections.unmodifiableCollection(attendees);
+    return readOnly(attendees);
   }
 
   /**
    * Returns a read-only copy of the people who are optional to attend this meeting.
    */
   public Collection<String> getOptionalAttendees() {
-    return Collections.unmodifiableCollection(optional_attendees);
+    return readOnly(optional_attendees);
+  }
+
+  /**
+   * Returns the ids of the required attendees who are known to the {@link AttendeeDictionary}.
+   * People who have never been interned cannot be busy, so leaving them out does not change the
+   * result of a query. This is computed on every call because the dictionary can grow between
+   * calls.
+   */
+  public AttendeeSet getAttendeeIds() {
+    return AttendeeSet.lookup(getAttendees());
+  }
+
+  /**
+   * Returns the ids of the optional attendees who are known to the {@link AttendeeDictionary}.
+   */
+  public AttendeeSet getOptionalAttendeeIds() {
+    return AttendeeSet.lookup(getOptionalAttendees());
   }
 
   /**
@@ -64,4 +98,18 @@ public final class MeetingRequest {
   public long getDuration() {
     return duration;
   }
+
+  /**
+   * Returns the span of time the meeting has to fit in.
+   */
+  public TimeRange getWindow() {
+    return window == null ? TimeRange.WHOLE_DAY : window;
+  }
+
+  // Requests read from JSON skip the field initializers, so a collection that was left out of the
+  // JSON is null rather than empty.
+  private static Collection<String> readOnly(Collection<String> people) {
+    return people == null
+        ? Collections.<String>emptySet() : Collections.unmodifiableCollection(people);
+  }
 }
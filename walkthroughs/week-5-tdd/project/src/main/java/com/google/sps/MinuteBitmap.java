@@ -0,0 +1,158 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One bit for every minute of {@link TimeRange#WHOLE_DAY}, where a set bit means busy. The whole
+ * day fits in 23 {@code long}s, so combining schedules and searching for free time costs the same
+ * no matter how many events went into the bitmap.
+ */
+public final class MinuteBitmap {
+  public static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  private static final int WORDS = (MINUTES + Long.SIZE - 1) / Long.SIZE;
+
+  private final long[] words;
+
+  /**
+   * Creates a bitmap where every minute is free.
+   */
+  public MinuteBitmap() {
+    this.words = new long[WORDS];
+  }
+
+  private MinuteBitmap(long[] words) {
+    this.words = words;
+  }
+
+  /**
+   * Returns a copy of this bitmap that can be changed independently.
+   */
+  public MinuteBitmap copy() {
+    return new MinuteBitmap(words.clone());
+  }
+
+  /**
+   * Marks every minute of {@code range} as busy. The parts of the range outside of the day are
+   * ignored.
+   */
+  public void add(TimeRange range) {
+    int start = Math.max(range.start(), 0);
+    int end = Math.min(range.end(), MINUTES);
+    if (start >= end) {
+      return;
+    }
+
+    int startWord = start >>> 6;
+    int lastWord = (end - 1) >>> 6;
+    // Shifts only use the low 6 bits, so these are the masks for the bits inside each word.
+    long startMask = -1L << start;
+    long endMask = -1L >>> -end;
+    if (startWord == lastWord) {
+      words[startWord] |= startMask & endMask;
+      return;
+    }
+
+    words[startWord] |= startMask;
+    for (int i = startWord + 1; i < lastWord; i++) {
+      words[i] = -1L;
+    }
+    words[lastWord] |= endMask;
+  }
+
+  /**
+   * Marks every minute that is busy in {@code other} as busy in this bitmap too.
+   */
+  public void or(MinuteBitmap other) {
+    for (int i = 0; i < WORDS; i++) {
+      words[i] |= other.words[i];
+    }
+  }
+
+  /**
+   * Checks if {@code minute} is busy. Minutes outside of the day are never busy.
+   */
+  public boolean isBusy(int minute) {
+    if (minute < 0 || minute >= MINUTES) {
+      return false;
+    }
+    return (words[minute >>> 6] & (1L << minute)) != 0;
+  }
+
+  /**
+   * Returns the free ranges of the day that are at least {@code minDuration} minutes long, in
+   * order.
+   */
+  public List<TimeRange> freeRanges(long minDuration) {
+    List<TimeRange> freeRanges = new ArrayList<>();
+    int start = nextFree(0);
+    while (start < MINUTES) {
+      int end = nextBusy(start);
+      if (end - start >= minDuration) {
+        freeRanges.add(TimeRange.fromStartEnd(start, end, false));
+      }
+      start = nextFree(end);
+    }
+    return freeRanges;
+  }
+
+  // Returns the first busy minute at or after from, or MINUTES if there is none.
+  private int nextBusy(int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+
+    int i = from >>> 6;
+    long word = words[i] & (-1L << from);
+    while (word == 0) {
+      if (++i == WORDS) {
+        return MINUTES;
+      }
+      word = words[i];
+    }
+    return Math.min(i * Long.SIZE + Long.numberOfTrailingZeros(word), MINUTES);
+  }
+
+  // Returns the first free minute at or after from, or MINUTES if there is none.
+  private int nextFree(int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+
+    int i = from >>> 6;
+    long word = ~words[i] & (-1L << from);
+    while (word == 0) {
+      if (++i == WORDS) {
+        return MINUTES;
+      }
+      word = ~words[i];
+    }
+    return Math.min(i * Long.SIZE + Long.numberOfTrailingZeros(word), MINUTES);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof MinuteBitmap && Arrays.equals(words, ((MinuteBitmap) other).words);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(words);
+  }
+}
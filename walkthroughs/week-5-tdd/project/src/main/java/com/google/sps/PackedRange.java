@@ -0,0 +1,71 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Encodes a time range as a single {@code long}, with the start in the high 32 bits and the
+ * duration in the low 32 bits. Packed ranges need no objects, so the query can work on arrays of
+ * them without creating garbage. Comparing packed ranges as longs orders them by start time,
+ * then by duration.
+ */
+public final class PackedRange {
+  private PackedRange() {
+    // Disallow instances.
+  }
+
+  /**
+   * Packs the range starting at {@code start} that lasts {@code duration} minutes. The duration
+   * must not be negative.
+   */
+  public static long pack(int start, int duration) {
+    return ((long) start << 32) | (duration & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Packs the range [start, end).
+   */
+  public static long fromStartEnd(int start, int end) {
+    return pack(start, end - start);
+  }
+
+  /**
+   * Packs {@code range}.
+   */
+  public static long of(TimeRange range) {
+    return pack(range.start(), range.duration());
+  }
+
+  public static int start(long range) {
+    return (int) (range >> 32);
+  }
+
+  public static int duration(long range) {
+    return (int) range;
+  }
+
+  /**
+   * Returns the exclusive end of the range.
+   */
+  public static int end(long range) {
+    return start(range) + duration(range);
+  }
+
+  /**
+   * Creates the {@code TimeRange} that {@code range} encodes.
+   */
+  public static TimeRange toTimeRange(long range) {
+    return TimeRange.fromStartDuration(start(range), duration(range));
+  }
+}
@@ -0,0 +1,240 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Growable list of {@link PackedRange packed ranges}, backed by a {@code long[]}. Adding a range
+ * creates no objects unless the array has to grow, so the query can collect, merge and cut ranges
+ * with a constant number of allocations, and only create {@code TimeRange}s for its answer.
+ *
+ * <p>{@link #intersect} and {@link #subtract} expect both lists to be merged, i.e. sorted by start
+ * time with no overlapping or touching ranges, as left by {@link #merge}. Not safe to use from
+ * multiple threads.
+ */
+public final class PackedRangeList {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] ranges;
+  private int size = 0;
+
+  public PackedRangeList() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty list with room for {@code capacity} ranges before it has to grow.
+   */
+  public PackedRangeList(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity cannot be negative");
+    }
+
+    this.ranges = new long[capacity];
+  }
+
+  /**
+   * Creates a list of {@code ranges}, in the order given.
+   */
+  public static PackedRangeList of(Collection<TimeRange> ranges) {
+    PackedRangeList list = new PackedRangeList(ranges.size());
+    for (TimeRange range : ranges) {
+      list.add(range);
+    }
+    return list;
+  }
+
+  /**
+   * Appends a packed range.
+   */
+  public void add(long range) {
+    if (size == ranges.length) {
+      ranges = Arrays.copyOf(ranges, Math.max(DEFAULT_CAPACITY, 2 * size));
+    }
+    ranges[size++] = range;
+  }
+
+  /**
+   * Appends the range [start, end).
+   */
+  public void add(int start, int end) {
+    add(PackedRange.fromStartEnd(start, end));
+  }
+
+  /**
+   * Appends {@code range}.
+   */
+  public void add(TimeRange range) {
+    add(PackedRange.of(range));
+  }
+
+  /**
+   * Appends every range of {@code other}.
+   */
+  public void addAll(PackedRangeList other) {
+    for (int i = 0; i < other.size; i++) {
+      add(other.ranges[i]);
+    }
+  }
+
+  /**
+   * Returns the packed range at {@code index}.
+   */
+  public long get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+    return ranges[index];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Removes every range, keeping the array for reuse.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Sorts the ranges by start time, then by duration.
+   */
+  public void sort() {
+    Arrays.sort(ranges, 0, size);
+  }
+
+  /**
+   * Sorts the ranges and joins the ones that overlap or touch, so that every minute is covered
+   * by at most one range. Empty ranges are dropped.
+   */
+  public void merge() {
+    sort();
+    int merged = 0;
+    for (int i = 0; i < size; i++) {
+      long range = ranges[i];
+      if (PackedRange.duration(range) <= 0) {
+        continue;
+      }
+
+      if (merged > 0 && PackedRange.start(range) <= PackedRange.end(ranges[merged - 1])) {
+        long last = ranges[merged - 1];
+        int end = Math.max(PackedRange.end(last), PackedRange.end(range));
+        ranges[merged - 1] = PackedRange.fromStartEnd(PackedRange.start(last), end);
+      } else {
+        ranges[merged++] = range;
+      }
+    }
+    size = merged;
+  }
+
+  /**
+   * Replaces the contents of {@code result} by the minutes that are in both this list and
+   * {@code other}. Both lists have to be merged, and the result is merged too.
+   */
+  public void intersect(PackedRangeList other, PackedRangeList result) {
+    checkResult(other, result);
+
+    result.clear();
+    int i = 0;
+    int j = 0;
+    while (i < size && j < other.size) {
+      long a = ranges[i];
+      long b = other.ranges[j];
+      int start = Math.max(PackedRange.start(a), PackedRange.start(b));
+      int end = Math.min(PackedRange.end(a), PackedRange.end(b));
+      if (start < end) {
+        result.add(start, end);
+      }
+      // Move past whichever range ends first; the other one may still overlap the next range.
+      if (PackedRange.end(a) < PackedRange.end(b)) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+  }
+
+  /**
+   * Replaces the contents of {@code result} by the minutes that are in this list but not in
+   * {@code other}. Both lists have to be merged, and the result is merged too.
+   */
+  public void subtract(PackedRangeList other, PackedRangeList result) {
+    checkResult(other, result);
+
+    result.clear();
+    int j = 0;
+    for (int i = 0; i < size; i++) {
+      int start = PackedRange.start(ranges[i]);
+      int end = PackedRange.end(ranges[i]);
+
+      // Skip the ranges of other that end before this one starts. They end before every later
+      // range of this list starts too.
+      while (j < other.size && PackedRange.end(other.ranges[j]) <= start) {
+        j++;
+      }
+      for (int k = j; k < other.size && PackedRange.start(other.ranges[k]) < end; k++) {
+        int cutStart = PackedRange.start(other.ranges[k]);
+        if (cutStart > start) {
+          result.add(start, cutStart);
+        }
+        start = Math.max(start, PackedRange.end(other.ranges[k]));
+      }
+      if (start < end) {
+        result.add(start, end);
+      }
+    }
+  }
+
+  /**
+   * Removes the ranges that last less than {@code minDuration} minutes, keeping the order of the
+   * others.
+   */
+  public void removeShorterThan(long minDuration) {
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      if (PackedRange.duration(ranges[i]) >= minDuration) {
+        ranges[kept++] = ranges[i];
+      }
+    }
+    size = kept;
+  }
+
+  /**
+   * Creates a {@code TimeRange} for every range, in order.
+   */
+  public List<TimeRange> toTimeRanges() {
+    List<TimeRange> timeRanges = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      timeRanges.add(PackedRange.toTimeRange(ranges[i]));
+    }
+    return timeRanges;
+  }
+
+  private void checkResult(PackedRangeList other, PackedRangeList result) {
+    if (result == this || result == other) {
+      throw new IllegalArgumentException("result has to be a different list");
+    }
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Immutable map from non-negative int keys to values, as a trie with 32 children per node.
+ * {@link #with} returns a new map that shares everything but the path to the changed key with
+ * this one, so a change copies O(log32 n) small arrays however large the map is. Meant for dense
+ * keys such as attendee and event ids.
+ */
+final class PersistentIntMap<V> {
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  private static final PersistentIntMap<Object> EMPTY = new PersistentIntMap<>(null, 0, 0);
+
+  // Null when the map is empty. Leaves hold values, inner nodes hold child arrays.
+  private final Object[] root;
+  // How far keys are shifted to find the child of the root, a multiple of BITS.
+  private final int shift;
+  private final int size;
+
+  private PersistentIntMap(Object[] root, int shift, int size) {
+    this.root = root;
+    this.shift = shift;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <V> PersistentIntMap<V> empty() {
+    return (PersistentIntMap<V>) EMPTY;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the value for {@code key}, or null if there is none.
+   */
+  @SuppressWarnings("unchecked")
+  V get(int key) {
+    if (root == null || key < 0 || !fits(key, shift)) {
+      return null;
+    }
+    Object[] node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      node = (Object[]) node[(key >>> level) & MASK];
+      if (node == null) {
+        return null;
+      }
+    }
+    return (V) node[key & MASK];
+  }
+
+  /**
+   * Returns a map where {@code key} has {@code value}, or has no value if {@code value} is null.
+   */
+  PersistentIntMap<V> with(int key, V value) {
+    if (key < 0) {
+      throw new IllegalArgumentException("key cannot be negative");
+    }
+    boolean present = get(key) != null;
+    if (value == null && !present) {
+      return this;
+    }
+
+    int newSize = size + (present ? 0 : 1) - (value == null ? 1 : 0);
+    if (newSize == 0) {
+      return empty();
+    }
+    Object[] newRoot = root == null ? new Object[WIDTH] : root;
+    int newShift = root == null ? 0 : shift;
+    while (!fits(key, newShift)) {
+      Object[] grown = new Object[WIDTH];
+      grown[0] = newRoot;
+      newRoot = grown;
+      newShift += BITS;
+    }
+    return new PersistentIntMap<>(set(newRoot, newShift, key, value), newShift, newSize);
+  }
+
+  /**
+   * Calls {@code action} with every value and its key, in key order.
+   */
+  @SuppressWarnings("unchecked")
+  void forEach(ObjIntConsumer<? super V> action) {
+    if (root != null) {
+      forEach(root, shift, 0, (ObjIntConsumer<Object>) action);
+    }
+  }
+
+  private static void forEach(Object[] node, int shift, int prefix,
+      ObjIntConsumer<Object> action) {
+    for (int i = 0; i < WIDTH; i++) {
+      Object child = node[i];
+      if (child == null) {
+        continue;
+      }
+      int key = prefix | (i << shift);
+      if (shift == 0) {
+        action.accept(child, key);
+      } else {
+        forEach((Object[]) child, shift - BITS, key, action);
+      }
+    }
+  }
+
+  // Copies the path to the key, creating the nodes that are missing. Nodes that become empty
+  // are kept, since ids are rarely removed for good.
+  private static Object[] set(Object[] node, int shift, int key, Object value) {
+    Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+    int index = (key >>> shift) & MASK;
+    copy[index] = shift == 0 ? value : set((Object[]) copy[index], shift - BITS, key, value);
+    return copy;
+  }
+
+  // Checks if a trie whose root is at the shift can hold the key.
+  private static boolean fits(int key, int shift) {
+    return shift + BITS >= Integer.SIZE - 1 || (key >>> (shift + BITS)) == 0;
+  }
+}
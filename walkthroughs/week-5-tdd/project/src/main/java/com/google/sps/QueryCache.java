@@ -0,0 +1,202 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of meeting query results. Requests are keyed by their attendees, optional
+ * attendees, duration and window, regardless of the order the attendees were given in. An answer
+ * is only served while the {@link AttendeeVersions} of every attendee still match the versions
+ * seen when it was computed, so changed calendars are never answered from the cache. When the
+ * cache is full, the least recently used answer is evicted.
+ *
+ * <p>A cache should only ever be used with one query function, since the function is not part of
+ * the key. Safe to use from multiple threads.
+ */
+public final class QueryCache {
+  private final int capacity;
+  private final AttendeeVersions versions;
+  private final LinkedHashMap<Key, Answer> answers;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a new cache.
+   *
+   * @param capacity The maximum number of answers to keep. Must be positive.
+   * @param versions The versions of the attendees' schedules. Must be non-null.
+   */
+  public QueryCache(int capacity, AttendeeVersions versions) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    if (versions == null) {
+      throw new IllegalArgumentException("versions cannot be null");
+    }
+
+    this.capacity = capacity;
+    this.versions = versions;
+    this.answers = new LinkedHashMap<Key, Answer>(16, 0.75f, /* accessOrder= */ true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Answer> eldest) {
+        if (size() > QueryCache.this.capacity) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached answer to {@code request} if it is still valid, otherwise computes it with
+   * {@code query} and caches it. The returned collection is read-only.
+   */
+  public Collection<TimeRange> get(MeetingRequest request,
+      Function<MeetingRequest, Collection<TimeRange>> query) {
+    Key key = new Key(request);
+
+    Answer answer;
+    synchronized (answers) {
+      answer = answers.get(key);
+    }
+    if (answer != null && Arrays.equals(answer.versions, currentVersions(key))) {
+      hits.increment();
+      return answer.ranges;
+    }
+    misses.increment();
+
+    // Read the versions before computing. If a schedule changes while the query runs, the stored
+    // versions are already out of date and the answer will not be served.
+    long[] versionsBefore = currentVersions(key);
+    Collection<TimeRange> ranges =
+        Collections.unmodifiableList(new ArrayList<>(query.apply(request)));
+    synchronized (answers) {
+      answers.put(key, new Answer(versionsBefore, ranges));
+    }
+    return ranges;
+  }
+
+  /**
+   * Returns the number of requests that were answered from the cache.
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of requests that had to be computed, including ones whose cached answer
+   * was out of date.
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of answers that were dropped to make room for newer ones.
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns the number of answers currently in the cache.
+   */
+  public int size() {
+    synchronized (answers) {
+      return answers.size();
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private long[] currentVersions(Key key) {
+    long[] current = new long[key.attendees.length + key.optionalAttendees.length];
+    int i = 0;
+    for (String attendee : key.attendees) {
+      current[i++] = versions.get(attendee);
+    }
+    for (String attendee : key.optionalAttendees) {
+      current[i++] = versions.get(attendee);
+    }
+    return current;
+  }
+
+  /** The normalized parts of a request that decide its answer. */
+  private static final class Key {
+    private final String[] attendees;
+    private final String[] optionalAttendees;
+    private final long duration;
+    private final TimeRange window;
+    private final int hashCode;
+
+    private Key(MeetingRequest request) {
+      this.attendees = sorted(request.getAttendees());
+      this.optionalAttendees = sorted(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.window = request.getWindow();
+      int hash = Arrays.hashCode(attendees);
+      hash = 31 * hash + Arrays.hashCode(optionalAttendees);
+      hash = 31 * hash + Long.hashCode(duration);
+      this.hashCode = 31 * hash + window.hashCode();
+    }
+
+    private static String[] sorted(Collection<String> names) {
+      String[] sorted = names.toArray(new String[0]);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return duration == key.duration && window.equals(key.window)
+          && Arrays.equals(attendees, key.attendees)
+          && Arrays.equals(optionalAttendees, key.optionalAttendees);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /** A computed answer and the attendee versions it was computed from. */
+  private static final class Answer {
+    private final long[] versions;
+    private final Collection<TimeRange> ranges;
+
+    private Answer(long[] versions, Collection<TimeRange> ranges) {
+      this.versions = versions;
+      this.ranges = ranges;
+    }
+  }
+}
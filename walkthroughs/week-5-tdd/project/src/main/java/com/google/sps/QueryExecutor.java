@@ -0,0 +1,102 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs queries on a fixed number of threads of its own, so that a burst of expensive queries
+ * can't take every request thread of the server. At most {@code queueCapacity} queries wait for a
+ * thread; beyond that {@link #submit} refuses new ones right away instead of letting the wait grow
+ * without bound. The time each query waits is recorded as {@link QueryMetrics.Stage#QUEUE}.
+ */
+public final class QueryExecutor {
+  private final QueryMetrics metrics;
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Creates an executor with {@code threads} threads, which records into {@code metrics}.
+   */
+  public QueryExecutor(int threads, int queueCapacity, QueryMetrics metrics) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("threads must be positive");
+    }
+    if (queueCapacity <= 0) {
+      throw new IllegalArgumentException("queueCapacity must be positive");
+    }
+
+    this.metrics = metrics;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new QueryThreadFactory(),
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Queues {@code query} to run on one of the threads. Returns false, and records a rejection,
+   * if the queue is full or the executor was shut down.
+   */
+  public boolean submit(Runnable query) {
+    long queued = metrics.now();
+    try {
+      executor.execute(() -> {
+        metrics.record(QueryMetrics.Stage.QUEUE, metrics.now() - queued);
+        query.run();
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      metrics.recordRejected();
+      return false;
+    }
+  }
+
+  /**
+   * Returns the number of queries waiting for a thread.
+   */
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Returns the approximate number of queries running right now.
+   */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * Stops taking queries. The ones already queued still run.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  // Names the threads so they can be told apart in thread dumps, and keeps them from holding up
+  // the JVM on exit.
+  private static final class QueryThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "query-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
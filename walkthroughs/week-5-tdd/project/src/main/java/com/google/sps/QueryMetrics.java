@@ -0,0 +1,205 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latencies and counters for meeting queries, over fixed intervals. Every stage of a request has
+ * its own {@link LatencyHistogram}, and the query itself counts the busy ranges it reads and the
+ * overlapping ranges it merges. Nothing takes a lock: when an interval is over, the first thread
+ * to notice swaps in a fresh one, and the finished one is kept as {@link #getPrevious()}.
+ *
+ * <p>A thread that picked up the interval just before it was swapped out may still record into
+ * it, so a finished interval can be off by the few requests that were in flight.
+ */
+public final class QueryMetrics {
+  /** The parts of serving a request that are timed separately. */
+  public enum Stage {
+    /** Reading the request. */
+    PARSE,
+    /** Waiting for a free {@link QueryExecutor} thread. */
+    QUEUE,
+    /** Finding the meeting times, including looking in the cache. */
+    COMPUTE,
+    /** Writing the response. */
+    SERIALIZE,
+    /** All of the above, from reading the request to the end of writing the response. */
+    TOTAL
+  }
+
+  private final long intervalNanos;
+  private final LongSupplier clock;
+
+  private final AtomicReference<Interval> current;
+  private volatile Interval previous = null;
+
+  /** What was recorded during one interval. */
+  public static final class Interval {
+    private final long startNanos;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Stage.values().length];
+    private final LongAdder rangesRead = new LongAdder();
+    private final LongAdder rangesMerged = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // Set once the interval is over.
+    private volatile long endNanos = -1;
+
+    private Interval(long startNanos) {
+      this.startNanos = startNanos;
+      for (int i = 0; i < latencies.length; i++) {
+        latencies[i] = new LatencyHistogram();
+      }
+    }
+
+    /**
+     * Returns the latencies of {@code stage}.
+     */
+    public LatencyHistogram getLatencies(Stage stage) {
+      return latencies[stage.ordinal()];
+    }
+
+    /**
+     * Returns how many busy ranges the queries read, or events they looked at when given a
+     * collection of events.
+     */
+    public long getRangesRead() {
+      return rangesRead.sum();
+    }
+
+    /**
+     * Returns how many busy ranges were merged into an overlapping or touching one.
+     */
+    public long getRangesMerged() {
+      return rangesMerged.sum();
+    }
+
+    /**
+     * Returns how many requests were turned away because too many were already waiting, or
+     * because they waited too long.
+     */
+    public long getRejected() {
+      return rejected.sum();
+    }
+
+    /**
+     * Returns how long the interval lasted, or has lasted so far.
+     */
+    public long getElapsedNanos(long nowNanos) {
+      return (endNanos < 0 ? nowNanos : endNanos) - startNanos;
+    }
+
+    /**
+     * Returns the number of requests served per second, based on {@link Stage#TOTAL}.
+     */
+    public double getThroughput(long nowNanos) {
+      long elapsed = getElapsedNanos(nowNanos);
+      return elapsed <= 0
+          ? 0.0
+          : getLatencies(Stage.TOTAL).getCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+  }
+
+  /**
+   * Creates metrics that start a new interval every {@code intervalSeconds}.
+   */
+  public QueryMetrics(long intervalSeconds) {
+    this(TimeUnit.SECONDS.toNanos(intervalSeconds), System::nanoTime);
+  }
+
+  // Visible for testing.
+  QueryMetrics(long intervalNanos, LongSupplier clock) {
+    if (intervalNanos <= 0) {
+      throw new IllegalArgumentException("intervalNanos must be positive");
+    }
+
+    this.intervalNanos = intervalNanos;
+    this.clock = clock;
+    this.current = new AtomicReference<>(new Interval(clock.getAsLong()));
+  }
+
+  /**
+   * Returns the time on the clock the metrics use, to measure stages with.
+   */
+  public long now() {
+    return clock.getAsLong();
+  }
+
+  /**
+   * Records that {@code stage} took {@code nanos}.
+   */
+  public void record(Stage stage, long nanos) {
+    getCurrent().getLatencies(stage).record(nanos);
+  }
+
+  /**
+   * Records that a query read {@code count} busy ranges.
+   */
+  public void recordRangesRead(int count) {
+    getCurrent().rangesRead.add(count);
+  }
+
+  /**
+   * Records that a query merged {@code count} busy ranges into others.
+   */
+  public void recordRangesMerged(int count) {
+    getCurrent().rangesMerged.add(count);
+  }
+
+  /**
+   * Records that a request was turned away without an answer.
+   */
+  public void recordRejected() {
+    getCurrent().rejected.increment();
+  }
+
+  /**
+   * Returns the interval that is being recorded into, starting a new one first if it is over.
+   */
+  public Interval getCurrent() {
+    Interval interval = current.get();
+    long now = clock.getAsLong();
+    while (now - interval.startNanos >= intervalNanos) {
+      // Intervals follow each other without gaps, skipping the ones nothing was recorded in.
+      long start = now - (now - interval.startNanos) % intervalNanos;
+      Interval next = new Interval(start);
+      if (current.compareAndSet(interval, next)) {
+        interval.endNanos = interval.startNanos + intervalNanos;
+        if (interval.endNanos == start) {
+          previous = interval;
+        } else {
+          // Nothing happened during the interval right before this one.
+          Interval idle = new Interval(start - intervalNanos);
+          idle.endNanos = start;
+          previous = idle;
+        }
+        return next;
+      }
+      interval = current.get();
+    }
+    return interval;
+  }
+
+  /**
+   * Returns the last finished interval, or null if the first one is still going.
+   */
+  public Interval getPrevious() {
+    getCurrent();
+    return previous;
+  }
+}
@@ -0,0 +1,257 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * How an {@link Event} repeats: every few days, or on some days of every few weeks, optionally
+ * ending after a number of occurrences or at a given time, and with some occurrences left out.
+ * Every occurrence starts at the same time of day and lasts as long as the first one.
+ *
+ * <p>Recurrences are immutable. The methods that change a rule return a new one.
+ */
+public final class Recurrence {
+  /** How often the event repeats. */
+  public enum Frequency {
+    DAILY,
+    WEEKLY
+  }
+
+  private static final int DAYS_PER_WEEK = 7;
+  // The last minute of the last day a time range can be on. Rules can't end later than this, or
+  // repeat more often than there are days.
+  private static final int MAX_UNTIL =
+      TimeRange.getTimeInMinutes(TimeRange.MAX_DAY, 23, 59);
+
+  private final Frequency frequency;
+  private final int interval;
+  // Only for weekly rules. Empty means the day of the week of the first occurrence.
+  private final EnumSet<DayOfWeek> days;
+  // 0 means no limit.
+  private final int count;
+  // The latest minute an occurrence can start at, inclusive.
+  private final int until;
+  // Starts of the occurrences that are left out, sorted.
+  private final int[] exceptions;
+
+  private Recurrence(Frequency frequency, int interval, EnumSet<DayOfWeek> days, int count,
+      int until, int[] exceptions) {
+    this.frequency = frequency;
+    this.interval = interval;
+    this.days = days;
+    this.count = count;
+    this.until = until;
+    this.exceptions = exceptions;
+  }
+
+  /**
+   * Creates a rule for an event that happens every day.
+   */
+  public static Recurrence daily() {
+    return new Recurrence(Frequency.DAILY, 1, EnumSet.noneOf(DayOfWeek.class), 0,
+        Integer.MAX_VALUE, new int[0]);
+  }
+
+  /**
+   * Creates a rule for an event that happens every week on {@code days}, or on the day of the
+   * first occurrence if there are none.
+   */
+  public static Recurrence weekly(DayOfWeek... days) {
+    return weekly(Arrays.asList(days));
+  }
+
+  /**
+   * Same as {@link #weekly(DayOfWeek...)}.
+   */
+  public static Recurrence weekly(Collection<DayOfWeek> days) {
+    if (days == null || days.contains(null)) {
+      throw new IllegalArgumentException("days cannot be null");
+    }
+
+    EnumSet<DayOfWeek> daySet = EnumSet.noneOf(DayOfWeek.class);
+    daySet.addAll(days);
+    return new Recurrence(Frequency.WEEKLY, 1, daySet, 0, Integer.MAX_VALUE, new int[0]);
+  }
+
+  /**
+   * Returns this rule repeating only every {@code interval} days or weeks.
+   */
+  public Recurrence every(int interval) {
+    if (interval <= 0 || interval > TimeRange.MAX_DAY) {
+      throw new IllegalArgumentException(
+          "interval must be between 1 and " + TimeRange.MAX_DAY + ".");
+    }
+    return new Recurrence(frequency, interval, days, count, until, exceptions);
+  }
+
+  /**
+   * Returns this rule ending after {@code count} occurrences, counting the ones left out.
+   */
+  public Recurrence times(int count) {
+    if (count <= 0 || count > TimeRange.MAX_DAY) {
+      throw new IllegalArgumentException("count must be between 1 and " + TimeRange.MAX_DAY + ".");
+    }
+    return new Recurrence(frequency, interval, days, count, until, exceptions);
+  }
+
+  /**
+   * Returns this rule ending with the last occurrence that starts at or before {@code minute}.
+   */
+  public Recurrence until(int minute) {
+    if (minute > MAX_UNTIL) {
+      throw new IllegalArgumentException("until cannot be later than " + MAX_UNTIL + ".");
+    }
+    return new Recurrence(frequency, interval, days, count, minute, exceptions);
+  }
+
+  /**
+   * Returns this rule leaving out the occurrences that start at {@code starts}, in minutes.
+   */
+  public Recurrence except(int... starts) {
+    int[] merged = Arrays.copyOf(exceptions, exceptions.length + starts.length);
+    System.arraycopy(starts, 0, merged, exceptions.length, starts.length);
+    Arrays.sort(merged);
+    return new Recurrence(frequency, interval, days, count, until, merged);
+  }
+
+  public Frequency getFrequency() {
+    return frequency;
+  }
+
+  public int getInterval() {
+    return interval;
+  }
+
+  /**
+   * Returns the days of the week a weekly rule repeats on. Empty means the day of the first
+   * occurrence, and always for daily rules.
+   */
+  public Set<DayOfWeek> getDays() {
+    return days.clone();
+  }
+
+  /**
+   * Returns the number of occurrences, or 0 if there is no limit.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the latest minute an occurrence can start at, or {@code Integer.MAX_VALUE}.
+   */
+  public int getUntil() {
+    return until;
+  }
+
+  /**
+   * Returns the starts of the occurrences that are left out, sorted.
+   */
+  public int[] getExceptions() {
+    return exceptions.clone();
+  }
+
+  /**
+   * Checks if the occurrence starting at {@code start} is left out.
+   */
+  public boolean isException(int start) {
+    return exceptions.length > 0 && Arrays.binarySearch(exceptions, start) >= 0;
+  }
+
+  /**
+   * Returns the first day at or after {@code day} with an occurrence, ignoring the count, the end
+   * and the exceptions, for a rule whose first occurrence is on {@code firstDay}.
+   */
+  int nextDay(int firstDay, int day) {
+    day = Math.max(day, firstDay);
+    if (frequency == Frequency.DAILY) {
+      int skipped = (day - firstDay) % interval;
+      return skipped == 0 ? day : day + interval - skipped;
+    }
+
+    Set<DayOfWeek> weekDays =
+        days.isEmpty() ? EnumSet.of(WorkingHours.dayOfWeek(firstDay)) : days;
+    int firstMonday = monday(firstDay);
+    while (true) {
+      // Skip to the next week the rule is active in.
+      int week = (monday(day) - firstMonday) / DAYS_PER_WEEK;
+      if (week % interval != 0) {
+        day = firstMonday + (week + interval - week % interval) * DAYS_PER_WEEK;
+      }
+      for (int end = monday(day) + DAYS_PER_WEEK; day < end; day++) {
+        if (weekDays.contains(WorkingHours.dayOfWeek(day))) {
+          return day;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the day of the last occurrence of a rule with a count, for a rule whose first
+   * occurrence is on or after {@code firstDay}. Counts the occurrences that are left out, but
+   * ignores the end. Takes the same time however large the count is.
+   */
+  long lastDay(int firstDay) {
+    if (frequency == Frequency.DAILY) {
+      return firstDay + (long) (count - 1) * interval;
+    }
+
+    Set<DayOfWeek> weekDays =
+        days.isEmpty() ? EnumSet.of(WorkingHours.dayOfWeek(firstDay)) : days;
+    // Days since Monday of every occurrence in an active week, in order.
+    int[] offsets = new int[weekDays.size()];
+    int i = 0;
+    for (DayOfWeek day : weekDays) {
+      offsets[i++] = day.ordinal();
+    }
+
+    // The first week only has the occurrences from firstDay on.
+    int firstMonday = monday(firstDay);
+    int remaining = count;
+    for (int offset : offsets) {
+      if (offset >= firstDay - firstMonday && --remaining == 0) {
+        return firstMonday + offset;
+      }
+    }
+    // Every later active week has all of them.
+    long weeks = (long) (1 + (remaining - 1) / offsets.length) * interval;
+    return firstMonday + weeks * DAYS_PER_WEEK + offsets[(remaining - 1) % offsets.length];
+  }
+
+  private static int monday(int day) {
+    return day - WorkingHours.dayOfWeek(day).ordinal();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Recurrence)) {
+      return false;
+    }
+    Recurrence rule = (Recurrence) other;
+    return frequency == rule.frequency && interval == rule.interval && days.equals(rule.days)
+        && count == rule.count && until == rule.until
+        && Arrays.equals(exceptions, rule.exceptions);
+  }
+
+  @Override
+  public int hashCode() {
+    return ((frequency.hashCode() * 31 + interval) * 31 + days.hashCode()) * 31 + count;
+  }
+}
@@ -0,0 +1,62 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+
+/**
+ * Read access to when people are busy, by {@link AttendeeDictionary} id. This is what
+ * {@link FindMeetingQuery} needs to answer a request without looking at every event.
+ */
+public interface Schedule {
+  /**
+   * Returns the times when the attendee is busy that overlap {@code window}, sorted by start time.
+   * The ranges may overlap each other.
+   */
+  List<TimeRange> getBusyTimes(int attendeeId, TimeRange window);
+
+  /**
+   * Appends the same ranges as {@link #getBusyTimes(int, TimeRange)} to {@code busyTimes}, packed.
+   * Implementations that keep their ranges in arrays can do this without creating objects.
+   */
+  default void addBusyTimes(int attendeeId, TimeRange window, PackedRangeList busyTimes) {
+    for (TimeRange range : getBusyTimes(attendeeId, window)) {
+      busyTimes.add(range);
+    }
+  }
+
+  /**
+   * Returns a view of this schedule that later changes don't affect, so that a query which reads
+   * many attendees sees all of them as of the same moment. Schedules that never change return
+   * themselves.
+   */
+  default Schedule pin() {
+    return this;
+  }
+
+  /**
+   * Returns a new bitmap of the minutes of {@link TimeRange#WHOLE_DAY} when at least one of
+   * {@code attendees} is busy.
+   */
+  default MinuteBitmap getBusyMinutes(AttendeeSet attendees) {
+    MinuteBitmap busy = new MinuteBitmap();
+    for (int i = 0; i < attendees.size(); i++) {
+      for (TimeRange range : getBusyTimes(attendees.id(i), TimeRange.WHOLE_DAY)) {
+        busy.add(range);
+      }
+    }
+    return busy;
+  }
+}
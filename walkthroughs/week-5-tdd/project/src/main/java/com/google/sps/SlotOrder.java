@@ -0,0 +1,108 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The order in which {@link FindMeetingQuery#slots} lists the free time slots: earliest first,
+ * longest first, or closest to a preferred time first. Ties are always broken by start time.
+ */
+public final class SlotOrder {
+  /** Slots in the order they happen. */
+  public static final SlotOrder EARLIEST = new SlotOrder(Kind.EARLIEST, 0);
+
+  /** The slots with the most room around the meeting first. */
+  public static final SlotOrder LONGEST = new SlotOrder(Kind.LONGEST, 0);
+
+  private enum Kind {
+    EARLIEST, LONGEST, CLOSEST
+  }
+
+  private final Kind kind;
+  private final int preferredTime;
+
+  private SlotOrder(Kind kind, int preferredTime) {
+    this.kind = kind;
+    this.preferredTime = preferredTime;
+  }
+
+  /**
+   * Returns the order that lists first the slots where the meeting can start closest to
+   * {@code preferredTime}, in minutes. A slot that contains the preferred time is at distance 0.
+   */
+  public static SlotOrder closestTo(int preferredTime) {
+    return new SlotOrder(Kind.CLOSEST, preferredTime);
+  }
+
+  /**
+   * Returns whether this order is the order the slots happen in, so that they can be listed
+   * without seeing all of them first.
+   */
+  boolean isChronological() {
+    return kind == Kind.EARLIEST;
+  }
+
+  /**
+   * Returns an iterator over {@code freeTimes} in this order. The free times must be sorted by
+   * start time, and long enough for a meeting of {@code duration} minutes.
+   */
+  Iterator<TimeRange> rank(PackedRangeList freeTimes, long duration) {
+    // Sort the ranks together with the index of the range, which breaks ties by start time.
+    long[] keys = new long[freeTimes.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = ((long) rank(freeTimes.get(i), duration) << 32) | i;
+    }
+    Arrays.sort(keys);
+
+    return new Iterator<TimeRange>() {
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < keys.length;
+      }
+
+      @Override
+      public TimeRange next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return PackedRange.toTimeRange(freeTimes.get((int) keys[next++]));
+      }
+    };
+  }
+
+  // Returns where a free range goes in this order, lower first. Never negative.
+  private int rank(long freeTime, long duration) {
+    switch (kind) {
+      case LONGEST:
+        return Integer.MAX_VALUE - PackedRange.duration(freeTime);
+      case CLOSEST:
+        long lastStart = PackedRange.end(freeTime) - duration;
+        long start = Math.max(PackedRange.start(freeTime), Math.min(preferredTime, lastStart));
+        return (int) Math.min(Math.abs(start - preferredTime), Integer.MAX_VALUE);
+      default:
+        return 0;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return kind == Kind.CLOSEST ? "closest to " + preferredTime : kind.name().toLowerCase();
+  }
+}
@@ -21,10 +21,18 @@ import java.util.Comparator;
  * providing methods to make ranges easier to work with (e.g. {@code overlaps}).
  */
 public final class TimeRange {
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
   public static final int START_OF_DAY = getTimeInMinutes(0, 0);
   public static final int END_OF_DAY = getTimeInMinutes(23, 59);
 
-  public static final TimeRange WHOLE_DAY = new TimeRange(0, 24 * 60);
+  public static final TimeRange WHOLE_DAY = new TimeRange(0, MINUTES_PER_DAY);
+
+  /**
+   * The last day that can be represented without the minutes overflowing an int, around the year
+   * 5850 when days are counted from the Unix epoch.
+   */
+  public static final int MAX_DAY = Integer.MAX_VALUE / MINUTES_PER_DAY - 1;
 
   /**
    * A comparator for sorting ranges by their start time in ascending order.
@@ -168,6 +176,32 @@ public final class TimeRange {
     return (hours * 60) + minutes;
   }
 
+  /**
+   * Returns the minute at which {@code hours}:{@code minutes} on {@code day} happens, counting
+   * from the start of day 0. Day 0 is the day of {@link #WHOLE_DAY}, so this is the same as
+   * {@link #getTimeInMinutes(int, int)} for day 0. When days are counted from the Unix epoch, the
+   * result is an epoch minute.
+   */
+  public static int getTimeInMinutes(int day, int hours, int minutes) {
+    if (day < 0 || day > MAX_DAY) {
+      throw new IllegalArgumentException("Days can only be 0 through " + MAX_DAY + " (inclusive).");
+    }
+
+    return day * MINUTES_PER_DAY + getTimeInMinutes(hours, minutes);
+  }
+
+  /**
+   * Creates a {@code TimeRange} covering {@code days} whole days, starting at the beginning of
+   * {@code firstDay}.
+   */
+  public static TimeRange fromDays(int firstDay, int days) {
+    if (days < 0 || firstDay + (long) days > MAX_DAY + 1L) {
+      throw new IllegalArgumentException("Days must fit between 0 and " + MAX_DAY + ".");
+    }
+
+    return new TimeRange(getTimeInMinutes(firstDay, 0, 0), days * MINUTES_PER_DAY);
+  }
+
   /**
    * Creates a {@code TimeRange} from {@code start} to {@code end}. Whether or not {@code end} is
    * included in the range will depend on {@code inclusive}. If {@code inclusive} is {@code true},
@@ -0,0 +1,141 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.util.Collection;
+import java.util.EnumSet;
+
+/**
+ * The hours of each day of the week during which someone can be booked. Every day is compiled
+ * into a bitmap of the minutes outside of working hours when the profile is created, so combining
+ * it with a schedule costs the same as combining two schedules.
+ *
+ * <p>Days are counted from the Unix epoch, so day 0 is a Thursday.
+ */
+public final class WorkingHours {
+  private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+  // The bookable part of each day, in minutes since the start of the day, by DayOfWeek ordinal.
+  // Days off start and end at 0.
+  private final int[] starts = new int[DAYS.length];
+  private final int[] ends = new int[DAYS.length];
+  // The minutes outside of working hours, by DayOfWeek ordinal.
+  private final MinuteBitmap[] offMinutes = new MinuteBitmap[DAYS.length];
+
+  private WorkingHours(TimeRange hours, Collection<DayOfWeek> workingDays) {
+    if (hours == null || hours.duration() <= 0 || !TimeRange.WHOLE_DAY.contains(hours)) {
+      throw new IllegalArgumentException("hours must be a non-empty part of the day");
+    }
+    if (workingDays == null) {
+      throw new IllegalArgumentException("workingDays cannot be null");
+    }
+
+    for (DayOfWeek day : DAYS) {
+      MinuteBitmap off = new MinuteBitmap();
+      if (workingDays.contains(day)) {
+        starts[day.ordinal()] = hours.start();
+        ends[day.ordinal()] = hours.end();
+        off.add(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, hours.start(), false));
+        off.add(TimeRange.fromStartEnd(hours.end(), TimeRange.MINUTES_PER_DAY, false));
+      } else {
+        off.add(TimeRange.WHOLE_DAY);
+      }
+      offMinutes[day.ordinal()] = off;
+    }
+  }
+
+  /**
+   * Creates a profile that can be booked during {@code hours} of every day.
+   */
+  public static WorkingHours daily(TimeRange hours) {
+    return new WorkingHours(hours, EnumSet.allOf(DayOfWeek.class));
+  }
+
+  /**
+   * Creates a profile that can be booked during {@code hours} from Monday to Friday.
+   */
+  public static WorkingHours weekdays(TimeRange hours) {
+    return new WorkingHours(hours, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+  }
+
+  /**
+   * Creates a profile that can be booked during {@code hours} of {@code workingDays} only.
+   */
+  public static WorkingHours of(TimeRange hours, Collection<DayOfWeek> workingDays) {
+    return new WorkingHours(hours, workingDays);
+  }
+
+  /**
+   * Returns the day of the week of {@code day}, counting days from the Unix epoch.
+   */
+  public static DayOfWeek dayOfWeek(int day) {
+    return DayOfWeek.THURSDAY.plus(Math.floorMod(day, DAYS.length));
+  }
+
+  /**
+   * Returns the bookable part of a day, or null if {@code day} is a day off.
+   */
+  public TimeRange getHours(DayOfWeek day) {
+    int i = day.ordinal();
+    return starts[i] == ends[i] ? null : TimeRange.fromStartEnd(starts[i], ends[i], false);
+  }
+
+  // Returns the minutes of the day that can't be booked. Shared, so it must not be changed.
+  MinuteBitmap getOffMinutes(int day) {
+    return offMinutes[dayOfWeek(day).ordinal()];
+  }
+
+  /**
+   * Appends the bookable parts of {@code window} to {@code workingTimes}, in order.
+   */
+  public void addWorkingTimes(TimeRange window, PackedRangeList workingTimes) {
+    if (window.duration() == 0) {
+      return;
+    }
+
+    int lastDay = Math.floorDiv(window.end() - 1, TimeRange.MINUTES_PER_DAY);
+    for (int day = Math.floorDiv(window.start(), TimeRange.MINUTES_PER_DAY); day <= lastDay;
+        day++) {
+      int i = dayOfWeek(day).ordinal();
+      int dayStart = day * TimeRange.MINUTES_PER_DAY;
+      int start = Math.max(dayStart + starts[i], window.start());
+      int end = Math.min(dayStart + ends[i], window.end());
+      if (start < end) {
+        workingTimes.add(start, end);
+      }
+    }
+  }
+
+  /**
+   * Appends the parts of {@code window} outside of working hours to {@code offTimes}, in order.
+   */
+  public void addOffTimes(TimeRange window, PackedRangeList offTimes) {
+    PackedRangeList workingTimes = new PackedRangeList();
+    addWorkingTimes(window, workingTimes);
+
+    int from = window.start();
+    for (int i = 0; i < workingTimes.size(); i++) {
+      long range = workingTimes.get(i);
+      if (PackedRange.start(range) > from) {
+        offTimes.add(from, PackedRange.start(range));
+      }
+      from = PackedRange.end(range);
+    }
+    if (from < window.end()) {
+      offTimes.add(from, window.end());
+    }
+  }
+}
@@ -0,0 +1,170 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link Schedule} where people with {@link WorkingHours} are also busy outside of them. Their
+ * events are only read for the bookable parts of a window, so a query never looks at the time
+ * that could not be booked anyway.
+ */
+public final class WorkingHoursSchedule implements Schedule {
+  private final Schedule schedule;
+  private final AttendeeVersions versions;
+  // By attendee id. People without a profile can be booked at any time.
+  private final ConcurrentHashMap<Integer, WorkingHours> workingHours;
+
+  /**
+   * Creates a schedule that reads events from {@code schedule}.
+   *
+   * @param versions Incremented for every attendee whose working hours change. Must be non-null.
+   */
+  public WorkingHoursSchedule(Schedule schedule, AttendeeVersions versions) {
+    if (schedule == null) {
+      throw new IllegalArgumentException("schedule cannot be null");
+    }
+    if (versions == null) {
+      throw new IllegalArgumentException("versions cannot be null");
+    }
+
+    this.schedule = schedule;
+    this.versions = versions;
+    this.workingHours = new ConcurrentHashMap<>();
+  }
+
+  // A view of the same working hours over another schedule.
+  private WorkingHoursSchedule(Schedule schedule, WorkingHoursSchedule hours) {
+    this.schedule = schedule;
+    this.versions = hours.versions;
+    this.workingHours = hours.workingHours;
+  }
+
+  /**
+   * Sets the working hours of {@code attendee}. Null means they can be booked at any time.
+   */
+  public void setWorkingHours(String attendee, WorkingHours hours) {
+    if (hours == null) {
+      // Nobody who was never interned can have working hours, and deleting theirs must not grow
+      // the dictionary.
+      int id = AttendeeDictionary.lookup(attendee);
+      if (id == AttendeeDictionary.UNKNOWN) {
+        return;
+      }
+      workingHours.remove(id);
+    } else {
+      int id = AttendeeDictionary.intern(attendee);
+      workingHours.put(id, hours);
+    }
+    versions.increment(attendee);
+  }
+
+  /**
+   * Returns the working hours of {@code attendee}, or null if they can be booked at any time.
+   */
+  public WorkingHours getWorkingHours(String attendee) {
+    int id = AttendeeDictionary.lookup(attendee);
+    return id == AttendeeDictionary.UNKNOWN ? null : workingHours.get(id);
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimes(int attendeeId, TimeRange window) {
+    WorkingHours hours = workingHours.get(attendeeId);
+    if (hours == null) {
+      return schedule.getBusyTimes(attendeeId, window);
+    }
+
+    PackedRangeList busyTimes = new PackedRangeList();
+    addBusyTimes(attendeeId, hours, window, busyTimes);
+    busyTimes.sort();
+    List<TimeRange> ranges = new ArrayList<>(busyTimes.size());
+    for (int i = 0; i < busyTimes.size(); i++) {
+      ranges.add(PackedRange.toTimeRange(busyTimes.get(i)));
+    }
+    return ranges;
+  }
+
+  @Override
+  public void addBusyTimes(int attendeeId, TimeRange window, PackedRangeList busyTimes) {
+    WorkingHours hours = workingHours.get(attendeeId);
+    if (hours == null) {
+      schedule.addBusyTimes(attendeeId, window, busyTimes);
+    } else {
+      addBusyTimes(attendeeId, hours, window, busyTimes);
+    }
+  }
+
+  // Adds the off hours in the window, then the events during each bookable part of it. An event
+  // that spans two bookable parts is added twice, which merging takes care of.
+  private void addBusyTimes(int attendeeId, WorkingHours hours, TimeRange window,
+      PackedRangeList busyTimes) {
+    hours.addOffTimes(window, busyTimes);
+    PackedRangeList workingTimes = new PackedRangeList();
+    hours.addWorkingTimes(window, workingTimes);
+    for (int i = 0; i < workingTimes.size(); i++) {
+      schedule.addBusyTimes(attendeeId, PackedRange.toTimeRange(workingTimes.get(i)), busyTimes);
+    }
+  }
+
+  /**
+   * Returns a view over a pinned version of the events. The working hours are still read as they
+   * are when each attendee is looked at.
+   */
+  @Override
+  public Schedule pin() {
+    Schedule pinned = schedule.pin();
+    return pinned == schedule ? this : new WorkingHoursSchedule(pinned, this);
+  }
+
+  @Override
+  public MinuteBitmap getBusyMinutes(AttendeeSet attendees) {
+    // The people without working hours keep the bitmaps of the underlying schedule.
+    int[] anytime = new int[attendees.size()];
+    int anytimeCount = 0;
+    List<WorkingHours> profiles = new ArrayList<>();
+    List<Integer> profileIds = new ArrayList<>();
+    for (int i = 0; i < attendees.size(); i++) {
+      WorkingHours hours = workingHours.get(attendees.id(i));
+      if (hours == null) {
+        anytime[anytimeCount++] = attendees.id(i);
+      } else {
+        profiles.add(hours);
+        profileIds.add(attendees.id(i));
+      }
+    }
+    if (profiles.isEmpty()) {
+      return schedule.getBusyMinutes(attendees);
+    }
+
+    MinuteBitmap busy = schedule.getBusyMinutes(AttendeeSet.fromIds(anytime, anytimeCount));
+    for (WorkingHours hours : profiles) {
+      busy.or(hours.getOffMinutes(0));
+    }
+    PackedRangeList workingTimes = new PackedRangeList();
+    for (int i = 0; i < profiles.size(); i++) {
+      workingTimes.clear();
+      profiles.get(i).addWorkingTimes(TimeRange.WHOLE_DAY, workingTimes);
+      for (int j = 0; j < workingTimes.size(); j++) {
+        TimeRange bookable = PackedRange.toTimeRange(workingTimes.get(j));
+        for (TimeRange range : schedule.getBusyTimes(profileIds.get(i), bookable)) {
+          busy.add(range);
+        }
+      }
+    }
+    return busy;
+  }
+}
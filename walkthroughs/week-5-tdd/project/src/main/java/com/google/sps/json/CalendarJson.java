@@ -0,0 +1,40 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.Recurrence;
+import com.google.sps.TimeRange;
+
+/**
+ * The JSON form of the calendar. Every servlet uses the same {@link Gson}, with hand-written
+ * adapters for the calendar classes so that nothing is read or written through reflection.
+ */
+public final class CalendarJson {
+  /** Safe to use from multiple threads. */
+  public static final Gson gson = new GsonBuilder()
+      .registerTypeAdapter(TimeRange.class, new TimeRangeAdapter())
+      .registerTypeAdapter(Event.class, new EventAdapter())
+      .registerTypeAdapter(MeetingRequest.class, new MeetingRequestAdapter())
+      .registerTypeAdapter(Recurrence.class, new RecurrenceAdapter())
+      .create();
+
+  private CalendarJson() {
+    // Disallow instances.
+  }
+}
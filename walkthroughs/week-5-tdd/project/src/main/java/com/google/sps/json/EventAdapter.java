@@ -0,0 +1,111 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.json;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.Event;
+import com.google.sps.Recurrence;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and writes an {@link Event} as
+ * {@code {"title": "Standup", "when": {...}, "attendees": ["Amelia"], "recurrence": {...}}},
+ * where {@code recurrence} is only there for repeating events. An {@code id} field is skipped
+ * when reading, so events can be sent back the way /get-events returned them.
+ */
+public final class EventAdapter extends TypeAdapter<Event> {
+  private final TimeRangeAdapter timeRangeAdapter = new TimeRangeAdapter();
+  private final RecurrenceAdapter recurrenceAdapter = new RecurrenceAdapter();
+
+  @Override
+  public void write(JsonWriter out, Event event) throws IOException {
+    if (event == null) {
+      out.nullValue();
+      return;
+    }
+
+    out.beginObject();
+    writeFields(out, event);
+    out.endObject();
+  }
+
+  /**
+   * Writes {@code event} with an extra {@code id} field that it can be changed through.
+   */
+  public void write(JsonWriter out, int id, Event event) throws IOException {
+    out.beginObject();
+    out.name("id").value(id);
+    writeFields(out, event);
+    out.endObject();
+  }
+
+  private void writeFields(JsonWriter out, Event event) throws IOException {
+    out.name("title").value(event.getTitle());
+    out.name("when");
+    timeRangeAdapter.write(out, event.getWhen());
+    out.name("attendees");
+    JsonFields.writeNames(out, event.getAttendees());
+    if (event.isRecurring()) {
+      out.name("recurrence");
+      recurrenceAdapter.write(out, event.getRecurrence());
+    }
+  }
+
+  @Override
+  public Event read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+
+    String title = null;
+    TimeRange when = null;
+    List<String> attendees = Collections.emptyList();
+    Recurrence recurrence = null;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "title":
+          title = JsonFields.readNullableString(in);
+          break;
+        case "when":
+          when = timeRangeAdapter.read(in);
+          break;
+        case "attendees":
+          attendees = JsonFields.readNames(in);
+          break;
+        case "recurrence":
+          recurrence = recurrenceAdapter.read(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+
+    try {
+      return new Event(title, when, attendees, recurrence);
+    } catch (IllegalArgumentException e) {
+      throw new JsonParseException(e.getMessage(), e);
+    }
+  }
+}
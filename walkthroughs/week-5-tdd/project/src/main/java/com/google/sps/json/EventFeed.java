@@ -0,0 +1,169 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.json;
+
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.CalendarStore;
+import com.google.sps.CalendarVersion;
+import com.google.sps.Event;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The events of a {@link CalendarStore} as the JSON array that /get-events returns. The feed is
+ * rendered once per version of the store, both as plain UTF-8 and gzipped, so that serving it is
+ * only a matter of copying bytes. Safe to use from multiple threads.
+ */
+public final class EventFeed {
+  private final CalendarStore store;
+  private final EventAdapter eventAdapter = new EventAdapter();
+
+  // Never null after construction. Replaced as a whole, so readers always see a matching set of
+  // bodies and tags.
+  private volatile Rendering current;
+
+  /** The feed as it was at one version of the store. */
+  public static final class Rendering {
+    private final long version;
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+
+    private Rendering(long version, byte[] identity, byte[] gzip, String digest) {
+      this.version = version;
+      this.identity = identity;
+      this.gzip = gzip;
+      // Strong tags have to differ between the encodings, since their bytes do.
+      this.etag = "\"" + digest + "\"";
+      this.gzipEtag = "\"" + digest + "-gzip\"";
+    }
+
+    /**
+     * Returns the version of the store that the feed was rendered from.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Returns the strong entity tag of the plain or the gzipped body, including the quotes. The
+     * tag only depends on the events, so it stays the same across restarts of the server.
+     */
+    public String getETag(boolean gzipped) {
+      return gzipped ? gzipEtag : etag;
+    }
+
+    /**
+     * Returns the length in bytes of the plain or the gzipped body.
+     */
+    public int getLength(boolean gzipped) {
+      return gzipped ? gzip.length : identity.length;
+    }
+
+    /**
+     * Writes the plain or the gzipped body to {@code out}.
+     */
+    public void writeTo(OutputStream out, boolean gzipped) throws IOException {
+      out.write(gzipped ? gzip : identity);
+    }
+  }
+
+  /**
+   * Creates the feed of {@code store}, rendering its current events right away.
+   */
+  public EventFeed(CalendarStore store) {
+    if (store == null) {
+      throw new IllegalArgumentException("store cannot be null");
+    }
+
+    this.store = store;
+    this.current = render(store.pin());
+  }
+
+  /**
+   * Returns the feed for the current version of the store, rendering it first if the store has
+   * changed since the last call.
+   */
+  public Rendering get() {
+    Rendering rendering = current;
+    if (rendering.version == store.getVersion()) {
+      return rendering;
+    }
+
+    // Only one thread renders a new version. The others wait for it rather than all rendering
+    // the same bytes at once.
+    synchronized (this) {
+      // The pinned version doesn't change while it is rendered. A change made meanwhile moves
+      // the store past it, so the next call renders again.
+      CalendarVersion version = store.pin();
+      if (current.version != version.getVersion()) {
+        current = render(version);
+      }
+      return current;
+    }
+  }
+
+  private Rendering render(CalendarVersion version) {
+    try {
+      ByteArrayOutputStream identity = new ByteArrayOutputStream();
+      JsonWriter writer =
+          new JsonWriter(new OutputStreamWriter(identity, StandardCharsets.UTF_8));
+      writer.beginArray();
+      for (Map.Entry<Integer, Event> entry : version.getEvents().entrySet()) {
+        eventAdapter.write(writer, entry.getKey(), entry.getValue());
+      }
+      writer.endArray();
+      writer.close();
+      byte[] identityBytes = identity.toByteArray();
+
+      ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+      try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+        out.write(identityBytes);
+      }
+
+      return new Rendering(
+          version.getVersion(), identityBytes, gzip.toByteArray(), digest(identityBytes));
+    } catch (IOException e) {
+      // Nothing here does real I/O.
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Returns the first 128 bits of the SHA-256 of bytes in hex.
+  private static String digest(byte[] bytes) {
+    byte[] hash;
+    try {
+      hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform has to support SHA-256.
+      throw new AssertionError(e);
+    }
+
+    StringBuilder hex = new StringBuilder();
+    for (int i = 0; i < 16; i++) {
+      hex.append(String.format("%02x", hash[i]));
+    }
+    return hex.toString();
+  }
+}
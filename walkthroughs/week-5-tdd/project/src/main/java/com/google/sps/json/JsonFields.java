@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.json;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Helpers shared by the adapters.
+ */
+final class JsonFields {
+  private JsonFields() {
+    // Disallow instances.
+  }
+
+  /**
+   * Reads an array of names. A null is read as no names at all.
+   */
+  static List<String> readNames(JsonReader in) throws IOException {
+    List<String> names = new ArrayList<>();
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return names;
+    }
+
+    in.beginArray();
+    while (in.hasNext()) {
+      if (in.peek() != JsonToken.STRING) {
+        throw new JsonParseException("Expected a name at " + in.getPath() + ".");
+      }
+      names.add(in.nextString());
+    }
+    in.endArray();
+    return names;
+  }
+
+  static void writeNames(JsonWriter out, Collection<String> names) throws IOException {
+    out.beginArray();
+    for (String name : names) {
+      out.value(name);
+    }
+    out.endArray();
+  }
+
+  /**
+   * Reads an int, failing with a {@link JsonParseException} if the value is not one.
+   */
+  static int readInt(JsonReader in) throws IOException {
+    try {
+      return in.nextInt();
+    } catch (NumberFormatException e) {
+      throw new JsonParseException("Expected an integer at " + in.getPath() + ".", e);
+    }
+  }
+
+  /**
+   * Reads a long, failing with a {@link JsonParseException} if the value is not one.
+   */
+  static long readLong(JsonReader in) throws IOException {
+    try {
+      return in.nextLong();
+    } catch (NumberFormatException e) {
+      throw new JsonParseException("Expected an integer at " + in.getPath() + ".", e);
+    }
+  }
+
+  /**
+   * Reads a string, or returns null for a JSON null.
+   */
+  static String readNullableString(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return in.nextString();
+  }
+}
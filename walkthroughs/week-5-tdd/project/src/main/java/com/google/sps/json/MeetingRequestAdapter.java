@@ -0,0 +1,97 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.json;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and writes a {@link MeetingRequest} as
+ * {@code {"attendees": [...], "optional_attendees": [...], "duration": 30, "window": {...}}}. Only
+ * the duration is required. Missing attendees are read as nobody, and a missing window as
+ * {@link TimeRange#WHOLE_DAY}.
+ */
+public final class MeetingRequestAdapter extends TypeAdapter<MeetingRequest> {
+  private final TimeRangeAdapter timeRangeAdapter = new TimeRangeAdapter();
+
+  @Override
+  public void write(JsonWriter out, MeetingRequest request) throws IOException {
+    if (request == null) {
+      out.nullValue();
+      return;
+    }
+
+    out.beginObject();
+    out.name("attendees");
+    JsonFields.writeNames(out, request.getAttendees());
+    out.name("optional_attendees");
+    JsonFields.writeNames(out, request.getOptionalAttendees());
+    out.name("duration").value(request.getDuration());
+    out.name("window");
+    timeRangeAdapter.write(out, request.getWindow());
+    out.endObject();
+  }
+
+  @Override
+  public MeetingRequest read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+
+    List<String> attendees = Collections.emptyList();
+    List<String> optionalAttendees = Collections.emptyList();
+    long duration = 0;
+    TimeRange window = null;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "attendees":
+          attendees = JsonFields.readNames(in);
+          break;
+        case "optional_attendees":
+          optionalAttendees = JsonFields.readNames(in);
+          break;
+        case "duration":
+          duration = JsonFields.readLong(in);
+          break;
+        case "window":
+          window = timeRangeAdapter.read(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    if (duration < 0) {
+      throw new JsonParseException("A meeting request cannot have a negative duration.");
+    }
+
+    MeetingRequest request =
+        new MeetingRequest(attendees, duration, window == null ? TimeRange.WHOLE_DAY : window);
+    for (String attendee : optionalAttendees) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+}
@@ -0,0 +1,155 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.json;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.Recurrence;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes a {@link Recurrence} as
+ * {@code {"frequency": "WEEKLY", "interval": 2, "days": ["MONDAY"], "count": 10, "until": 43200,
+ * "exceptions": [10080]}}. Only {@code frequency} is required.
+ */
+public final class RecurrenceAdapter extends TypeAdapter<Recurrence> {
+  @Override
+  public void write(JsonWriter out, Recurrence recurrence) throws IOException {
+    if (recurrence == null) {
+      out.nullValue();
+      return;
+    }
+
+    out.beginObject();
+    out.name("frequency").value(recurrence.getFrequency().name());
+    out.name("interval").value(recurrence.getInterval());
+    if (!recurrence.getDays().isEmpty()) {
+      out.name("days").beginArray();
+      for (DayOfWeek day : recurrence.getDays()) {
+        out.value(day.name());
+      }
+      out.endArray();
+    }
+    if (recurrence.getCount() != 0) {
+      out.name("count").value(recurrence.getCount());
+    }
+    if (recurrence.getUntil() != Integer.MAX_VALUE) {
+      out.name("until").value(recurrence.getUntil());
+    }
+    int[] exceptions = recurrence.getExceptions();
+    if (exceptions.length > 0) {
+      out.name("exceptions").beginArray();
+      for (int exception : exceptions) {
+        out.value(exception);
+      }
+      out.endArray();
+    }
+    out.endObject();
+  }
+
+  @Override
+  public Recurrence read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+
+    String frequency = null;
+    Integer interval = null;
+    List<String> days = new ArrayList<>();
+    Integer count = null;
+    Integer until = null;
+    List<Integer> exceptions = new ArrayList<>();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "frequency":
+          frequency = JsonFields.readNullableString(in);
+          break;
+        case "interval":
+          interval = JsonFields.readInt(in);
+          break;
+        case "days":
+          days = JsonFields.readNames(in);
+          break;
+        case "count":
+          count = JsonFields.readInt(in);
+          break;
+        case "until":
+          until = JsonFields.readInt(in);
+          break;
+        case "exceptions":
+          in.beginArray();
+          while (in.hasNext()) {
+            exceptions.add(JsonFields.readInt(in));
+          }
+          in.endArray();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+
+    try {
+      Recurrence recurrence = toRecurrence(frequency, days);
+      if (interval != null) {
+        recurrence = recurrence.every(interval);
+      }
+      if (count != null) {
+        recurrence = recurrence.times(count);
+      }
+      if (until != null) {
+        recurrence = recurrence.until(until);
+      }
+      if (!exceptions.isEmpty()) {
+        int[] starts = new int[exceptions.size()];
+        for (int i = 0; i < starts.length; i++) {
+          starts[i] = exceptions.get(i);
+        }
+        recurrence = recurrence.except(starts);
+      }
+      return recurrence;
+    } catch (IllegalArgumentException e) {
+      throw new JsonParseException(e.getMessage(), e);
+    }
+  }
+
+  private static Recurrence toRecurrence(String frequency, List<String> days) {
+    if (frequency == null) {
+      throw new IllegalArgumentException("frequency is required");
+    }
+
+    switch (Recurrence.Frequency.valueOf(frequency)) {
+      case DAILY:
+        if (!days.isEmpty()) {
+          throw new IllegalArgumentException("Only weekly recurrences can have days");
+        }
+        return Recurrence.daily();
+      default:
+        List<DayOfWeek> weekDays = new ArrayList<>(days.size());
+        for (String day : days) {
+          weekDays.add(DayOfWeek.valueOf(day));
+        }
+        return Recurrence.weekly(weekDays);
+    }
+  }
+}
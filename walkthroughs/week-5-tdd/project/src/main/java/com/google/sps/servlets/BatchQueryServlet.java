@@ -0,0 +1,140 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.Schedule;
+import com.google.sps.TimeRange;
+import com.google.sps.json.CalendarJson;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers many meeting requests in one round trip. The body is a JSON array of meeting requests,
+ * and the response is an array with one result per request, in the same order. Every request is
+ * answered from the same version of the calendar.
+ */
+@WebServlet("/query-batch")
+public class BatchQueryServlet extends HttpServlet {
+  // Larger batches are rejected so that one caller can't hold the pool for too long.
+  private static final int MAX_BATCH_SIZE = 10000;
+
+  private static final Type BATCH_RESULTS = new TypeToken<List<BatchResult>>() {}.getType();
+
+  // The query keeps no state between calls, so one instance is shared by every worker. Reading a
+  // pinned version never takes a lock, so the workers don't wait on each other or on writers
+  // either.
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
+  // Bounded to the number of cores so that batches can't starve the rest of the server.
+  private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  /** The answer for one meeting request of the batch. */
+  private static final class BatchResult {
+    private final Collection<TimeRange> options;
+    private final long computeMicros;
+
+    private BatchResult(Collection<TimeRange> options, long computeMicros) {
+      this.options = options;
+      this.computeMicros = computeMicros;
+    }
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response)
+      throws IOException, ServletException {
+    MeetingRequest[] meetingRequests;
+    try {
+      meetingRequests = CalendarJson.gson.fromJson(
+          new JsonReader(request.getReader()), MeetingRequest[].class);
+    } catch (JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an array of requests.");
+      return;
+    }
+
+    if (meetingRequests == null) {
+      meetingRequests = new MeetingRequest[0];
+    }
+    if (meetingRequests.length > MAX_BATCH_SIZE) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "A batch can have at most " + MAX_BATCH_SIZE + " requests.");
+      return;
+    }
+    if (Arrays.asList(meetingRequests).contains(null)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Requests cannot be null.");
+      return;
+    }
+
+    Schedule schedule = SharedCalendar.schedule.pin();
+    List<Callable<BatchResult>> tasks = new ArrayList<>(meetingRequests.length);
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      tasks.add(() -> evaluate(schedule, meetingRequest));
+    }
+
+    // invokeAll returns the futures in the same order as the tasks.
+    List<BatchResult> results = new ArrayList<>(tasks.size());
+    try {
+      for (Future<BatchResult> future : pool.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServletException("Interrupted while evaluating the batch.", e);
+    } catch (ExecutionException e) {
+      throw new ServletException("Failed to evaluate the batch.", e.getCause());
+    }
+
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    CalendarJson.gson.toJson(results, BATCH_RESULTS, writer);
+    writer.flush();
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdown();
+    try {
+      pool.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private BatchResult evaluate(Schedule schedule, MeetingRequest meetingRequest) {
+    long start = System.nanoTime();
+    Collection<TimeRange> options = findMeetingQuery.query(schedule, meetingRequest);
+    long computeMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    return new BatchResult(options, computeMicros);
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.BulkScheduler;
+import com.google.sps.MeetingRequest;
+import com.google.sps.json.CalendarJson;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Plans many meetings at once without booking them. The body is a JSON array of meeting requests.
+ * The response has an {@code assignments} array with the time picked for each request, in the
+ * same order, and an {@code unschedulable} array with the indexes of the requests that didn't fit.
+ */
+@WebServlet("/schedule-bulk")
+public class BulkScheduleServlet extends HttpServlet {
+  private static final int MAX_REQUESTS = 10000;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    MeetingRequest[] meetingRequests;
+    try {
+      meetingRequests = CalendarJson.gson.fromJson(
+          new JsonReader(request.getReader()), MeetingRequest[].class);
+    } catch (JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an array of requests.");
+      return;
+    }
+
+    if (meetingRequests == null) {
+      meetingRequests = new MeetingRequest[0];
+    }
+    if (meetingRequests.length > MAX_REQUESTS) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "At most " + MAX_REQUESTS + " requests can be scheduled at once.");
+      return;
+    }
+    if (Arrays.asList(meetingRequests).contains(null)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Requests cannot be null.");
+      return;
+    }
+
+    BulkScheduler.Result result;
+    try {
+      result =
+          new BulkScheduler(SharedCalendar.schedule).schedule(Arrays.asList(meetingRequests));
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    CalendarJson.gson.toJson(result, BulkScheduler.Result.class, writer);
+    writer.flush();
+  }
+}
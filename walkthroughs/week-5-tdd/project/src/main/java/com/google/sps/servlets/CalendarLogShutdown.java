@@ -0,0 +1,61 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Checkpoints and closes the calendar log when the app is undeployed, so that the next startup has
+ * only the checkpoint to read.
+ */
+@WebListener
+public class CalendarLogShutdown implements ServletContextListener {
+  // Long enough to write the checkpoint of a large calendar.
+  private static final long COMPACTION_WAIT_SECONDS = 60;
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    if (SharedCalendar.log == null) {
+      return;
+    }
+
+    // Let a round that is already running finish. Interrupting it would close the log's file
+    // channel, and the log can't be written after that.
+    SharedCalendar.compaction.shutdown();
+    boolean interrupted = false;
+    try {
+      SharedCalendar.compaction.awaitTermination(COMPACTION_WAIT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      // Only restored once the log is closed, for the same reason.
+      interrupted = true;
+    }
+
+    try {
+      SharedCalendar.store.compact();
+      SharedCalendar.log.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to close the calendar log", e);
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.sps.LatencyHistogram;
+import com.google.sps.QueryMetrics;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports how /query is doing: latency percentiles for parsing, waiting for a thread, computing,
+ * serializing and the whole request, throughput, how many requests were turned away, and how many
+ * busy ranges the queries read and merged. Both the interval in progress and the last finished
+ * one are reported, since the current one may have only just started, along with how many
+ * queries are waiting and running right now.
+ */
+@WebServlet("/calendar-metrics")
+public class CalendarMetricsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    QueryMetrics metrics = SharedCalendar.queryMetrics;
+    QueryMetrics.Interval previous = metrics.getPrevious();
+    QueryMetrics.Interval current = metrics.getCurrent();
+    long now = metrics.now();
+
+    JsonObject json = new JsonObject();
+    json.add("current", toJson(current, now));
+    json.add("previous", previous == null ? JsonNull.INSTANCE : toJson(previous, now));
+    json.addProperty("queueDepth", SharedCalendar.queryExecutor.getQueueDepth());
+    json.addProperty("activeQueries", SharedCalendar.queryExecutor.getActiveCount());
+
+    response.setContentType("application/json");
+    response.getWriter().println(json.toString());
+  }
+
+  private static JsonObject toJson(QueryMetrics.Interval interval, long now) {
+    JsonObject json = new JsonObject();
+    json.addProperty("elapsedSeconds",
+        interval.getElapsedNanos(now) / (double) TimeUnit.SECONDS.toNanos(1));
+    json.addProperty("requests", interval.getLatencies(QueryMetrics.Stage.TOTAL).getCount());
+    json.addProperty("throughputPerSecond", interval.getThroughput(now));
+    json.addProperty("rejected", interval.getRejected());
+    json.addProperty("rangesRead", interval.getRangesRead());
+    json.addProperty("rangesMerged", interval.getRangesMerged());
+
+    JsonObject latencies = new JsonObject();
+    for (QueryMetrics.Stage stage : QueryMetrics.Stage.values()) {
+      latencies.add(stage.name().toLowerCase(Locale.ROOT), toJson(interval.getLatencies(stage)));
+    }
+    json.add("latencyMicros", latencies);
+    return json;
+  }
+
+  private static JsonObject toJson(LatencyHistogram histogram) {
+    JsonObject json = new JsonObject();
+    json.addProperty("count", histogram.getCount());
+    json.addProperty("p50", histogram.getPercentileMicros(50));
+    json.addProperty("p90", histogram.getPercentileMicros(90));
+    json.addProperty("p99", histogram.getPercentileMicros(99));
+    json.addProperty("max", TimeUnit.NANOSECONDS.toMicros(histogram.getMax()));
+    return json;
+  }
+}
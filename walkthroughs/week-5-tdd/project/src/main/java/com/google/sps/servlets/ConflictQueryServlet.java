@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.ConflictSlot;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.json.CalendarJson;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Finds times for a meeting that not every required attendee can make. By default returns the
+ * times with the fewest conflicts. With the {@code quorum} parameter, returns every time that at
+ * least that many required attendees can make instead. Each time comes with the people who can't
+ * make it.
+ */
+@WebServlet("/query-conflicts")
+public class ConflictQueryServlet extends HttpServlet {
+  private static final Type CONFLICT_SLOTS = new TypeToken<List<ConflictSlot>>() {}.getType();
+
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = CalendarJson.gson.fromJson(
+          new JsonReader(request.getReader()), MeetingRequest.class);
+    } catch (JsonParseException e) {
+      meetingRequest = null;
+    }
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request.");
+      return;
+    }
+
+    List<ConflictSlot> slots;
+    String quorum = request.getParameter("quorum");
+    if (quorum == null) {
+      slots = findMeetingQuery.leastConflictSlots(SharedCalendar.schedule, meetingRequest);
+    } else {
+      try {
+        slots = findMeetingQuery.quorumSlots(
+            SharedCalendar.schedule, meetingRequest, Integer.parseInt(quorum));
+      } catch (IllegalArgumentException e) {
+        // Also covers NumberFormatException.
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+            "quorum must be a number of required attendees.");
+        return;
+      }
+    }
+
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    CalendarJson.gson.toJson(slots, CONFLICT_SLOTS, writer);
+    writer.flush();
+  }
+}
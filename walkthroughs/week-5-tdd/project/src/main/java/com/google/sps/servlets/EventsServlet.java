@@ -0,0 +1,126 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.Event;
+import com.google.sps.json.CalendarJson;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Changes the shared calendar. POST adds the event in the body and responds with its id, PUT
+ * replaces the event with the {@code id} parameter by the one in the body, and DELETE removes the
+ * event with the {@code id} parameter. Events have the same JSON form as in /get-events.
+ */
+@WebServlet("/events")
+public class EventsServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Event event = readEvent(request, response);
+    if (event == null) {
+      return;
+    }
+
+    int id;
+    try {
+      id = SharedCalendar.store.add(event);
+    } catch (IllegalArgumentException e) {
+      // Too large to log.
+      response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+      return;
+    }
+
+    response.setStatus(HttpServletResponse.SC_CREATED);
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginObject().name("id").value(id).endObject();
+    writer.flush();
+  }
+
+  @Override
+  public void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Integer id = readId(request, response);
+    if (id == null) {
+      return;
+    }
+    Event event = readEvent(request, response);
+    if (event == null) {
+      return;
+    }
+
+    boolean updated;
+    try {
+      updated = SharedCalendar.store.update(id, event);
+    } catch (IllegalArgumentException e) {
+      // Too large to log.
+      response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+      return;
+    }
+    if (!updated) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No event with id " + id + ".");
+      return;
+    }
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    Integer id = readId(request, response);
+    if (id == null) {
+      return;
+    }
+
+    if (!SharedCalendar.store.delete(id)) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No event with id " + id + ".");
+      return;
+    }
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+
+  // Returns the id parameter, or sends a 400 and returns null if it is missing or malformed.
+  private static Integer readId(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    String id = request.getParameter("id");
+    try {
+      return Integer.valueOf(id);
+    } catch (NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an integer id.");
+      return null;
+    }
+  }
+
+  // Returns the event in the body, or sends a 400 and returns null if it is not a valid event.
+  private static Event readEvent(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    Event event;
+    try {
+      event = CalendarJson.gson.fromJson(new JsonReader(request.getReader()), Event.class);
+    } catch (JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an event.");
+      return null;
+    }
+    if (event == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an event.");
+    }
+    return event;
+  }
+}
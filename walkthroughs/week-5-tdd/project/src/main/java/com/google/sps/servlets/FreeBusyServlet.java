@@ -0,0 +1,126 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.FreeBusy;
+import com.google.sps.Schedule;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Returns when each of the comma separated {@code attendees} is busy between the minutes
+ * {@code from} and {@code to}, without any details of their events:
+ * {@code {"from": 0, "to": 1440, "encoding": "rle", "busy": {"Amelia": [540, 30, 60, 90]}}}.
+ *
+ * <p>With the default {@code encoding=rle}, each attendee has the lengths of their free and busy
+ * runs, alternating and starting with a free one; see {@link FreeBusy#toRunLengths()}. With
+ * {@code encoding=bitmap}, each has a base64 string with one bit per minute; see
+ * {@link FreeBusy#toBitmap()}. Working hours count as busy outside of them.
+ */
+@WebServlet("/freebusy")
+public class FreeBusyServlet extends HttpServlet {
+  private static final int MAX_ATTENDEES = 1000;
+
+  private static final int MAX_DAYS = 366;
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Set<String> attendees = readAttendees(request.getParameter("attendees"));
+    if (attendees == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "attendees must list 1 to " + MAX_ATTENDEES + " people, separated by commas.");
+      return;
+    }
+
+    TimeRange window = readWindow(request.getParameter("from"), request.getParameter("to"));
+    if (window == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "from and to must be minutes, at most " + MAX_DAYS + " days apart.");
+      return;
+    }
+
+    String encoding = request.getParameter("encoding");
+    if (encoding == null) {
+      encoding = "rle";
+    }
+    if (!encoding.equals("rle") && !encoding.equals("bitmap")) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "encoding must be rle or bitmap.");
+      return;
+    }
+
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("from").value(window.start());
+    writer.name("to").value(window.end());
+    writer.name("encoding").value(encoding);
+    writer.name("busy").beginObject();
+    // Every attendee is read as of the same moment.
+    Schedule schedule = SharedCalendar.schedule.pin();
+    for (String attendee : attendees) {
+      FreeBusy freeBusy = FreeBusy.of(schedule, attendee, window);
+      writer.name(attendee);
+      if (encoding.equals("bitmap")) {
+        writer.value(Base64.getEncoder().encodeToString(freeBusy.toBitmap()));
+      } else {
+        writer.beginArray();
+        for (int runLength : freeBusy.toRunLengths()) {
+          writer.value(runLength);
+        }
+        writer.endArray();
+      }
+    }
+    writer.endObject();
+    writer.endObject();
+    writer.flush();
+  }
+
+  // Returns null if there are no attendees, or too many.
+  private static Set<String> readAttendees(String parameter) {
+    if (parameter == null) {
+      return null;
+    }
+    Set<String> attendees = new LinkedHashSet<>();
+    for (String attendee : parameter.split(",")) {
+      if (!attendee.trim().isEmpty()) {
+        attendees.add(attendee.trim());
+      }
+    }
+    return attendees.isEmpty() || attendees.size() > MAX_ATTENDEES ? null : attendees;
+  }
+
+  // Returns null if either end is not a number, or the window is empty or too long.
+  private static TimeRange readWindow(String from, String to) {
+    try {
+      int start = Integer.parseInt(from);
+      int end = Integer.parseInt(to);
+      if (start < 0 || end <= start || end - (long) start > MAX_DAYS * TimeRange.MINUTES_PER_DAY) {
+        return null;
+      }
+      return TimeRange.fromStartEnd(start, end, false);
+    } catch (NumberFormatException e) {
+      // Also covers a missing parameter.
+      return null;
+    }
+  }
+}
@@ -14,23 +14,95 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.sps.json.EventFeed;
 import java.io.IOException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Returns every event as JSON. The body is rendered once per version of the calendar, and clients
+ * that already have the current version get a 304 without a body.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    EventFeed.Rendering feed = SharedCalendar.eventFeed.get();
+    boolean gzipped = acceptsGzip(request.getHeader("Accept-Encoding"));
+    String etag = feed.getETag(gzipped);
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    response.setHeader("ETag", etag);
+    response.setHeader("Vary", "Accept-Encoding");
+    // Clients may keep the feed, but have to check that it is still current before using it.
+    response.setHeader("Cache-Control", "no-cache");
+
+    if (matches(request.getHeader("If-None-Match"), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    // Send the pre-rendered JSON back as the response
+    response.setContentType("application/json; charset=UTF-8");
+    if (gzipped) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    response.setContentLength(feed.getLength(gzipped));
+    feed.writeTo(response.getOutputStream(), gzipped);
+  }
+
+  // Returns whether an Accept-Encoding header allows gzip, e.g. "gzip, deflate" or "*;q=0.5".
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+
+    // An explicit gzip entry wins over a wildcard.
+    boolean wildcard = false;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim();
+      if (name.equalsIgnoreCase("gzip")) {
+        return !hasZeroQuality(parts);
+      }
+      if (name.equals("*")) {
+        wildcard = !hasZeroQuality(parts);
+      }
+    }
+    return wildcard;
+  }
+
+  private static boolean hasZeroQuality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim()) == 0;
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+    }
+    return false;
+  }
+
+  // Returns whether an If-None-Match header lists etag. This is the weak comparison that
+  // If-None-Match calls for, so W/ prefixes are ignored.
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
   }
 }
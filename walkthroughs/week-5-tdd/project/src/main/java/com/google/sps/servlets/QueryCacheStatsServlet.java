@@ -0,0 +1,45 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonObject;
+import com.google.sps.QueryCache;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/** Reports how well the /query result cache is doing, so that it can be sized. */
+@WebServlet("/query-cache-stats")
+public class QueryCacheStatsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    QueryCache cache = SharedCalendar.queryCache;
+    long hits = cache.getHits();
+    long misses = cache.getMisses();
+
+    JsonObject stats = new JsonObject();
+    stats.addProperty("hits", hits);
+    stats.addProperty("misses", misses);
+    stats.addProperty("evictions", cache.getEvictions());
+    stats.addProperty("size", cache.size());
+    stats.addProperty("capacity", cache.getCapacity());
+    stats.addProperty("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+
+    response.setContentType("application/json");
+    response.getWriter().println(stats.toString());
+  }
+}
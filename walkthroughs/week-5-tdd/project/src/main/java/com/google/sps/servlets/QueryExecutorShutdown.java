@@ -0,0 +1,31 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Stops the query and timeout threads when the app is undeployed, so that they don't outlive it.
+ */
+@WebListener
+public class QueryExecutorShutdown implements ServletContextListener {
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    SharedCalendar.queryExecutor.shutdown();
+    SharedCalendar.queryTimeouts.shutdownNow();
+  }
+}
@@ -14,38 +14,313 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryExecutor;
+import com.google.sps.QueryMetrics;
+import com.google.sps.SlotOrder;
 import com.google.sps.TimeRange;
-import com.google.gson.Gson;
+import com.google.sps.json.CalendarJson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
-import java.util.Arrays;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-@WebServlet("/query")
+/**
+ * Finds the times when everyone in the meeting request in the body is free. By default every free
+ * range is returned in order. The optional {@code order} parameter ranks them instead:
+ * {@code earliest}, {@code longest}, or {@code closest} to the minute given in {@code preferred}.
+ * The optional {@code limit} parameter returns only that many of them, and stops looking once
+ * they are found.
+ *
+ * <p>The request is read on the container thread, but the answer is found and written on a
+ * {@link QueryExecutor} thread, so slow queries can't hold up other requests. When too many
+ * queries are already waiting, or one waits longer than {@link #TIMEOUT_MILLIS}, the response is
+ * a 503 with a {@code Retry-After} header.
+ */
+@WebServlet(value = "/query", asyncSupported = true)
 public class QueryServlet extends HttpServlet {
+  private static final Type TIME_RANGES = new TypeToken<Collection<TimeRange>>() {}.getType();
+
+  // How long a query can take, including the wait for a thread, before it is given up on.
+  private static final long TIMEOUT_MILLIS = 10_000;
+
+  // How long a client that was turned away should wait before trying again.
+  private static final int RETRY_AFTER_SECONDS = 1;
+
+  // Measures the busy ranges that /query reads and merges. Keeps no other state between calls.
+  private final FindMeetingQuery findMeetingQuery =
+      new FindMeetingQuery(SharedCalendar.queryMetrics);
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
+    QueryMetrics metrics = SharedCalendar.queryMetrics;
+    long start = metrics.now();
+
+    // Convert the JSON to an instance of MeetingRequest, reading straight from the body.
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = CalendarJson.gson.fromJson(
+          new JsonReader(request.getReader()), MeetingRequest.class);
+    } catch (JsonParseException e) {
+      meetingRequest = null;
+    }
+    metrics.record(QueryMetrics.Stage.PARSE, metrics.now() - start);
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request.");
+      return;
+    }
+
+    // Ranked answers are not cached, since the point of a limit is to stop before all the slots
+    // are found. A null order means an unranked, cached answer.
+    SlotOrder order = null;
+    int limit = Integer.MAX_VALUE;
+    if (request.getParameter("order") != null || request.getParameter("limit") != null) {
+      order = readOrder(request, response);
+      if (order == null) {
+        return;
+      }
+      Integer value = readLimit(request, response);
+      if (value == null) {
+        return;
+      }
+      limit = value;
+    }
+
+    Query query = new Query(meetingRequest, order, limit, response, start);
+    if (!request.isAsyncSupported()) {
+      // Some filter in front of the servlet can't handle async requests, so answer right here.
+      query.answer();
+      return;
+    }
+
+    query.async = request.startAsync();
+    // The container's timeout would fire even while the answer is being written, so the query
+    // enforces its own instead, which gives up only if the answer isn't started yet.
+    query.async.setTimeout(0);
+    query.async.addListener(query);
+    query.timeout = SharedCalendar.queryTimeouts.schedule(
+        query::timeOut, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    if (!SharedCalendar.queryExecutor.submit(query::run)) {
+      query.reject("Too many queries are waiting, try again shortly.");
+    }
+  }
+
+  // One query being answered asynchronously. Exactly one of answering it and rejecting it sends
+  // the response and completes the request, whichever starts first.
+  private final class Query implements AsyncListener {
+    private final MeetingRequest meetingRequest;
+    private final SlotOrder order;
+    private final int limit;
+    private final HttpServletResponse response;
+    private final long start;
+    private final AtomicBoolean responded = new AtomicBoolean();
+
+    // Null when answering on the container thread.
+    private AsyncContext async = null;
+    // Rejects the query once it has taken too long. Null when answering on the container thread.
+    private volatile ScheduledFuture<?> timeout = null;
+
+    // Whether the executor thread started writing the answer. Only used by that thread.
+    private boolean writing = false;
+
+    Query(MeetingRequest meetingRequest, SlotOrder order, int limit,
+        HttpServletResponse response, long start) {
+      this.meetingRequest = meetingRequest;
+      this.order = order;
+      this.limit = limit;
+      this.response = response;
+      this.start = start;
+    }
+
+    // Runs on a QueryExecutor thread.
+    void run() {
+      if (responded.get()) {
+        // Timed out while waiting for the thread, so don't bother.
+        return;
+      }
+      boolean sent = false;
+      try {
+        sent = answer();
+      } catch (IOException | RuntimeException e) {
+        log("Failed to answer a query", e);
+        if (claim()) {
+          sendServerError();
+          sent = true;
+        } else {
+          // Either the answer was partly written, or the query was rejected in the meantime.
+          sent = writing;
+        }
+      }
+      if (sent) {
+        async.complete();
+      }
+    }
 
-    // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    // Finds and writes the answer. Returns false without writing it if the query was rejected in
+    // the meantime.
+    boolean answer() throws IOException {
+      QueryMetrics metrics = SharedCalendar.queryMetrics;
+      long computing = metrics.now();
+      Collection<TimeRange> answer = findSlots(meetingRequest, order, limit);
+      long computed = metrics.now();
+      metrics.record(QueryMetrics.Stage.COMPUTE, computed - computing);
+      if (!claim()) {
+        return false;
+      }
+      writing = true;
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+      // Write the times as JSON straight to the response
+      response.setContentType("application/json");
+      JsonWriter writer = new JsonWriter(response.getWriter());
+      CalendarJson.gson.toJson(answer, TIME_RANGES, writer);
+      writer.flush();
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+      long written = metrics.now();
+      metrics.record(QueryMetrics.Stage.SERIALIZE, written - computed);
+      metrics.record(QueryMetrics.Stage.TOTAL, written - start);
+      return true;
+    }
+
+    // Takes the right to send the response, and returns whether this call got it. Whoever gets it
+    // also completes the request.
+    private boolean claim() {
+      if (!responded.compareAndSet(false, true)) {
+        return false;
+      }
+      ScheduledFuture<?> pending = timeout;
+      if (pending != null) {
+        pending.cancel(false);
+      }
+      return true;
+    }
+
+    private void sendServerError() {
+      try {
+        response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+      } catch (IOException e) {
+        // The client is gone.
+      }
+    }
+
+    // Sends a 503 and completes the request, unless the answer is already being sent, in which
+    // case the thread sending it completes the request. Returns whether the 503 was sent.
+    boolean reject(String message) throws IOException {
+      if (!claim()) {
+        return false;
+      }
+      response.setIntHeader("Retry-After", RETRY_AFTER_SECONDS);
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message);
+      async.complete();
+      return true;
+    }
+
+    // Runs on a timeout thread once the query has taken too long. Does nothing if the answer is
+    // already being written, since the executor thread then completes the request.
+    void timeOut() {
+      try {
+        // Queries turned away by a full queue are counted by the executor.
+        if (reject("The query took too long, try again shortly.")) {
+          SharedCalendar.queryMetrics.recordRejected();
+        }
+      } catch (IOException e) {
+        // The client is gone.
+      }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      // The container's timeout is off, see timeOut.
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {}
+
+    @Override
+    public void onError(AsyncEvent event) {}
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {}
+  }
+
+  // Returns the slots for the request, in {@code order} and at most {@code limit} of them, or all
+  // of them from the cache if {@code order} is null.
+  private Collection<TimeRange> findSlots(MeetingRequest meetingRequest, SlotOrder order,
+      int limit) {
+    if (order == null) {
+      // Find the possible meeting times.
+      // Teams repeat the same requests, so answers are reused until one of the attendees' events
+      // changes.
+      return SharedCalendar.queryCache.get(meetingRequest,
+          uncached -> findMeetingQuery.query(SharedCalendar.schedule, uncached));
+    }
+
+    Iterator<TimeRange> slots =
+        findMeetingQuery.slots(SharedCalendar.schedule, meetingRequest, order);
+    List<TimeRange> answer = new ArrayList<>();
+    for (int i = 0; i < limit && slots.hasNext(); i++) {
+      answer.add(slots.next());
+    }
+    return answer;
+  }
+
+  // Returns the order parameter, or sends a 400 and returns null if it is not a known order.
+  private static SlotOrder readOrder(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    String order = request.getParameter("order");
+    if (order == null || order.equals("earliest")) {
+      return SlotOrder.EARLIEST;
+    }
+    if (order.equals("longest")) {
+      return SlotOrder.LONGEST;
+    }
+    if (order.equals("closest")) {
+      try {
+        return SlotOrder.closestTo(Integer.parseInt(request.getParameter("preferred")));
+      } catch (NumberFormatException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+            "order=closest needs the preferred time in minutes.");
+        return null;
+      }
+    }
+    response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+        "order must be earliest, longest or closest.");
+    return null;
+  }
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+  // Returns the limit parameter, or sends a 400 and returns null if it is not a positive integer.
+  // Without the parameter there is no limit.
+  private static Integer readLimit(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    String limit = request.getParameter("limit");
+    if (limit == null) {
+      return Integer.MAX_VALUE;
+    }
+    try {
+      int value = Integer.parseInt(limit);
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "limit must be a positive integer.");
+    return null;
   }
 }
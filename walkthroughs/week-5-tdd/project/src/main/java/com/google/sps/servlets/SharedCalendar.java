@@ -0,0 +1,165 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.AttendeeVersions;
+import com.google.sps.CalendarLog;
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.CalendarStore;
+import com.google.sps.Events;
+import com.google.sps.LayeredSchedule;
+import com.google.sps.QueryCache;
+import com.google.sps.QueryExecutor;
+import com.google.sps.QueryMetrics;
+import com.google.sps.WorkingHoursSchedule;
+import com.google.sps.json.EventFeed;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The calendar state that every servlet shares, so that all the endpoints see the same data.
+ */
+final class SharedCalendar {
+  private static final Logger logger = Logger.getLogger(SharedCalendar.class.getName());
+
+  // Big enough for the answers of every team that queries regularly.
+  private static final int QUERY_CACHE_CAPACITY = 10000;
+
+  private static final long METRICS_INTERVAL_SECONDS = 60;
+
+  // Queries are CPU bound, so more threads than cores would only make each of them slower.
+  private static final int QUERY_THREADS = Runtime.getRuntime().availableProcessors();
+
+  // Enough to absorb a burst, but short enough that a queued query still gets a timely answer.
+  private static final int QUERY_QUEUE_CAPACITY = 64 * QUERY_THREADS;
+
+  // System property with the path of a CalendarSnapshot to serve queries from.
+  private static final String SNAPSHOT_PROPERTY = "calendar.snapshot";
+
+  // System property with the directory of a CalendarLog that keeps the store across restarts.
+  private static final String LOG_PROPERTY = "calendar.log";
+
+  // Often enough that a restart replays at most a few minutes of changes.
+  private static final long COMPACTION_INTERVAL_MINUTES = 5;
+
+  static final AttendeeVersions versions = new AttendeeVersions();
+
+  // The calendar mapped from the snapshot file, or null if none is configured.
+  static final CalendarSnapshot snapshot = openSnapshot();
+
+  // The log of the store's changes, or null if none is configured.
+  static final CalendarLog log = openLog();
+
+  // With a log, starts out with what the log holds. Otherwise starts out with the sample events
+  // without a snapshot, or empty with one. Every change bumps the versions of the people involved.
+  static final CalendarStore store = log != null
+      ? new CalendarStore(versions, log)
+      : snapshot == null
+          ? CalendarStore.of(Arrays.asList(Events.events), versions)
+          : new CalendarStore(versions);
+
+  // Checkpoints the store into the log now and then, or null without a log.
+  static final ScheduledExecutorService compaction = startCompaction();
+
+  // What queries read: the snapshot and the store, plus the working hours set through
+  // /working-hours.
+  static final WorkingHoursSchedule schedule = new WorkingHoursSchedule(
+      snapshot == null ? store : new LayeredSchedule(snapshot, store), versions);
+
+  // What /get-events returns, kept up to date with the store.
+  static final EventFeed eventFeed = new EventFeed(store);
+
+  // Answers of FindMeetingQuery.query(Schedule, MeetingRequest) only.
+  static final QueryCache queryCache = new QueryCache(QUERY_CACHE_CAPACITY, versions);
+
+  // How /query is doing, reported by /calendar-metrics.
+  static final QueryMetrics queryMetrics = new QueryMetrics(METRICS_INTERVAL_SECONDS);
+
+  // Gives up on /query requests that have waited too long. Only turns them away, so one thread is
+  // plenty.
+  static final ScheduledExecutorService queryTimeouts = startQueryTimeouts();
+
+  // Where /query finds and writes its answers, so that they don't tie up the request threads.
+  static final QueryExecutor queryExecutor =
+      new QueryExecutor(QUERY_THREADS, QUERY_QUEUE_CAPACITY, queryMetrics);
+
+  private static CalendarSnapshot openSnapshot() {
+    String path = System.getProperty(SNAPSHOT_PROPERTY);
+    if (path == null) {
+      return null;
+    }
+    try {
+      return CalendarSnapshot.open(Paths.get(path));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open the calendar snapshot " + path, e);
+    }
+  }
+
+  private static ScheduledExecutorService startQueryTimeouts() {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "query-timeouts");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // Most queries are answered long before their timeout, so don't keep the cancelled ones.
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
+  private static CalendarLog openLog() {
+    String path = System.getProperty(LOG_PROPERTY);
+    if (path == null) {
+      return null;
+    }
+    try {
+      return CalendarLog.open(Paths.get(path));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open the calendar log " + path, e);
+    }
+  }
+
+  private static ScheduledExecutorService startCompaction() {
+    if (log == null) {
+      return null;
+    }
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "calendar-compaction");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(() -> {
+      // An exception escaping this would cancel every later round. The log still has every
+      // record after a failure, so the next round can just try again.
+      try {
+        store.compact();
+      } catch (IOException | RuntimeException e) {
+        logger.log(Level.WARNING, "Failed to compact the calendar log", e);
+      }
+    }, COMPACTION_INTERVAL_MINUTES, COMPACTION_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    return executor;
+  }
+
+  private SharedCalendar() {
+    // Disallow instances.
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.sps.TimeRange;
+import com.google.sps.WorkingHours;
+import com.google.sps.json.CalendarJson;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sets when the person in the {@code attendee} parameter can be booked. PUT takes a body like
+ * {@code {"start": 540, "end": 1020, "days": ["MONDAY", "TUESDAY"]}}, in minutes since the start
+ * of the day, where leaving out {@code days} means every day. DELETE makes them bookable at any
+ * time again.
+ */
+@WebServlet("/working-hours")
+public class WorkingHoursServlet extends HttpServlet {
+  /** The JSON form of a profile. */
+  private static final class Profile {
+    private Integer start;
+    private Integer end;
+    private List<DayOfWeek> days;
+  }
+
+  @Override
+  public void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String attendee = request.getParameter("attendee");
+    if (attendee == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an attendee.");
+      return;
+    }
+
+    WorkingHours hours;
+    try {
+      Profile profile =
+          CalendarJson.gson.fromJson(new JsonReader(request.getReader()), Profile.class);
+      hours = toWorkingHours(profile);
+    } catch (JsonParseException | IllegalArgumentException e) {
+      hours = null;
+    }
+    if (hours == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "Expected a start and end in minutes, and optionally the days of the week.");
+      return;
+    }
+
+    SharedCalendar.schedule.setWorkingHours(attendee, hours);
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    String attendee = request.getParameter("attendee");
+    if (attendee == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an attendee.");
+      return;
+    }
+
+    SharedCalendar.schedule.setWorkingHours(attendee, null);
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+
+  // Returns null if a field is missing or a day is not a day of the week.
+  private static WorkingHours toWorkingHours(Profile profile) {
+    if (profile == null || profile.start == null || profile.end == null) {
+      return null;
+    }
+
+    TimeRange hours = TimeRange.fromStartEnd(profile.start, profile.end, false);
+    if (profile.days == null) {
+      return WorkingHours.daily(hours);
+    }
+    if (profile.days.contains(null)) {
+      return null;
+    }
+    return WorkingHours.of(hours, profile.days);
+  }
+}
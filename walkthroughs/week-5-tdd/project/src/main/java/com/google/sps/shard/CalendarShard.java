@@ -0,0 +1,45 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.shard;
+
+import com.google.sps.Event;
+import com.google.sps.PackedRangeList;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Part of the calendar, holding the events of the attendees that a {@link ShardCoordinator}
+ * assigns to it. A shard may live in the same process, see {@link LocalShard}, or in another one,
+ * see {@link RemoteShard}.
+ */
+public interface CalendarShard {
+  /**
+   * Returns when any of {@code attendees} is busy inside {@code window}, merged into one list.
+   * Attendees the shard has never seen are free.
+   */
+  PackedRangeList getBusyTimes(Collection<String> attendees, TimeRange window) throws IOException;
+
+  /**
+   * Stores {@code event}.
+   */
+  void add(Event event) throws IOException;
+
+  /**
+   * Returns every event the shard holds, for moving some of them to a new shard.
+   */
+  List<Event> getEvents() throws IOException;
+}
@@ -0,0 +1,58 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.shard;
+
+import com.google.sps.AttendeeDictionary;
+import com.google.sps.CalendarStore;
+import com.google.sps.Event;
+import com.google.sps.PackedRangeList;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Shard that keeps its events in a {@link CalendarStore} in this process.
+ */
+public final class LocalShard implements CalendarShard {
+  private final CalendarStore store;
+
+  public LocalShard(CalendarStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public PackedRangeList getBusyTimes(Collection<String> attendees, TimeRange window) {
+    PackedRangeList busyTimes = new PackedRangeList();
+    for (String attendee : attendees) {
+      int id = AttendeeDictionary.lookup(attendee);
+      if (id != AttendeeDictionary.UNKNOWN) {
+        store.addBusyTimes(id, window, busyTimes);
+      }
+    }
+    busyTimes.merge();
+    return busyTimes;
+  }
+
+  @Override
+  public void add(Event event) {
+    store.add(event);
+  }
+
+  @Override
+  public List<Event> getEvents() {
+    return new ArrayList<>(store.getEvents().values());
+  }
+}
@@ -0,0 +1,156 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.shard;
+
+import com.google.sps.Event;
+import com.google.sps.PackedRangeList;
+import com.google.sps.TimeRange;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Shard served by a {@link ShardServer}, usually in another process. Connections are opened as
+ * needed and kept for the next call, so concurrent calls each get a connection of their own. Safe
+ * to use from multiple threads.
+ */
+public final class RemoteShard implements CalendarShard, Closeable {
+  // How long to wait for a shard before giving up on the call.
+  private static final int TIMEOUT_MILLIS = 10_000;
+
+  private final InetSocketAddress address;
+  private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+
+  public RemoteShard(String host, int port) {
+    this.address = new InetSocketAddress(host, port);
+  }
+
+  @Override
+  public PackedRangeList getBusyTimes(Collection<String> attendees, TimeRange window)
+      throws IOException {
+    return call(connection -> {
+      connection.out.writeByte(ShardProtocol.GET_BUSY_TIMES);
+      connection.out.writeInt(window.start());
+      connection.out.writeInt(window.duration());
+      connection.out.writeInt(attendees.size());
+      for (String attendee : attendees) {
+        connection.out.writeUTF(attendee);
+      }
+      connection.out.flush();
+
+      ShardProtocol.readStatus(connection.in);
+      int count = connection.in.readInt();
+      PackedRangeList busyTimes = new PackedRangeList(count);
+      for (int i = 0; i < count; i++) {
+        busyTimes.add(connection.in.readLong());
+      }
+      return busyTimes;
+    });
+  }
+
+  @Override
+  public void add(Event event) throws IOException {
+    call(connection -> {
+      connection.out.writeByte(ShardProtocol.ADD);
+      ShardProtocol.writeEvent(connection.out, event);
+      connection.out.flush();
+
+      ShardProtocol.readStatus(connection.in);
+      return null;
+    });
+  }
+
+  @Override
+  public List<Event> getEvents() throws IOException {
+    return call(connection -> {
+      connection.out.writeByte(ShardProtocol.GET_EVENTS);
+      connection.out.flush();
+
+      ShardProtocol.readStatus(connection.in);
+      int count = connection.in.readInt();
+      List<Event> events = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        events.add(ShardProtocol.readEvent(connection.in));
+      }
+      return events;
+    });
+  }
+
+  /**
+   * Closes the idle connections. Calls that are running keep theirs until they are done.
+   */
+  @Override
+  public void close() throws IOException {
+    Connection connection;
+    while ((connection = idle.poll()) != null) {
+      connection.socket.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RemoteShard " + address;
+  }
+
+  private interface Call<T> {
+    T run(Connection connection) throws IOException;
+  }
+
+  // Runs one request and response on an idle or new connection. A connection that failed, even
+  // if only the shard reported a failure, may have unread bytes left, so it is closed.
+  private <T> T call(Call<T> call) throws IOException {
+    Connection connection = idle.poll();
+    if (connection == null) {
+      connection = new Connection(address);
+    }
+    try {
+      T result = call.run(connection);
+      idle.add(connection);
+      return result;
+    } catch (IOException | RuntimeException e) {
+      connection.socket.close();
+      throw e;
+    }
+  }
+
+  private static final class Connection {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    Connection(InetSocketAddress address) throws IOException {
+      socket = new Socket();
+      try {
+        socket.connect(address, TIMEOUT_MILLIS);
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      } catch (IOException e) {
+        socket.close();
+        throw e;
+      }
+    }
+  }
+}
@@ -0,0 +1,279 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.shard;
+
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.PackedRangeList;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Splits the calendar across {@link CalendarShard}s by attendee. Every attendee is owned by one
+ * shard, picked by rendezvous hashing on the attendee and shard names, and every event is stored
+ * on the shards that own at least one of its attendees.
+ *
+ * <p>A query asks every shard that owns some of the required attendees for their busy times at
+ * once, and finds the gaps in what comes back, so each shard only reads the events of its own
+ * people. Shards can be added while queries and writes go on: adding one only moves the attendees
+ * that the new shard wins, about 1/N of them, and their events are copied over before it starts
+ * answering for them.
+ */
+public final class ShardCoordinator {
+  private final Executor executor;
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
+  // Writes hold the read lock, so that adding a shard can wait for the writes that didn't see it.
+  private final ReadWriteLock writeLock = new ReentrantReadWriteLock();
+
+  // The shards that answer queries.
+  private volatile ShardMap shards = new ShardMap(new String[0], new CalendarShard[0]);
+
+  // The shards after the one being added is ready, or null. Writes go to the owners in both.
+  private volatile ShardMap nextShards = null;
+
+  /**
+   * Creates a coordinator without shards, which asks shards for busy times on
+   * {@code executor}.
+   */
+  public ShardCoordinator(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Adds {@code shard} under {@code name}, which must be unique and should stay the same across
+   * restarts, since it decides which attendees the shard owns. Copies the events of the
+   * attendees it takes over from the other shards before it answers for them. Only one shard is
+   * added at a time.
+   */
+  public synchronized void addShard(String name, CalendarShard shard) throws IOException {
+    ShardMap current = shards;
+    if (Arrays.asList(current.names).contains(name)) {
+      throw new IllegalArgumentException("There already is a shard called " + name);
+    }
+
+    ShardMap next = current.with(name, shard);
+    writeLock.writeLock().lock();
+    try {
+      nextShards = next;
+    } finally {
+      writeLock.writeLock().unlock();
+    }
+
+    try {
+      // Every write from now on goes to the new shard too, so copying what is there is enough.
+      // An event that is written while this runs may get copied as well and be stored twice,
+      // which doesn't change anybody's busy times.
+      Set<Event> moved = new HashSet<>();
+      for (CalendarShard other : current.shards) {
+        for (Event event : other.getEvents()) {
+          if (next.owners(event.getAttendees()).contains(shard)) {
+            moved.add(event);
+          }
+        }
+      }
+      for (Event event : moved) {
+        shard.add(event);
+      }
+    } catch (IOException | RuntimeException e) {
+      nextShards = null;
+      throw e;
+    }
+
+    writeLock.writeLock().lock();
+    try {
+      shards = next;
+      nextShards = null;
+    } finally {
+      writeLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of shards that answer queries.
+   */
+  public int getShardCount() {
+    return shards.shards.length;
+  }
+
+  /**
+   * Returns the shard that owns {@code attendee}.
+   */
+  public CalendarShard ownerOf(String attendee) {
+    ShardMap current = shards.checkNotEmpty();
+    return current.shards[current.owner(attendee)];
+  }
+
+  /**
+   * Stores {@code event} on every shard that owns one of its attendees.
+   *
+   * @throws IllegalStateException if there are no shards yet
+   */
+  public void add(Event event) throws IOException {
+    writeLock.readLock().lock();
+    try {
+      Set<CalendarShard> owners = shards.checkNotEmpty().owners(event.getAttendees());
+      ShardMap next = nextShards;
+      if (next != null) {
+        owners.addAll(next.owners(event.getAttendees()));
+      }
+      for (CalendarShard owner : owners) {
+        owner.add(event);
+      }
+    } finally {
+      writeLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Same as {@link FindMeetingQuery#query(com.google.sps.Schedule, MeetingRequest)}, but with
+   * the busy times gathered from the shards that own the required attendees. The shards are asked
+   * in parallel, and the answer is ready when the slowest one has replied.
+   *
+   * @throws IllegalStateException if there are no shards yet
+   */
+  public Collection<TimeRange> query(MeetingRequest request) throws IOException {
+    ShardMap current = shards.checkNotEmpty();
+    TimeRange window = request.getWindow();
+
+    // Scatter: one task per shard with the attendees it owns, the last one on this thread.
+    List<List<String>> attendeesByShard = current.group(request.getAttendees());
+    List<FutureTask<PackedRangeList>> tasks = new ArrayList<>();
+    for (int i = 0; i < attendeesByShard.size(); i++) {
+      List<String> attendees = attendeesByShard.get(i);
+      if (attendees.isEmpty()) {
+        continue;
+      }
+      CalendarShard shard = current.shards[i];
+      tasks.add(new FutureTask<>(() -> shard.getBusyTimes(attendees, window)));
+    }
+    for (int i = 0; i < tasks.size() - 1; i++) {
+      executor.execute(tasks.get(i));
+    }
+    if (!tasks.isEmpty()) {
+      tasks.get(tasks.size() - 1).run();
+    }
+
+    // Gather: someone is busy whenever anyone on any shard is.
+    PackedRangeList busyTimes = new PackedRangeList();
+    for (FutureTask<PackedRangeList> task : tasks) {
+      busyTimes.addAll(get(task));
+    }
+    return findMeetingQuery.query(busyTimes, request);
+  }
+
+  private static PackedRangeList get(FutureTask<PackedRangeList> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a shard", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException("A shard failed", cause);
+    }
+  }
+
+  // An immutable list of shards with their names.
+  private static final class ShardMap {
+    private final String[] names;
+    private final CalendarShard[] shards;
+
+    ShardMap(String[] names, CalendarShard[] shards) {
+      this.names = names;
+      this.shards = shards;
+    }
+
+    ShardMap checkNotEmpty() {
+      if (shards.length == 0) {
+        throw new IllegalStateException("There are no shards");
+      }
+      return this;
+    }
+
+    ShardMap with(String name, CalendarShard shard) {
+      String[] newNames = Arrays.copyOf(names, names.length + 1);
+      CalendarShard[] newShards = Arrays.copyOf(shards, shards.length + 1);
+      newNames[names.length] = name;
+      newShards[shards.length] = shard;
+      return new ShardMap(newNames, newShards);
+    }
+
+    // Returns the index of the shard with the highest score for the attendee. Adding a shard
+    // only changes the owner of the attendees that the new shard scores highest for.
+    int owner(String attendee) {
+      int owner = 0;
+      long best = Long.MIN_VALUE;
+      for (int i = 0; i < names.length; i++) {
+        long score = score(attendee, names[i]);
+        if (score > best) {
+          best = score;
+          owner = i;
+        }
+      }
+      return owner;
+    }
+
+    Set<CalendarShard> owners(Collection<String> attendees) {
+      Set<CalendarShard> owners = new LinkedHashSet<>();
+      for (String attendee : attendees) {
+        owners.add(shards[owner(attendee)]);
+      }
+      return owners;
+    }
+
+    // Returns the attendees that each shard owns, in shard order.
+    List<List<String>> group(Collection<String> attendees) {
+      List<List<String>> groups = new ArrayList<>(shards.length);
+      for (int i = 0; i < shards.length; i++) {
+        groups.add(new ArrayList<>());
+      }
+      for (String attendee : attendees) {
+        groups.get(owner(attendee)).add(attendee);
+      }
+      return groups;
+    }
+
+    // Mixes both names into a well spread 64 bit number, with the finalizer of MurmurHash3.
+    private static long score(String attendee, String shard) {
+      long hash = attendee.hashCode() * 0x9E3779B97F4A7C15L + shard.hashCode();
+      hash ^= hash >>> 33;
+      hash *= 0xFF51AFD7ED558CCDL;
+      hash ^= hash >>> 33;
+      hash *= 0xC4CEB9FE1A85EC53L;
+      hash ^= hash >>> 33;
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.shard;
+
+import com.google.gson.JsonParseException;
+import com.google.sps.Event;
+import com.google.sps.json.CalendarJson;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The messages between a {@link RemoteShard} and a {@link ShardServer}. Every request starts with
+ * one of the operation bytes below, and every response with a status byte. Busy times travel as
+ * packed ranges and events as their JSON form, each prefixed by its length.
+ */
+final class ShardProtocol {
+  /** Window start and duration, attendee count and names; answered by packed ranges. */
+  static final byte GET_BUSY_TIMES = 1;
+  /** One event; answered by the status only. */
+  static final byte ADD = 2;
+  /** Nothing; answered by an event count and the events. */
+  static final byte GET_EVENTS = 3;
+
+  static final byte OK = 0;
+  /** Followed by a message. */
+  static final byte FAILED = 1;
+
+  // Anything larger is not an event but a broken stream.
+  private static final int MAX_EVENT_BYTES = 16 << 20;
+
+  private ShardProtocol() {
+    // Disallow instances.
+  }
+
+  static void writeEvent(DataOutputStream out, Event event) throws IOException {
+    byte[] json = CalendarJson.gson.toJson(event).getBytes(StandardCharsets.UTF_8);
+    out.writeInt(json.length);
+    out.write(json);
+  }
+
+  static Event readEvent(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > MAX_EVENT_BYTES) {
+      throw new IOException("Bad event length " + length);
+    }
+    byte[] json = new byte[length];
+    in.readFully(json);
+    try {
+      Event event =
+          CalendarJson.gson.fromJson(new String(json, StandardCharsets.UTF_8), Event.class);
+      if (event == null) {
+        throw new IOException("Expected an event");
+      }
+      return event;
+    } catch (JsonParseException e) {
+      throw new IOException("Bad event", e);
+    }
+  }
+
+  // Reads the status byte of a response, throwing with the shard's message if it failed.
+  static void readStatus(DataInputStream in) throws IOException {
+    byte status = in.readByte();
+    if (status == FAILED) {
+      throw new IOException("Shard failed: " + in.readUTF());
+    }
+    if (status != OK) {
+      throw new IOException("Bad status " + status);
+    }
+  }
+}
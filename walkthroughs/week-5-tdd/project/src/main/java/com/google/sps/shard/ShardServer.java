@@ -0,0 +1,176 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.shard;
+
+import com.google.sps.AttendeeVersions;
+import com.google.sps.CalendarStore;
+import com.google.sps.Event;
+import com.google.sps.PackedRangeList;
+import com.google.sps.TimeRange;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a {@link CalendarShard} to {@link RemoteShard}s over TCP, one thread per connection.
+ * Run {@link #main} to start a shard in a process of its own.
+ */
+public final class ShardServer implements Closeable {
+  private final CalendarShard shard;
+  private final ServerSocket serverSocket;
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+  private final ExecutorService threads = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "shard-connection");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Starts serving {@code shard} on {@code port} of the loopback address, or on any free port if
+   * {@code port} is 0.
+   */
+  public ShardServer(CalendarShard shard, int port) throws IOException {
+    this.shard = shard;
+    this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    threads.execute(this::accept);
+  }
+
+  /**
+   * Returns the port the shard is served on.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Stops taking connections and closes the open ones.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket connection : connections) {
+      connection.close();
+    }
+    threads.shutdown();
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket connection = serverSocket.accept();
+        connection.setTcpNoDelay(true);
+        connections.add(connection);
+        threads.execute(() -> serve(connection));
+      } catch (IOException e) {
+        // Closed, or the connection failed before it was set up.
+      }
+    }
+  }
+
+  private void serve(Socket connection) {
+    try (Socket socket = connection) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      while (true) {
+        byte operation;
+        try {
+          operation = in.readByte();
+        } catch (EOFException e) {
+          // The client is done with the connection.
+          return;
+        }
+        try {
+          handle(operation, in, out);
+        } catch (RuntimeException e) {
+          // Nothing has been written yet, since every operation reads the whole request and asks
+          // the shard before it answers.
+          out.writeByte(ShardProtocol.FAILED);
+          out.writeUTF(String.valueOf(e.getMessage()));
+        }
+        out.flush();
+      }
+    } catch (IOException e) {
+      // The connection broke, and the client will notice.
+    } finally {
+      connections.remove(connection);
+    }
+  }
+
+  private void handle(byte operation, DataInputStream in, DataOutputStream out)
+      throws IOException {
+    switch (operation) {
+      case ShardProtocol.GET_BUSY_TIMES:
+        TimeRange window = TimeRange.fromStartDuration(in.readInt(), in.readInt());
+        int count = in.readInt();
+        List<String> attendees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+          attendees.add(in.readUTF());
+        }
+        PackedRangeList busyTimes = shard.getBusyTimes(attendees, window);
+        out.writeByte(ShardProtocol.OK);
+        out.writeInt(busyTimes.size());
+        for (int i = 0; i < busyTimes.size(); i++) {
+          out.writeLong(busyTimes.get(i));
+        }
+        break;
+      case ShardProtocol.ADD:
+        Event event = ShardProtocol.readEvent(in);
+        shard.add(event);
+        out.writeByte(ShardProtocol.OK);
+        break;
+      case ShardProtocol.GET_EVENTS:
+        List<Event> events = shard.getEvents();
+        out.writeByte(ShardProtocol.OK);
+        out.writeInt(events.size());
+        for (Event stored : events) {
+          ShardProtocol.writeEvent(out, stored);
+        }
+        break;
+      default:
+        // The rest of the request can't be read, so the connection can't be used any more.
+        out.writeByte(ShardProtocol.FAILED);
+        out.writeUTF("Unknown operation " + operation);
+        out.flush();
+        throw new IOException("Unknown operation " + operation);
+    }
+  }
+
+  /**
+   * Serves an empty shard on the port in the first argument, or on any free port. Prints
+   * "Shard listening on port N" once it is ready, then runs until it is killed.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+    ShardServer server =
+        new ShardServer(new LocalShard(new CalendarStore(new AttendeeVersions())), port);
+    System.out.println("Shard listening on port " + server.getPort());
+    System.out.flush();
+    Thread.currentThread().join();
+  }
+}
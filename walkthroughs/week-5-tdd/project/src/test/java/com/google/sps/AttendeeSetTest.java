@@ -0,0 +1,87 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeSetTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  @Test
+  public void internIsStable() {
+    int id = AttendeeDictionary.intern(PERSON_A);
+
+    Assert.assertEquals(id, AttendeeDictionary.intern(PERSON_A));
+    Assert.assertEquals(id, AttendeeDictionary.lookup(PERSON_A));
+    Assert.assertEquals(PERSON_A, AttendeeDictionary.name(id));
+  }
+
+  @Test
+  public void lookupDoesNotIntern() {
+    String stranger = "Somebody who is never interned";
+    int size = AttendeeDictionary.size();
+
+    Assert.assertEquals(AttendeeDictionary.UNKNOWN, AttendeeDictionary.lookup(stranger));
+    Assert.assertEquals(0, AttendeeSet.lookup(Arrays.asList(stranger)).size());
+    Assert.assertEquals(size, AttendeeDictionary.size());
+  }
+
+  @Test
+  public void duplicatesAreRemoved() {
+    AttendeeSet set = AttendeeSet.intern(Arrays.asList(PERSON_B, PERSON_A, PERSON_B));
+
+    Assert.assertEquals(2, set.size());
+    Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_A, PERSON_B)), set);
+    Assert.assertTrue(set.contains(PERSON_A));
+    Assert.assertFalse(set.contains(PERSON_C));
+  }
+
+  @Test
+  public void overlaps() {
+    AttendeeSet ab = AttendeeSet.intern(Arrays.asList(PERSON_A, PERSON_B));
+    AttendeeSet bc = AttendeeSet.intern(Arrays.asList(PERSON_B, PERSON_C));
+    AttendeeSet c = AttendeeSet.intern(Arrays.asList(PERSON_C));
+
+    Assert.assertTrue(ab.overlaps(bc));
+    Assert.assertTrue(bc.overlaps(c));
+    Assert.assertFalse(ab.overlaps(c));
+    Assert.assertFalse(ab.overlaps(AttendeeSet.EMPTY));
+  }
+
+  @Test
+  public void overlapsWithMuchLargerSet() {
+    // Large enough that the smaller set is binary searched into the larger one.
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      people.add("Person " + i);
+    }
+    AttendeeSet everyone = AttendeeSet.intern(people);
+
+    Assert.assertTrue(everyone.overlaps(AttendeeSet.intern(Arrays.asList("Person 42"))));
+    Assert.assertTrue(AttendeeSet.intern(Arrays.asList("Person 99")).overlaps(everyone));
+    Assert.assertFalse(everyone.overlaps(AttendeeSet.intern(Arrays.asList(PERSON_A))));
+  }
+}
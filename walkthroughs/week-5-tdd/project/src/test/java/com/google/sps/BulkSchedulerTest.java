@@ -0,0 +1,196 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BulkSchedulerTest {
+  private static final String PERSON_A = "Bulk Person A";
+  private static final String PERSON_B = "Bulk Person B";
+  private static final String PERSON_C = "Bulk Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1030AM = TimeRange.getTimeInMinutes(10, 30);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private CalendarStore store;
+  private BulkScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    store = new CalendarStore(new AttendeeVersions());
+    scheduler = new BulkScheduler(store);
+  }
+
+  private static MeetingRequest request(int duration, TimeRange window, String... attendees) {
+    return new MeetingRequest(Arrays.asList(attendees), duration, window);
+  }
+
+  @Test
+  public void meetingsAvoidEventsAndEachOther() {
+    // Events  :       |--A--|
+    // Window  : |-----------------|
+    // Day     : |-1-|       |-2-|
+    TimeRange window = TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false);
+    store.add(new Event("Event 1", TimeRange.fromStartEnd(TIME_0930AM, TIME_1030AM, false),
+        Arrays.asList(PERSON_A)));
+
+    BulkScheduler.Result result = scheduler.schedule(Arrays.asList(
+        request(DURATION_30_MINUTES, window, PERSON_A, PERSON_B),
+        request(DURATION_30_MINUTES, window, PERSON_A)));
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        TimeRange.fromStartDuration(TIME_1030AM, DURATION_30_MINUTES)),
+        result.getAssignments());
+    Assert.assertEquals(Collections.emptyList(), result.getUnschedulable());
+  }
+
+  @Test
+  public void placedMeetingIsMovedToMakeRoom() {
+    // Request 0 only fits from 9:00 to 10:00, but request 1 is placed first, since it has more
+    // attendees, and takes 9:00. It has to move to 10:00 for request 0 to fit.
+    //
+    // Window 0: |-----|
+    // Window 1: |-----------|
+    // Day     : |--0--|--1--|
+    TimeRange early = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+    TimeRange morning = TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false);
+
+    BulkScheduler.Result result = scheduler.schedule(Arrays.asList(
+        request(DURATION_60_MINUTES, early, PERSON_A),
+        request(DURATION_60_MINUTES, morning, PERSON_A, PERSON_B)));
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+        TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES)),
+        result.getAssignments());
+    Assert.assertEquals(Collections.emptyList(), result.getUnschedulable());
+  }
+
+  @Test
+  public void requestsThatDoNotFitAreReported() {
+    // Two hour-long meetings for the same person in one hour, and one that is longer than its
+    // window.
+    TimeRange window = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+
+    BulkScheduler.Result result = scheduler.schedule(Arrays.asList(
+        request(DURATION_60_MINUTES, window, PERSON_C),
+        request(DURATION_60_MINUTES, window, PERSON_C),
+        request(DURATION_60_MINUTES + 1, window, PERSON_B)));
+
+    Assert.assertEquals(
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+        result.getAssignments().get(0));
+    Assert.assertEquals(Arrays.asList(1, 2), result.getUnschedulable());
+    Assert.assertNull(result.getAssignments().get(1));
+  }
+
+  @Test
+  public void unknownAttendeesStayOutOfTheDictionary() {
+    // Neither person has an event, but they still can't be in both meetings at once.
+    String stranger = "Bulk Stranger";
+    TimeRange window = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+    int dictionarySize = AttendeeDictionary.size();
+
+    BulkScheduler.Result result = scheduler.schedule(Arrays.asList(
+        request(DURATION_30_MINUTES, window, stranger),
+        request(DURATION_30_MINUTES, window, stranger, "Bulk Stranger 2")));
+
+    Assert.assertEquals(Collections.emptyList(), result.getUnschedulable());
+    Assert.assertFalse(result.getAssignments().get(0).overlaps(result.getAssignments().get(1)));
+    Assert.assertEquals(dictionarySize, AttendeeDictionary.size());
+    Assert.assertEquals(AttendeeDictionary.UNKNOWN, AttendeeDictionary.lookup(stranger));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void tooManyAttendeesOverAYearAreRejected() {
+    // 200 requests of 50 different people each, at both ends of the year, would need a year-long
+    // bitmap for each of the 10000 people.
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      String[] attendees = new String[50];
+      for (int j = 0; j < attendees.length; j++) {
+        attendees[j] = "Bulk Person " + (i * attendees.length + j);
+      }
+      int day = i % 2 == 0 ? 0 : 365;
+      requests.add(request(DURATION_30_MINUTES, TimeRange.fromDays(day, 1), attendees));
+    }
+
+    scheduler.schedule(requests);
+  }
+
+  @Test
+  public void manyRequestsNeverOverlap() {
+    Random random = new Random(7);
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      people.add("Bulk Person " + i);
+    }
+    for (int i = 0; i < 500; i++) {
+      int start = TimeRange.getTimeInMinutes(random.nextInt(5), 8 + random.nextInt(9), 0);
+      store.add(new Event("Event " + i, TimeRange.fromStartDuration(start, 60),
+          Arrays.asList(people.get(random.nextInt(people.size())))));
+    }
+
+    List<MeetingRequest> requests = new ArrayList<>();
+    TimeRange week = TimeRange.fromDays(0, 5);
+    for (int i = 0; i < 2000; i++) {
+      Collections.shuffle(people, random);
+      requests.add(new MeetingRequest(
+          new ArrayList<>(people.subList(0, 1 + random.nextInt(4))), 30, week));
+    }
+    BulkScheduler.Result result = scheduler.schedule(requests);
+
+    // Every placed meeting is inside its window, clear of its attendees' events, and clear of
+    // every other placed meeting with one of its attendees.
+    List<TimeRange> assignments = result.getAssignments();
+    for (int i = 0; i < requests.size(); i++) {
+      TimeRange when = assignments.get(i);
+      if (when == null) {
+        Assert.assertTrue(result.getUnschedulable().contains(i));
+        continue;
+      }
+      Assert.assertTrue(week.contains(when));
+      AttendeeSet attendees = requests.get(i).getAttendeeIds();
+      for (int j = 0; j < attendees.size(); j++) {
+        for (TimeRange busy : store.getBusyTimes(attendees.id(j), when)) {
+          Assert.assertFalse(busy.overlaps(when));
+        }
+      }
+      for (int k = i + 1; k < requests.size(); k++) {
+        if (assignments.get(k) != null && attendees.overlaps(requests.get(k).getAttendeeIds())) {
+          Assert.assertFalse(when.overlaps(assignments.get(k)));
+        }
+      }
+    }
+  }
+}
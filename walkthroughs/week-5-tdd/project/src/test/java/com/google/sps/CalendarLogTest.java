@@ -0,0 +1,301 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarLogTest {
+  private static final String PERSON_A = "Log Person A";
+  private static final String PERSON_B = "Log Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final TimeRange MORNING =
+      TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+  private static final TimeRange LATE_MORNING =
+      TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false);
+
+  private Path directory;
+  private CalendarLog log;
+  private CalendarStore store;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("log");
+    reopen();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    log.close();
+    for (Path file : files()) {
+      Files.delete(file);
+    }
+    Files.delete(directory);
+  }
+
+  // Simulates a restart.
+  private void reopen() throws IOException {
+    if (log != null) {
+      log.close();
+    }
+    log = CalendarLog.open(directory);
+    store = new CalendarStore(new AttendeeVersions(), log);
+  }
+
+  private List<Path> files() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path file : stream) {
+        files.add(file);
+      }
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  private Path lastSegment() throws IOException {
+    List<Path> files = files();
+    return files.get(files.size() - 1);
+  }
+
+  @Test
+  public void changesSurviveRestart() throws IOException {
+    Event first = new Event("Event 1", MORNING, Arrays.asList(PERSON_A));
+    Event second = new Event("Event 2", LATE_MORNING, Arrays.asList(PERSON_A, PERSON_B));
+    Event moved = new Event("\u00c9v\u00e9nement 2", MORNING, Arrays.asList(PERSON_B));
+    int firstId = store.add(first);
+    int secondId = store.add(second);
+    store.update(secondId, moved);
+    int deletedId = store.add(first);
+    store.delete(deletedId);
+
+    reopen();
+
+    Map<Integer, Event> expected = new HashMap<>();
+    expected.put(firstId, first);
+    expected.put(secondId, moved);
+    Assert.assertEquals(expected, new HashMap<>(store.getEvents()));
+    Assert.assertEquals(Arrays.asList(MORNING),
+        store.getBusyTimes(AttendeeDictionary.lookup(PERSON_B), TimeRange.WHOLE_DAY));
+    // Ids are never handed out twice, even after a restart.
+    Assert.assertTrue(store.add(first) > deletedId);
+  }
+
+  @Test
+  public void recurringEventsSurviveRestart() throws IOException {
+    Recurrence recurrence = Recurrence.weekly(DayOfWeek.MONDAY, DayOfWeek.FRIDAY)
+        .every(2).times(6).except(TIME_0900AM + 4 * TimeRange.MINUTES_PER_DAY);
+    Event event = new Event("Standup", MORNING, Arrays.asList(PERSON_A), recurrence);
+    int id = store.add(event);
+
+    reopen();
+
+    Assert.assertEquals(event, store.get(id));
+    Assert.assertEquals(recurrence, store.get(id).getRecurrence());
+  }
+
+  @Test
+  public void tornRecordIsDropped() throws IOException {
+    Event first = new Event("Event 1", MORNING, Arrays.asList(PERSON_A));
+    int firstId = store.add(first);
+    store.add(new Event("Event 2", LATE_MORNING, Arrays.asList(PERSON_A)));
+    log.close();
+
+    // A crash in the middle of writing the second record.
+    Path segment = lastSegment();
+    try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      file.truncate(file.size() - 5);
+    }
+    log = null;
+    reopen();
+
+    Assert.assertEquals(Collections.singletonMap(firstId, first), store.getEvents());
+
+    // The log goes on from the last good record.
+    Event third = new Event("Event 3", LATE_MORNING, Arrays.asList(PERSON_B));
+    int thirdId = store.add(third);
+    reopen();
+
+    Assert.assertEquals(first, store.get(firstId));
+    Assert.assertEquals(third, store.get(thirdId));
+    Assert.assertEquals(2, store.getEvents().size());
+  }
+
+  @Test
+  public void tornBatchIsDroppedWhole() throws IOException {
+    Event first = new Event("Event 1", MORNING, Arrays.asList(PERSON_A));
+    int firstId = store.add(first);
+    CalendarStore.Batch batch = store.newBatch();
+    batch.add(new Event("Event 2", LATE_MORNING, Arrays.asList(PERSON_A)));
+    batch.update(firstId, new Event("Event 1 moved", LATE_MORNING, Arrays.asList(PERSON_B)));
+    batch.commit();
+    log.close();
+
+    // A crash in the middle of writing the second change of the batch.
+    Path segment = lastSegment();
+    try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      file.truncate(file.size() - 5);
+    }
+    log = null;
+    reopen();
+
+    Assert.assertEquals(Collections.singletonMap(firstId, first), store.getEvents());
+
+    // The half batch is gone from the log too, so later batches don't complete it.
+    Event third = new Event("Event 3", LATE_MORNING, Arrays.asList(PERSON_B));
+    int thirdId = store.add(third);
+    reopen();
+
+    Map<Integer, Event> expected = new HashMap<>();
+    expected.put(firstId, first);
+    expected.put(thirdId, third);
+    Assert.assertEquals(expected, new HashMap<>(store.getEvents()));
+  }
+
+  @Test
+  public void eventTooLargeToLogIsRejected() throws IOException {
+    char[] title = new char[16 << 20];
+    Arrays.fill(title, 'x');
+    Event event = new Event(new String(title), MORNING, Arrays.asList(PERSON_A));
+    Event small = new Event("Event 1", MORNING, Arrays.asList(PERSON_A));
+    CalendarStore.Batch batch = store.newBatch();
+    batch.add(small);
+    batch.add(event);
+
+    try {
+      batch.commit();
+      Assert.fail("Expected the event to be rejected");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+    Assert.assertTrue(store.getEvents().isEmpty());
+
+    // The log is still usable.
+    int id = store.add(small);
+    reopen();
+
+    Assert.assertEquals(Collections.singletonMap(id, small), store.getEvents());
+  }
+
+  @Test
+  public void recordWithBadChecksumIsDropped() throws IOException {
+    Event first = new Event("Event 1", MORNING, Arrays.asList(PERSON_A));
+    int firstId = store.add(first);
+    store.add(new Event("Event 2", LATE_MORNING, Arrays.asList(PERSON_A)));
+    log.close();
+
+    // Flip a bit in the title of the second event.
+    Path segment = lastSegment();
+    byte[] bytes = Files.readAllBytes(segment);
+    bytes[bytes.length - 30] ^= 1;
+    Files.write(segment, bytes);
+    log = null;
+    reopen();
+
+    Assert.assertEquals(Collections.singletonMap(firstId, first), store.getEvents());
+  }
+
+  @Test
+  public void compactionReplacesTheRecords() throws IOException {
+    Event first = new Event("Event 1", MORNING, Arrays.asList(PERSON_A));
+    Event second = new Event("Event 2", LATE_MORNING, Arrays.asList(PERSON_B));
+    int firstId = store.add(first);
+    int deletedId = store.add(second);
+    store.delete(deletedId);
+    List<Path> before = files();
+
+    store.compact();
+
+    List<Path> after = files();
+    Assert.assertEquals(2, after.size());
+    Assert.assertEquals("checkpoint", after.get(0).getFileName().toString());
+    Assert.assertFalse(after.contains(before.get(0)));
+
+    // Changes after the checkpoint are replayed on top of it.
+    int secondId = store.add(second);
+    reopen();
+
+    Map<Integer, Event> expected = new HashMap<>();
+    expected.put(firstId, first);
+    expected.put(secondId, second);
+    Assert.assertEquals(expected, new HashMap<>(store.getEvents()));
+    Assert.assertTrue(store.add(first) > secondId);
+  }
+
+  @Test
+  public void compactingTwiceWithoutChangesKeepsOneSegment() throws IOException {
+    store.add(new Event("Event 1", MORNING, Arrays.asList(PERSON_A)));
+    store.compact();
+    List<Path> after = files();
+
+    store.compact();
+
+    Assert.assertEquals(after, files());
+  }
+
+  @Test
+  public void concurrentWritersShareForces() throws Exception {
+    int threads = 8;
+    int eventsPerThread = 200;
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread writer = new Thread(() -> {
+        for (int i = 0; i < eventsPerThread; i++) {
+          store.add(new Event("Event " + i, MORNING, Arrays.asList(PERSON_A)));
+        }
+      });
+      writers.add(writer);
+      writer.start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+
+    // Every add is durable when it returns, but most of them waited on another writer's force.
+    Assert.assertTrue(log.getForceCount() < threads * eventsPerThread);
+
+    reopen();
+
+    Assert.assertEquals(threads * eventsPerThread, store.getEvents().size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void storeWithoutLogCannotCompact() throws IOException {
+    new CalendarStore(new AttendeeVersions()).compact();
+  }
+}
@@ -0,0 +1,151 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarSnapshotTest {
+  private static final String PERSON_A = "Snapshot Person A";
+  private static final String PERSON_B = "Snapshot Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("snapshot");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (Path file : Files.newDirectoryStream(directory)) {
+      Files.delete(file);
+    }
+    Files.delete(directory);
+  }
+
+  private CalendarSnapshot writeAndOpen(List<Event> events) throws IOException {
+    Path path = directory.resolve("calendar.snapshot");
+    CalendarSnapshot.write(events, path);
+    return CalendarSnapshot.open(path);
+  }
+
+  @Test
+  public void eventsRoundTrip() throws IOException {
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("\u00c9v\u00e9nement 2",
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), Arrays.asList(PERSON_B)));
+
+    CalendarSnapshot snapshot = writeAndOpen(events);
+
+    Assert.assertEquals(2, snapshot.getEventCount());
+    Assert.assertEquals(events.get(0), snapshot.getEvent(0));
+    Assert.assertEquals(events.get(1), snapshot.getEvent(1));
+    Assert.assertEquals("\u00c9v\u00e9nement 2", snapshot.getEvent(1).getTitle());
+  }
+
+  @Test
+  public void busyTimesMatchTheStore() throws IOException {
+    Random random = new Random(3);
+    List<String> people = Arrays.asList("Snapshot Person 0", "Snapshot Person 1",
+        "Snapshot Person 2", "Snapshot Person 3");
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int start = random.nextInt(3 * TimeRange.MINUTES_PER_DAY);
+      List<String> attendees = new ArrayList<>(people);
+      Collections.shuffle(attendees, random);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, random.nextInt(300)),
+          attendees.subList(0, 1 + random.nextInt(3))));
+    }
+    CalendarSnapshot snapshot = writeAndOpen(events);
+    CalendarStore store = CalendarStore.of(events, new AttendeeVersions());
+
+    TimeRange window = TimeRange.fromStartEnd(TIME_1000AM, TimeRange.MINUTES_PER_DAY + 60, false);
+    for (String person : people) {
+      int id = AttendeeDictionary.lookup(person);
+      List<TimeRange> expected = new ArrayList<>(store.getBusyTimes(id, window));
+      List<TimeRange> actual = new ArrayList<>(snapshot.getBusyTimes(id, window));
+      // Ranges with the same start can be in any order.
+      Collections.sort(expected, TimeRange.ORDER_BY_START.thenComparing(TimeRange::duration));
+      Collections.sort(actual, TimeRange.ORDER_BY_START.thenComparing(TimeRange::duration));
+      Assert.assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void queriesRunOnTheSnapshotAndLaterChanges() throws IOException {
+    // Snapshot:   |--A--|
+    // Changes :         |--B--|
+    // Day     : |-------------------|
+    // Options : |-|           |-----|
+    CalendarSnapshot snapshot = writeAndOpen(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A))));
+    CalendarStore changes = new CalendarStore(new AttendeeVersions());
+    changes.add(new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+        Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30);
+
+    List<TimeRange> actual = new ArrayList<>(
+        new FindMeetingQuery().query(new LayeredSchedule(snapshot, changes), request));
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test(expected = IOException.class)
+  public void otherFilesAreRejected() throws IOException {
+    byte[] bytes = new byte[64];
+    byte[] text = "not a snapshot".getBytes(StandardCharsets.UTF_8);
+    System.arraycopy(text, 0, bytes, 0, text.length);
+
+    CalendarSnapshot.wrap(ByteBuffer.wrap(bytes));
+  }
+
+  @Test
+  public void writeReplacesTheFileWithoutLeftovers() throws IOException {
+    Path path = directory.resolve("calendar.snapshot");
+    CalendarSnapshot.write(Collections.emptyList(), path);
+    CalendarSnapshot.write(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, 30), Arrays.asList(PERSON_A))), path);
+
+    Assert.assertEquals(1, CalendarSnapshot.open(path).getEventCount());
+    Assert.assertEquals(1, Files.list(directory).count());
+  }
+}
@@ -0,0 +1,126 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private AttendeeVersions versions;
+  private CalendarStore store;
+
+  @Before
+  public void setUp() {
+    versions = new AttendeeVersions();
+    store = new CalendarStore(versions);
+  }
+
+  private List<TimeRange> busyTimes(String attendee, TimeRange window) {
+    return store.getBusyTimes(AttendeeDictionary.lookup(attendee), window);
+  }
+
+  @Test
+  public void addedEventsAreBusy() {
+    TimeRange when = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+    int id = store.add(new Event("Event 1", when, Arrays.asList(PERSON_A, PERSON_B)));
+
+    Assert.assertEquals(Arrays.asList(when), busyTimes(PERSON_A, TimeRange.WHOLE_DAY));
+    Assert.assertEquals(Arrays.asList(when), busyTimes(PERSON_B, TimeRange.WHOLE_DAY));
+    Assert.assertEquals("Event 1", store.get(id).getTitle());
+  }
+
+  @Test
+  public void longEventStartingBeforeTheWindowIsFound() {
+    // Events  : |-------------A-------------|  |-A-|
+    // Window  :               |-----|
+    TimeRange allDay = TimeRange.fromStartEnd(TIME_0800AM, TIME_0500PM, false);
+    store.add(new Event("Event 1", allDay, Arrays.asList(PERSON_A)));
+    store.add(new Event("Event 2", TimeRange.fromStartDuration(TIME_0500PM + 60, 30),
+        Arrays.asList(PERSON_A)));
+
+    TimeRange window = TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false);
+    Assert.assertEquals(Arrays.asList(allDay), busyTimes(PERSON_A, window));
+  }
+
+  @Test
+  public void updateMovesTheEvent() {
+    TimeRange before = TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false);
+    TimeRange after = TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false);
+    int id = store.add(new Event("Event 1", before, Arrays.asList(PERSON_A, PERSON_B)));
+
+    Assert.assertTrue(store.update(id, new Event("Event 1", after, Arrays.asList(PERSON_A))));
+
+    Assert.assertEquals(Arrays.asList(after), busyTimes(PERSON_A, TimeRange.WHOLE_DAY));
+    Assert.assertEquals(Collections.emptyList(), busyTimes(PERSON_B, TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void deleteFreesTheAttendees() {
+    TimeRange when = TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false);
+    int id = store.add(new Event("Event 1", when, Arrays.asList(PERSON_A)));
+
+    Assert.assertTrue(store.delete(id));
+
+    Assert.assertNull(store.get(id));
+    Assert.assertEquals(Collections.emptyList(), busyTimes(PERSON_A, TimeRange.WHOLE_DAY));
+    Assert.assertFalse(store.delete(id));
+    Assert.assertFalse(store.update(id, new Event("Event 1", when, Arrays.asList(PERSON_A))));
+  }
+
+  @Test
+  public void changesBumpTheVersionsOfEveryoneInvolved() {
+    TimeRange when = TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false);
+    int id = store.add(new Event("Event 1", when, Arrays.asList(PERSON_A)));
+    long versionA = versions.get(PERSON_A);
+    long versionB = versions.get(PERSON_B);
+
+    store.update(id, new Event("Event 1", when, Arrays.asList(PERSON_B)));
+
+    Assert.assertTrue(versions.get(PERSON_A) > versionA);
+    Assert.assertTrue(versions.get(PERSON_B) > versionB);
+  }
+
+  @Test
+  public void storeQueriesMatchEventQueries() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    store = CalendarStore.of(events, versions);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Amelia", "Logan"), 30);
+    request.addOptionalAttendee("Emma");
+
+    Assert.assertEquals(query.query(events, request), query.query(store, request));
+    Assert.assertEquals(query.queryWithOptionalAttendees(events, request),
+        query.queryWithOptionalAttendees(store, request));
+  }
+}
@@ -0,0 +1,170 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarVersionTest {
+  private static final String PERSON_A = "Versioned Person A";
+  private static final String PERSON_B = "Versioned Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  private static final TimeRange NINE_AM =
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR);
+  private static final TimeRange TEN_AM =
+      TimeRange.fromStartDuration(TIME_1000AM, DURATION_1_HOUR);
+
+  private CalendarStore store;
+
+  @Before
+  public void setUp() {
+    store = new CalendarStore(new AttendeeVersions());
+  }
+
+  @Test
+  public void pinnedVersionIgnoresLaterChanges() {
+    int id = store.add(new Event("Event 1", NINE_AM, Arrays.asList(PERSON_A)));
+    CalendarVersion pinned = store.pin();
+
+    store.update(id, new Event("Event 1", TEN_AM, Arrays.asList(PERSON_A)));
+    store.add(new Event("Event 2", NINE_AM, Arrays.asList(PERSON_B)));
+
+    Assert.assertEquals(Arrays.asList(NINE_AM), busyTimes(pinned, PERSON_A));
+    Assert.assertEquals(Collections.emptyList(), busyTimes(pinned, PERSON_B));
+    Assert.assertEquals(1, pinned.getEvents().size());
+    Assert.assertEquals(Arrays.asList(TEN_AM), busyTimes(store, PERSON_A));
+    Assert.assertEquals(Arrays.asList(NINE_AM), busyTimes(store, PERSON_B));
+  }
+
+  @Test
+  public void batchIsPublishedAsOneVersion() {
+    int moved = store.add(new Event("Event 1", NINE_AM, Arrays.asList(PERSON_A)));
+    long before = store.getVersion();
+
+    CalendarStore.Batch batch = store.newBatch();
+    int added = batch.add(new Event("Event 2", NINE_AM, Arrays.asList(PERSON_B)));
+    batch.update(moved, new Event("Event 1", TEN_AM, Arrays.asList(PERSON_A)));
+
+    // Nothing is visible before the commit.
+    Assert.assertNull(store.get(added));
+    Assert.assertEquals(Arrays.asList(NINE_AM), busyTimes(store, PERSON_A));
+
+    CalendarVersion version = batch.commit();
+
+    Assert.assertEquals(before + 1, version.getVersion());
+    Assert.assertSame(version, store.pin());
+    Assert.assertEquals(Arrays.asList(TEN_AM), busyTimes(store, PERSON_A));
+    Assert.assertEquals(Arrays.asList(NINE_AM), busyTimes(store, PERSON_B));
+  }
+
+  @Test
+  public void batchSkipsChangesToMissingEvents() {
+    int id = store.add(new Event("Event 1", NINE_AM, Arrays.asList(PERSON_A)));
+    store.delete(id);
+    long before = store.getVersion();
+
+    CalendarStore.Batch batch = store.newBatch();
+    batch.update(id, new Event("Event 1", TEN_AM, Arrays.asList(PERSON_A)));
+    batch.delete(id);
+
+    Assert.assertEquals(before, batch.commit().getVersion());
+    Assert.assertEquals(Collections.emptyList(), busyTimes(store, PERSON_A));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void batchCanOnlyBeCommittedOnce() {
+    CalendarStore.Batch batch = store.newBatch();
+    batch.commit();
+    batch.commit();
+  }
+
+  @Test
+  public void everyVersionKeepsItsOwnEvents() {
+    // Make random changes, keeping every version and what it should hold, then check that all of
+    // them still read back as they were.
+    Random random = new Random(1);
+    String[] attendees = new String[20];
+    for (int i = 0; i < attendees.length; i++) {
+      attendees[i] = "Versioned Person " + i;
+    }
+    Map<Integer, Event> events = new HashMap<>();
+    List<CalendarVersion> versions = new ArrayList<>();
+    List<Map<Integer, Event>> expected = new ArrayList<>();
+    for (int step = 0; step < 2000; step++) {
+      List<Integer> ids = new ArrayList<>(events.keySet());
+      int change = random.nextInt(10);
+      if (ids.isEmpty() || change < 5) {
+        Event event = randomEvent(random, attendees);
+        events.put(store.add(event), event);
+      } else if (change < 8) {
+        int id = ids.get(random.nextInt(ids.size()));
+        Event event = randomEvent(random, attendees);
+        Assert.assertTrue(store.update(id, event));
+        events.put(id, event);
+      } else {
+        int id = ids.get(random.nextInt(ids.size()));
+        Assert.assertTrue(store.delete(id));
+        events.remove(id);
+      }
+      if (step % 100 == 0) {
+        versions.add(store.pin());
+        expected.add(new HashMap<>(events));
+      }
+    }
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    for (int i = 0; i < versions.size(); i++) {
+      CalendarVersion version = versions.get(i);
+      Assert.assertEquals(expected.get(i), new HashMap<>(version.getEvents()));
+      for (int j = 0; j < 10; j++) {
+        TimeRange window = TimeRange.fromStartDuration(random.nextInt(3000), random.nextInt(600));
+        MeetingRequest request = new MeetingRequest(
+            Arrays.asList(attendees[random.nextInt(attendees.length)]), 30, window);
+        Assert.assertEquals(query.query(expected.get(i).values(), request),
+            query.query(version, request));
+      }
+    }
+  }
+
+  private static Event randomEvent(Random random, String[] attendees) {
+    List<String> people = new ArrayList<>();
+    for (int i = 1 + random.nextInt(3); i > 0; i--) {
+      people.add(attendees[random.nextInt(attendees.length)]);
+    }
+    TimeRange when = TimeRange.fromStartDuration(random.nextInt(3000), random.nextInt(240));
+    return new Event("Event", when, people);
+  }
+
+  private static List<TimeRange> busyTimes(Schedule schedule, String attendee) {
+    return schedule.getBusyTimes(AttendeeDictionary.lookup(attendee), TimeRange.WHOLE_DAY);
+  }
+}
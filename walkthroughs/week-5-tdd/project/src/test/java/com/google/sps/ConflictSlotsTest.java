@@ -0,0 +1,200 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ConflictSlotsTest {
+  private static final String PERSON_A = "Conflict Person A";
+  private static final String PERSON_B = "Conflict Person B";
+  private static final String PERSON_C = "Conflict Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private CalendarStore store;
+  private FindMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    store = new CalendarStore(new AttendeeVersions());
+    query = new FindMeetingQuery();
+  }
+
+  private void addEvent(int start, int end, String... attendees) {
+    store.add(new Event("Event", TimeRange.fromStartEnd(start, end, false),
+        Arrays.asList(attendees)));
+  }
+
+  @Test
+  public void fullyBookedAttendeeIsReported() {
+    // Events  : |-----------------A-----------------|
+    //                   |--B--|
+    // Day     : |-----------------------------------|
+    // Options : |-------|     |---------------------|  without A
+    addEvent(TimeRange.START_OF_DAY, TimeRange.END_OF_DAY + 1, PERSON_A);
+    addEvent(TIME_0900AM, TIME_1000AM, PERSON_B);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Assert.assertEquals(Collections.emptyList(), query.query(store, request));
+
+    List<ConflictSlot> expected = Arrays.asList(
+        new ConflictSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false), 1,
+            Arrays.asList(PERSON_A)),
+        new ConflictSlot(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true), 1,
+            Arrays.asList(PERSON_A)));
+    Assert.assertEquals(expected, query.leastConflictSlots(store, request));
+  }
+
+  @Test
+  public void sameAsQueryWhenEveryoneCanMakeIt() {
+    addEvent(TIME_0900AM, TIME_1000AM, PERSON_A);
+    addEvent(TIME_1000AM + 15, TIME_1100AM, PERSON_B);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    List<TimeRange> expected = new ArrayList<>(query.query(store, request));
+    List<TimeRange> actual = new ArrayList<>();
+    for (ConflictSlot slot : query.leastConflictSlots(store, request)) {
+      Assert.assertEquals(Collections.emptyList(), slot.getConflicts());
+      actual.add(slot.getWhen());
+    }
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void quorumAllowsOneMissing() {
+    // Events  :       |--A--|
+    //                       |--B--|
+    //                 |-----C-----|
+    // Window  : |-----------------------|
+    // Options : |-----|           |-----|
+    TimeRange window = TimeRange.fromStartEnd(TIME_0900AM - 60, TIME_1100AM + 60, false);
+    addEvent(TIME_0900AM, TIME_1000AM, PERSON_A);
+    addEvent(TIME_1000AM, TIME_1100AM, PERSON_B);
+    addEvent(TIME_0900AM, TIME_1100AM, PERSON_C);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B, PERSON_C),
+        DURATION_60_MINUTES, window);
+
+    List<ConflictSlot> expected = Arrays.asList(
+        new ConflictSlot(TimeRange.fromStartEnd(window.start(), TIME_0900AM, false), 3,
+            Collections.emptyList()),
+        new ConflictSlot(TimeRange.fromStartEnd(TIME_1100AM, window.end(), false), 3,
+            Collections.emptyList()));
+    Assert.assertEquals(expected, query.quorumSlots(store, request, 3));
+    Assert.assertEquals(expected, query.quorumSlots(store, request, 2));
+
+    // Starts from 8:01 to 9:00 miss A and C, from 9:01 to 9:59 miss everyone, and from 10:00 to
+    // 10:59 miss B and C.
+    List<ConflictSlot> onlyOne = query.quorumSlots(store, request, 1);
+    Assert.assertEquals(4, onlyOne.size());
+    Assert.assertEquals(Arrays.asList(PERSON_A, PERSON_C), onlyOne.get(1).getConflicts());
+    Assert.assertEquals(1, onlyOne.get(1).getAvailable());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void quorumLargerThanTheMeeting() {
+    query.quorumSlots(store, new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES), 2);
+  }
+
+  @Test
+  public void hugeWindowCostsOnlyItsBusyRanges() {
+    // Events  :     |--A--|
+    // Window  : |------------------ ... about 1900 years ... ------------------|
+    // Options : |---|     |---------------------------------------------------|
+    int windowLength = 1_000_000_000;
+    addEvent(TIME_0900AM, TIME_1000AM, PERSON_A);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES,
+        TimeRange.fromStartDuration(0, windowLength));
+
+    List<ConflictSlot> expected = Arrays.asList(
+        new ConflictSlot(TimeRange.fromStartEnd(0, TIME_0900AM, false), 1,
+            Collections.emptyList()),
+        new ConflictSlot(TimeRange.fromStartDuration(TIME_1000AM, windowLength - TIME_1000AM), 1,
+            Collections.emptyList()));
+    Assert.assertEquals(expected, query.leastConflictSlots(store, request));
+  }
+
+  @Test
+  public void matchesCountingEveryStart() {
+    Random random = new Random(11);
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      people.add("Conflict Person " + i);
+    }
+    for (int i = 0; i < 60; i++) {
+      int start = random.nextInt(TimeRange.MINUTES_PER_DAY);
+      addEvent(start, Math.min(start + 1 + random.nextInt(240), TimeRange.MINUTES_PER_DAY),
+          people.get(random.nextInt(people.size())));
+    }
+    MeetingRequest request = new MeetingRequest(people, DURATION_60_MINUTES);
+
+    int fewest = Integer.MAX_VALUE;
+    for (int t = 0; t + DURATION_60_MINUTES <= TimeRange.MINUTES_PER_DAY; t++) {
+      fewest = Math.min(fewest, conflictsAt(people, t).size());
+    }
+
+    int covered = 0;
+    for (ConflictSlot slot : query.quorumSlots(store, request, people.size() - fewest)) {
+      for (int t = slot.getWhen().start(); t + DURATION_60_MINUTES <= slot.getWhen().end(); t++) {
+        Assert.assertEquals(conflictsAt(people, t), slot.getConflicts());
+        covered++;
+      }
+    }
+    int expectedCovered = 0;
+    for (int t = 0; t + DURATION_60_MINUTES <= TimeRange.MINUTES_PER_DAY; t++) {
+      if (conflictsAt(people, t).size() == fewest) {
+        expectedCovered++;
+      }
+    }
+    Assert.assertEquals(expectedCovered, covered);
+    Assert.assertEquals(query.quorumSlots(store, request, people.size() - fewest),
+        query.leastConflictSlots(store, request));
+  }
+
+  // Returns who can't make a meeting starting at t, sorted.
+  private List<String> conflictsAt(List<String> people, int t) {
+    TimeRange meeting = TimeRange.fromStartDuration(t, DURATION_60_MINUTES);
+    List<String> conflicts = new ArrayList<>();
+    for (String person : people) {
+      int id = AttendeeDictionary.lookup(person);
+      for (TimeRange busy : store.getBusyTimes(id, meeting)) {
+        if (busy.overlaps(meeting)) {
+          conflicts.add(person);
+          break;
+        }
+      }
+    }
+    Collections.sort(conflicts);
+    return conflicts;
+  }
+}
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import org.junit.Assert;
 import org.junit.Before;
@@ -34,6 +35,7 @@ public final class FindMeetingQueryTest {
   // Some people that we can use in our tests.
   private static final String PERSON_A = "Person A";
   private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
 
   // All dates are the first day of the year 2020.
   private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
@@ -45,6 +47,7 @@ public final class FindMeetingQueryTest {
   private static final int TIME_1000PM = TimeRange.getTimeInMinutes(20, 00);
 
   private static final int DURATION_1_MINUTE = 1;
+  private static final int DURATION_15_MINUTES = 15;
   private static final int DURATION_30_MINUTES = 30;
   private static final int DURATION_48_MINUTES = 48;
   private static final int DURATION_60_MINUTES = 60;
@@ -386,5 +389,346 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void eventsInAnyOrder() {
+    // The events are not sorted by start time and one of them is nested inside another. The
+    // results should still come back merged and in order.
+    //
+    // Events  :       |------A------|
+    //             |--B--|  |-A-|
+    // Day     : |---------------------|
+    // Options : |-|                 |-|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_2_HOUR),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0800AM, DURATION_90_MINUTES),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeWithAllDayEventIsIgnored() {
+    // Based on everyAttendeeIsConsidered, but C is optional and busy all day. Nobody optional can
+    // make it, so the mandatory options are returned.
+    //
+    // Events  :       |--A--|     |--B--|
+    //           |--------------C--------------|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeIsConsidered() {
+    // Based on everyAttendeeIsConsidered, but optional C is busy between A and B's events.
+    //
+    // Events  :       |--A--|     |--B--|
+    //                       |--C--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|                 |--2--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeIgnoredWhenThereIsNotEnoughRoom() {
+    // Based on justEnoughRoom, optional B is busy for part of the only option.
+    //
+    // Events  : |--A--|     |----A----|
+    //                 |-B-|
+    // Day     : |---------------------|
+    // Options :       |-----|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, DURATION_15_MINUTES),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void onlyOptionalAttendeesWithGaps() {
+    // No mandatory attendees, the gaps in both optional attendees' schedules are returned.
+    //
+    // Events  :       |--A--|     |--B--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void onlyOptionalAttendeesWithNoGaps() {
+    // No mandatory attendees and both optional attendees are busy all day.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected = Arrays.asList();
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void mostOptionalAttendeesAreChosen() {
+    // No slot works for both optional attendees, so the slots where one of them can come are
+    // returned: C can come while B is busy, and B can come while C is busy. Meetings that would
+    // straddle 10:00 miss both of them.
+    //
+    // Events  : |--A--|
+    //                 |-B-||-B-|
+    //                           |------C------|
+    // Day     : |-----------------------------|
+    // Options :       |----1---||------2------|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 4", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void searchAcrossSeveralDays() {
+    // A three day window where A is busy for most of every day. Only the free time inside the
+    // window is returned, and free time that runs past midnight is one option.
+    //
+    // Events  : |-----A---|   |----A----|  |-----A-----|
+    // Window  : |---day 1---|---day 2---|---day 3---|
+    // Options :           |---|
+    int day1 = 100;
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(day1, 0, 0),
+            TimeRange.getTimeInMinutes(day1, 22, 0), false), Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(day1 + 1, 2, 0),
+            TimeRange.getTimeInMinutes(day1 + 1, 23, 0), false), Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(day1 + 2, 1, 0),
+            TimeRange.getTimeInMinutes(day1 + 3, 0, 0), false), Arrays.asList(PERSON_A)),
+        new Event("Event 4", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(
+        Arrays.asList(PERSON_A), DURATION_2_HOUR + DURATION_1_HOUR, TimeRange.fromDays(day1, 3));
+
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(day1, 22, 0),
+            TimeRange.getTimeInMinutes(day1 + 1, 2, 0), false));
+    Assert.assertEquals(expected, query.query(events, request));
+    Assert.assertEquals(expected, query.query(new EventIndex(events), request));
+  }
+
+  @Test
+  public void noOptionsForLongerThanTheWindow() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_2_HOUR,
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_90_MINUTES));
+
+    Collection<TimeRange> actual = query.query(NO_EVENTS, request);
+    Collection<TimeRange> expected = Arrays.asList();
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  private static List<TimeRange> toList(Iterator<TimeRange> slots) {
+    List<TimeRange> list = new ArrayList<>();
+    while (slots.hasNext()) {
+      list.add(slots.next());
+    }
+    return list;
+  }
+
+  @Test
+  public void earliestSlotsMatchQueryAcrossDays() {
+    // Free time can run through several whole days before it ends.
+    //
+    // Events  : |-A-|                               |-A-|
+    // Window  : |---day 1---|---day 2---|---day 3---|---day 4---|
+    // Options :     |-------------------------------|   |-------|
+    int day1 = 10;
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(day1, 0, 0),
+            DURATION_60_MINUTES), Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(
+            TimeRange.getTimeInMinutes(day1 + 3, 0, 0), DURATION_60_MINUTES),
+            Arrays.asList(PERSON_A)));
+    EventIndex index = new EventIndex(events);
+
+    MeetingRequest request = new MeetingRequest(
+        Arrays.asList(PERSON_A), DURATION_30_MINUTES, TimeRange.fromDays(day1, 4));
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(day1, 1, 0),
+            TimeRange.getTimeInMinutes(day1 + 3, 0, 0), false),
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(day1 + 3, 1, 0),
+            TimeRange.getTimeInMinutes(day1 + 4, 0, 0), false));
+    Assert.assertEquals(expected, query.query(events, request));
+    Assert.assertEquals(expected, toList(query.slots(index, request, SlotOrder.EARLIEST)));
+  }
+
+  @Test
+  public void earliestSlotsOnlyScanWhatIsNeeded() {
+    // A is busy at noon every day of the year, so the first slot is known after the first day.
+    List<Event> events = new ArrayList<>();
+    for (int day = 0; day < 365; day++) {
+      events.add(new Event("Lunch", TimeRange.fromStartDuration(
+          TimeRange.getTimeInMinutes(day, 12, 0), DURATION_60_MINUTES), Arrays.asList(PERSON_A)));
+    }
+    EventIndex index = new EventIndex(events);
+    int[] lookups = new int[1];
+    Schedule countingSchedule = new Schedule() {
+      @Override
+      public List<TimeRange> getBusyTimes(int attendeeId, TimeRange window) {
+        lookups[0]++;
+        return index.getBusyTimes(attendeeId, window);
+      }
+
+      @Override
+      public void addBusyTimes(int attendeeId, TimeRange window, PackedRangeList busyTimes) {
+        lookups[0]++;
+        index.addBusyTimes(attendeeId, window, busyTimes);
+      }
+    };
+
+    MeetingRequest request = new MeetingRequest(
+        Arrays.asList(PERSON_A), DURATION_60_MINUTES, TimeRange.fromDays(0, 365));
+    Iterator<TimeRange> slots = query.slots(countingSchedule, request, SlotOrder.EARLIEST);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(0, TimeRange.getTimeInMinutes(12, 0), false),
+        slots.next());
+    Assert.assertEquals(1, lookups[0]);
+  }
+
+  @Test
+  public void longestSlotsFirst() {
+    // Events  :       |--A--|     |--A--|
+    // Day     : |-----------------------------|
+    // Options : |--2--|     |-3-| |     |--1--|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false));
+    Assert.assertEquals(expected,
+        toList(query.slots(new EventIndex(events), request, SlotOrder.LONGEST)));
+  }
+
+  @Test
+  public void closestSlotsFirst() {
+    // The meeting can start at 9:00 at the latest before A's event, and at 10:00 after it, so
+    // 9:00 is closer to 9:15.
+    //
+    // Events  :       |--A--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--------2--------|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    int preferred = TIME_0900AM + 15;
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0930AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    Assert.assertEquals(expected,
+        toList(query.slots(new EventIndex(events), request, SlotOrder.closestTo(preferred))));
+  }
+}
@@ -0,0 +1,148 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class FreeBusyTest {
+  private static final String PERSON_A = "Free Busy Person A";
+  private static final String PERSON_B = "Free Busy Person B";
+  private static final String NOBODY = "Free Busy Nobody";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  // 8:00 to 11:00.
+  private static final TimeRange WINDOW = TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false);
+
+  private CalendarStore store;
+
+  @Before
+  public void setUp() {
+    store = new CalendarStore(new AttendeeVersions());
+  }
+
+  @Test
+  public void runLengthsAlternateFreeAndBusy() {
+    // Events  :       |-A-|   |--A--|
+    //                 |-B-|
+    // Day     : |------------------------|
+    //           8:00  8:30    9:30       11:00
+    store.add(new Event("Event 1", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B)));
+    store.add(new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM + 30, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A)));
+
+    FreeBusy freeBusy = FreeBusy.of(store, PERSON_A, WINDOW);
+
+    Assert.assertArrayEquals(new int[] {30, 30, 30, 60}, freeBusy.toRunLengths());
+  }
+
+  @Test
+  public void overlappingEventsAreMergedAndCutToTheWindow() {
+    // Events  : |--A--|
+    //              |--A--|                 |--A--|
+    // Window  :    |-----------------------|
+    //           7:30  8:00  9:00           11:00
+    store.add(new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM - 30, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A)));
+    store.add(new Event("Event 2", TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A)));
+    store.add(new Event("Event 3", TimeRange.fromStartDuration(TIME_1100AM, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A)));
+
+    FreeBusy freeBusy = FreeBusy.of(store, PERSON_A, WINDOW);
+
+    // The window starts busy, so the first free run is empty.
+    Assert.assertArrayEquals(new int[] {0, 60}, freeBusy.toRunLengths());
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false)),
+        freeBusy.getBusyTimes());
+  }
+
+  @Test
+  public void unknownAttendeeIsFree() {
+    FreeBusy freeBusy = FreeBusy.of(store, NOBODY, WINDOW);
+
+    Assert.assertEquals(Collections.emptyList(), freeBusy.getBusyTimes());
+    Assert.assertArrayEquals(new int[0], freeBusy.toRunLengths());
+    Assert.assertArrayEquals(new byte[(3 * DURATION_1_HOUR + 7) / 8], freeBusy.toBitmap());
+  }
+
+  @Test
+  public void bitmapHasOneBitPerMinute() {
+    // Busy from minute 3 to 20 of a 24 minute window, which crosses two byte boundaries.
+    TimeRange window = TimeRange.fromStartDuration(TIME_1000AM, 24);
+    store.add(new Event("Event 1", TimeRange.fromStartEnd(TIME_1000AM + 3, TIME_1000AM + 20, false),
+        Arrays.asList(PERSON_A)));
+
+    byte[] bitmap = FreeBusy.of(store, PERSON_A, window).toBitmap();
+
+    Assert.assertArrayEquals(new byte[] {(byte) 0xF8, (byte) 0xFF, (byte) 0x0F}, bitmap);
+  }
+
+  @Test
+  public void bitmapMatchesTheBusyMinutes() {
+    // Compare with a minute by minute check, for ranges at every offset into a byte.
+    TimeRange window = TimeRange.fromStartDuration(0, 200);
+    for (int start = 0; start < 190; start += 7) {
+      store.add(new Event("Event", TimeRange.fromStartDuration(start, start % 5),
+          Arrays.asList(PERSON_B)));
+    }
+
+    FreeBusy freeBusy = FreeBusy.of(store, PERSON_B, window);
+    byte[] bitmap = freeBusy.toBitmap();
+
+    List<TimeRange> busyTimes = freeBusy.getBusyTimes();
+    for (int minute = 0; minute < window.duration(); minute++) {
+      boolean expected = false;
+      for (TimeRange range : busyTimes) {
+        expected |= range.contains(minute);
+      }
+      boolean actual = (bitmap[minute / 8] & (1 << (minute % 8))) != 0;
+      Assert.assertEquals("minute " + minute, expected, actual);
+    }
+  }
+
+  @Test
+  public void runLengthsRoundTrip() {
+    store.add(new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A)));
+    store.add(new Event("Event 2", TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A)));
+    FreeBusy freeBusy = FreeBusy.of(store, PERSON_A, WINDOW);
+
+    Assert.assertEquals(freeBusy, FreeBusy.fromRunLengths(WINDOW, freeBusy.toRunLengths()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void runsPastTheWindowAreRejected() {
+    FreeBusy.fromRunLengths(WINDOW, new int[] {60, 200});
+  }
+}
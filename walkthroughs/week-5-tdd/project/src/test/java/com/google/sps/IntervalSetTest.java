@@ -0,0 +1,67 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalSetTest {
+  private static final TimeRange RANGE_1 = TimeRange.fromStartEnd(100, 200, false);
+  private static final TimeRange RANGE_2 = TimeRange.fromStartEnd(300, 400, false);
+  private static final TimeRange RANGE_3 = TimeRange.fromStartEnd(500, 600, false);
+
+  private static final IntervalSet SET = IntervalSet.of(Arrays.asList(RANGE_3, RANGE_1, RANGE_2));
+
+  @Test
+  public void rangesAreMerged() {
+    IntervalSet set = IntervalSet.of(Arrays.asList(TimeRange.fromStartEnd(150, 300, false),
+        RANGE_2, RANGE_1, TimeRange.fromStartDuration(700, 0)));
+
+    List<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(100, 400, false));
+    Assert.assertEquals(expected, set.asList());
+  }
+
+  @Test
+  public void overlappingReturnsWholeRanges() {
+    List<TimeRange> actual = SET.overlapping(TimeRange.fromStartEnd(150, 350, false));
+
+    Assert.assertEquals(Arrays.asList(RANGE_1, RANGE_2), actual);
+  }
+
+  @Test
+  public void touchingRangesDoNotOverlap() {
+    // The window ends where RANGE_2 starts and starts where RANGE_1 ends.
+    List<TimeRange> actual = SET.overlapping(TimeRange.fromStartEnd(200, 300, false));
+
+    Assert.assertEquals(Collections.emptyList(), actual);
+  }
+
+  @Test
+  public void windowOutsideOfTheSet() {
+    Assert.assertEquals(
+        Collections.emptyList(), SET.overlapping(TimeRange.fromStartEnd(0, 50, false)));
+    Assert.assertEquals(
+        Collections.emptyList(), SET.overlapping(TimeRange.fromStartEnd(700, 800, false)));
+    Assert.assertEquals(Arrays.asList(RANGE_1, RANGE_2, RANGE_3),
+        SET.overlapping(TimeRange.fromStartEnd(0, 800, false)));
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LatencyHistogramTest {
+  @Test
+  public void emptyHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    Assert.assertEquals(0, histogram.getCount());
+    Assert.assertEquals(0, histogram.getPercentile(50));
+    Assert.assertEquals(0, histogram.getMax());
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 10; i++) {
+      histogram.record(i);
+    }
+
+    Assert.assertEquals(5, histogram.getPercentile(50));
+    Assert.assertEquals(9, histogram.getPercentile(90));
+    Assert.assertEquals(10, histogram.getPercentile(100));
+    Assert.assertEquals(10, histogram.getMax());
+  }
+
+  @Test
+  public void largeValuesAreWithinABucket() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+
+    // Buckets are 1/16 of a power of two wide, so at most about 6% over.
+    long p99 = histogram.getPercentile(99);
+    Assert.assertTrue(p99 >= 990_000 && p99 <= 990_000 * 1.07);
+    long p50 = histogram.getPercentile(50);
+    Assert.assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.07);
+    Assert.assertEquals(1_000_000, histogram.getMax());
+  }
+
+  @Test
+  public void percentileNeverExceedsMax() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1_000_001);
+    Assert.assertEquals(1_000_001, histogram.getPercentile(50));
+
+    LatencyHistogram largest = new LatencyHistogram();
+    largest.record(Long.MAX_VALUE);
+    Assert.assertEquals(Long.MAX_VALUE, largest.getPercentile(100));
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MinuteBitmapTest {
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  @Test
+  public void emptyBitmapIsFreeAllDay() {
+    List<TimeRange> actual = new MinuteBitmap().freeRanges(TimeRange.WHOLE_DAY.duration());
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), actual);
+  }
+
+  @Test
+  public void fullBitmapHasNoFreeTime() {
+    MinuteBitmap bitmap = new MinuteBitmap();
+    bitmap.add(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(Collections.emptyList(), bitmap.freeRanges(1));
+  }
+
+  @Test
+  public void rangesOnWordBoundaries() {
+    // 64 and 128 are the first minutes of the second and third words.
+    MinuteBitmap bitmap = new MinuteBitmap();
+    bitmap.add(TimeRange.fromStartEnd(64, 128, false));
+
+    Assert.assertFalse(bitmap.isBusy(63));
+    Assert.assertTrue(bitmap.isBusy(64));
+    Assert.assertTrue(bitmap.isBusy(127));
+    Assert.assertFalse(bitmap.isBusy(128));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(0, 64, false),
+        TimeRange.fromStartEnd(128, MinuteBitmap.MINUTES, false)), bitmap.freeRanges(1));
+  }
+
+  @Test
+  public void shortGapsAreSkipped() {
+    // Busy  : |--|  |--|
+    // Free  :   |--|    |------|
+    MinuteBitmap bitmap = new MinuteBitmap();
+    bitmap.add(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false));
+    bitmap.add(TimeRange.fromStartEnd(TIME_0800AM + 10, TIME_0900AM, false));
+
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+    Assert.assertEquals(expected, bitmap.freeRanges(30));
+  }
+
+  @Test
+  public void orCombinesSchedules() {
+    MinuteBitmap a = new MinuteBitmap();
+    a.add(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false));
+    MinuteBitmap b = new MinuteBitmap();
+    b.add(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+
+    MinuteBitmap both = a.copy();
+    both.or(b);
+
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    Assert.assertEquals(expected, both.freeRanges(1));
+    Assert.assertFalse(a.isBusy(TIME_0900AM));
+  }
+
+  @Test
+  public void rangesOutsideTheDayAreClipped() {
+    MinuteBitmap bitmap = new MinuteBitmap();
+    bitmap.add(TimeRange.fromStartEnd(-60, 60, false));
+    bitmap.add(TimeRange.fromStartEnd(MinuteBitmap.MINUTES - 60, MinuteBitmap.MINUTES + 60, false));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(60, MinuteBitmap.MINUTES - 60, false)),
+        bitmap.freeRanges(1));
+  }
+}
@@ -0,0 +1,149 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class PackedRangeListTest {
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  private static PackedRangeList list(TimeRange... ranges) {
+    return PackedRangeList.of(Arrays.asList(ranges));
+  }
+
+  private static TimeRange range(int start, int end) {
+    return TimeRange.fromStartEnd(start, end, false);
+  }
+
+  @Test
+  public void packingKeepsStartAndDuration() {
+    long packed = PackedRange.pack(-30, 90);
+
+    Assert.assertEquals(-30, PackedRange.start(packed));
+    Assert.assertEquals(90, PackedRange.duration(packed));
+    Assert.assertEquals(60, PackedRange.end(packed));
+    Assert.assertTrue(PackedRange.pack(-30, 90) < PackedRange.pack(0, 10));
+  }
+
+  @Test
+  public void mergeJoinsOverlappingAndTouchingRanges() {
+    // Ranges  :     |---|       |---|
+    //           |---|   .   |---|
+    // Merged  : |-------|   |-----|
+    PackedRangeList ranges = list(range(TIME_0900AM, TIME_1000AM), range(TIME_1100AM, TIME_1200PM),
+        range(TIME_0800AM, TIME_0900AM), TimeRange.fromStartDuration(TIME_1000AM, 0),
+        range(TIME_1000AM + 30, TIME_1100AM + 30));
+
+    ranges.merge();
+
+    List<TimeRange> expected =
+        Arrays.asList(range(TIME_0800AM, TIME_1000AM), range(TIME_1000AM + 30, TIME_1200PM));
+    Assert.assertEquals(expected, ranges.toTimeRanges());
+  }
+
+  @Test
+  public void subtractCutsEveryOverlap() {
+    // Ranges  : |-----------------------|
+    // Other   :    |--|      |--|     |-----|
+    // Result  : |--|  |------|  |-----|
+    PackedRangeList ranges = list(range(TIME_0800AM, TIME_1200PM));
+    PackedRangeList other = list(range(TIME_0800AM + 30, TIME_0900AM),
+        range(TIME_1000AM, TIME_1000AM + 30), range(TIME_1100AM + 30, TIME_1200PM + 30));
+    PackedRangeList result = new PackedRangeList();
+
+    ranges.subtract(other, result);
+
+    List<TimeRange> expected = Arrays.asList(range(TIME_0800AM, TIME_0800AM + 30),
+        range(TIME_0900AM, TIME_1000AM), range(TIME_1000AM + 30, TIME_1100AM + 30));
+    Assert.assertEquals(expected, result.toTimeRanges());
+  }
+
+  @Test
+  public void subtractKeepsRangesThatStickOutOfALongCut() {
+    // Ranges  : |---|  |---|
+    // Other   :   |--------|---|
+    // Result  : |-|
+    PackedRangeList ranges =
+        list(range(TIME_0800AM, TIME_0900AM), range(TIME_1000AM, TIME_1100AM));
+    PackedRangeList other = list(range(TIME_0800AM + 30, TIME_1200PM));
+    PackedRangeList result = new PackedRangeList();
+
+    ranges.subtract(other, result);
+
+    Assert.assertEquals(Arrays.asList(range(TIME_0800AM, TIME_0800AM + 30)),
+        result.toTimeRanges());
+  }
+
+  @Test
+  public void intersectKeepsSharedMinutes() {
+    // Ranges  : |-----|     |-----|
+    // Other   :    |-----------|
+    // Result  :    |--|     |--|
+    PackedRangeList ranges =
+        list(range(TIME_0800AM, TIME_0900AM), range(TIME_1000AM, TIME_1100AM));
+    PackedRangeList other = list(range(TIME_0800AM + 30, TIME_1000AM + 30));
+    PackedRangeList result = new PackedRangeList();
+
+    ranges.intersect(other, result);
+
+    List<TimeRange> expected = Arrays.asList(range(TIME_0800AM + 30, TIME_0900AM),
+        range(TIME_1000AM, TIME_1000AM + 30));
+    Assert.assertEquals(expected, result.toTimeRanges());
+  }
+
+  @Test
+  public void removeShorterThanKeepsOrder() {
+    PackedRangeList ranges = list(range(TIME_0800AM, TIME_0900AM),
+        range(TIME_0900AM, TIME_0900AM + 15), range(TIME_1000AM, TIME_1200PM));
+
+    ranges.removeShorterThan(30);
+
+    List<TimeRange> expected =
+        Arrays.asList(range(TIME_0800AM, TIME_0900AM), range(TIME_1000AM, TIME_1200PM));
+    Assert.assertEquals(expected, ranges.toTimeRanges());
+  }
+
+  @Test
+  public void growsPastItsCapacity() {
+    PackedRangeList ranges = new PackedRangeList(0);
+    for (int i = 0; i < 100; i++) {
+      ranges.add(i, i + 1);
+    }
+
+    ranges.merge();
+
+    Assert.assertEquals(Arrays.asList(range(0, 100)), ranges.toTimeRanges());
+    ranges.clear();
+    Assert.assertEquals(Collections.emptyList(), ranges.toTimeRanges());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void resultCannotBeAnInput() {
+    PackedRangeList ranges = list(range(TIME_0800AM, TIME_0900AM));
+    ranges.subtract(new PackedRangeList(), ranges);
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private AttendeeVersions versions;
+  private AtomicInteger computations;
+  private Function<MeetingRequest, Collection<TimeRange>> query;
+
+  @Before
+  public void setUp() {
+    versions = new AttendeeVersions();
+    computations = new AtomicInteger();
+    query = request -> {
+      computations.incrementAndGet();
+      return Arrays.asList(TimeRange.WHOLE_DAY);
+    };
+  }
+
+  @Test
+  public void attendeeOrderDoesNotMatter() {
+    QueryCache cache = new QueryCache(10, versions);
+
+    cache.get(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES), query);
+    cache.get(new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), DURATION_30_MINUTES), query);
+
+    Assert.assertEquals(1, computations.get());
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void changedAttendeeInvalidatesAnswer() {
+    QueryCache cache = new QueryCache(10, versions);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    cache.get(request, query);
+    versions.increment(PERSON_C);
+    cache.get(request, query);
+    Assert.assertEquals(1, computations.get());
+
+    versions.increment(PERSON_B);
+    cache.get(request, query);
+    Assert.assertEquals(2, computations.get());
+    Assert.assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void leastRecentlyUsedAnswerIsEvicted() {
+    QueryCache cache = new QueryCache(2, versions);
+    MeetingRequest requestA = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest requestB = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest requestC = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+
+    cache.get(requestA, query);
+    cache.get(requestB, query);
+    cache.get(requestA, query);
+    cache.get(requestC, query);
+
+    Assert.assertEquals(1, cache.getEvictions());
+    Assert.assertEquals(2, cache.size());
+
+    // B was evicted, A was not.
+    cache.get(requestA, query);
+    Assert.assertEquals(3, computations.get());
+    cache.get(requestB, query);
+    Assert.assertEquals(4, computations.get());
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryExecutorTest {
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private final AtomicLong now = new AtomicLong();
+  private QueryMetrics metrics;
+  private QueryExecutor executor;
+
+  @Before
+  public void setUp() {
+    metrics = new QueryMetrics(Long.MAX_VALUE, now::get);
+    // One thread and room for one waiting query.
+    executor = new QueryExecutor(1, 1, metrics);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void fullQueueRejectsRightAway() throws InterruptedException {
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(2);
+
+    Assert.assertTrue(executor.submit(() -> {
+      running.countDown();
+      await(release);
+      done.countDown();
+    }));
+    await(running);
+    Assert.assertTrue(executor.submit(done::countDown));
+    Assert.assertEquals(1, executor.getQueueDepth());
+
+    Assert.assertFalse(executor.submit(() -> Assert.fail("Should have been rejected")));
+    Assert.assertEquals(1, metrics.getCurrent().getRejected());
+
+    release.countDown();
+    Assert.assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void queueWaitIsRecordedApartFromTheQuery() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+
+    executor.submit(() -> await(release));
+    executor.submit(done::countDown);
+    // The second query waits 500 nanoseconds on the clock for the first one.
+    now.set(500);
+    release.countDown();
+    Assert.assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+    LatencyHistogram queue = metrics.getCurrent().getLatencies(QueryMetrics.Stage.QUEUE);
+    Assert.assertEquals(2, queue.getCount());
+    Assert.assertEquals(500, queue.getMax());
+    Assert.assertEquals(0, metrics.getCurrent().getRejected());
+  }
+
+  @Test
+  public void shutDownExecutorRejects() {
+    executor.shutdown();
+
+    Assert.assertFalse(executor.submit(() -> {}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void noThreadsIsRejected() {
+    new QueryExecutor(0, 1, metrics);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryMetricsTest {
+  private static final long INTERVAL = 1000;
+
+  private long now;
+  private QueryMetrics metrics;
+
+  @Before
+  public void setUp() {
+    now = 0;
+    metrics = new QueryMetrics(INTERVAL, () -> now);
+  }
+
+  @Test
+  public void intervalsRollOver() {
+    metrics.record(QueryMetrics.Stage.TOTAL, 10);
+    metrics.record(QueryMetrics.Stage.TOTAL, 20);
+    Assert.assertNull(metrics.getPrevious());
+
+    now = INTERVAL + 1;
+    metrics.record(QueryMetrics.Stage.TOTAL, 30);
+
+    QueryMetrics.Interval previous = metrics.getPrevious();
+    Assert.assertEquals(2, previous.getLatencies(QueryMetrics.Stage.TOTAL).getCount());
+    Assert.assertEquals(20, previous.getLatencies(QueryMetrics.Stage.TOTAL).getMax());
+    Assert.assertEquals(INTERVAL, previous.getElapsedNanos(now));
+    Assert.assertEquals(1,
+        metrics.getCurrent().getLatencies(QueryMetrics.Stage.TOTAL).getCount());
+  }
+
+  @Test
+  public void idleIntervalsAreEmpty() {
+    metrics.record(QueryMetrics.Stage.TOTAL, 10);
+
+    now = 5 * INTERVAL + 1;
+    QueryMetrics.Interval previous = metrics.getPrevious();
+
+    Assert.assertEquals(0, previous.getLatencies(QueryMetrics.Stage.TOTAL).getCount());
+    Assert.assertEquals(INTERVAL, previous.getElapsedNanos(now));
+  }
+
+  @Test
+  public void throughputIsPerSecond() {
+    metrics = new QueryMetrics(2_000_000_000L, () -> now);
+    for (int i = 0; i < 10; i++) {
+      metrics.record(QueryMetrics.Stage.TOTAL, 1);
+    }
+
+    now = 1_000_000_000L;
+    Assert.assertEquals(10.0, metrics.getCurrent().getThroughput(now), 1e-9);
+  }
+
+  @Test
+  public void queryCountsReadAndMergedRanges() {
+    // Events  :       |--A--|
+    //                    |--B--|
+    // Window  : |---------------------|
+    Event first = new Event("Event 1", TimeRange.fromStartDuration(60, 60),
+        Arrays.asList("Metrics Person A"));
+    Event second = new Event("Event 2", TimeRange.fromStartDuration(90, 60),
+        Arrays.asList("Metrics Person B"));
+    MeetingRequest request = new MeetingRequest(
+        Arrays.asList("Metrics Person A", "Metrics Person B"), 30, TimeRange.fromDays(0, 2));
+
+    new FindMeetingQuery(metrics).query(new EventIndex(Arrays.asList(first, second)), request);
+
+    Assert.assertEquals(2, metrics.getCurrent().getRangesRead());
+    Assert.assertEquals(1, metrics.getCurrent().getRangesMerged());
+  }
+}
@@ -0,0 +1,227 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurrenceTest {
+  private static final String PERSON_A = "Recurring Person A";
+  private static final String PERSON_B = "Recurring Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1130PM = TimeRange.getTimeInMinutes(23, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  // Day 0 is a Thursday, so day 4 is a Monday.
+  private static final int MONDAY = 4;
+
+  @Test
+  public void dailyEveryOtherDay() {
+    Event event = standup(0, Recurrence.daily().every(2));
+
+    Assert.assertEquals(at(0, 2, 4, 6), occurrences(event, TimeRange.fromDays(0, 7)));
+  }
+
+  @Test
+  public void weeklyOnSomeWeekdaysEveryOtherWeek() {
+    // Week of day 4:  Mon(4) ... Wed(6)
+    // Week of day 11: skipped
+    // Week of day 18: Mon(18) ... Wed(20)
+    Event event = standup(MONDAY,
+        Recurrence.weekly(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY).every(2));
+
+    Assert.assertEquals(at(4, 6, 18, 20), occurrences(event, TimeRange.fromDays(0, 22)));
+  }
+
+  @Test
+  public void weeklyWithoutDaysRepeatsOnTheFirstDay() {
+    Event event = standup(MONDAY, Recurrence.weekly());
+
+    Assert.assertEquals(at(4, 11, 18), occurrences(event, TimeRange.fromDays(0, 21)));
+  }
+
+  @Test
+  public void countIncludesExceptions() {
+    // The third of five occurrences is left out, but still counts towards the five.
+    Event event = standup(0,
+        Recurrence.daily().times(5).except(TimeRange.getTimeInMinutes(2, 9, 0)));
+
+    Assert.assertEquals(at(0, 1, 3, 4), occurrences(event, TimeRange.fromDays(0, 30)));
+  }
+
+  @Test
+  public void untilIsInclusive() {
+    Event event = standup(0, Recurrence.daily().until(TimeRange.getTimeInMinutes(2, 9, 0)));
+
+    Assert.assertEquals(at(0, 1, 2), occurrences(event, TimeRange.fromDays(0, 30)));
+  }
+
+  @Test
+  public void farWindowIsExpandedWithoutWalkingEveryDay() {
+    Event event = standup(0, Recurrence.daily());
+
+    Assert.assertEquals(at(36500), occurrences(event, TimeRange.fromDays(36500, 1)));
+  }
+
+  @Test
+  public void occurrenceFromThePreviousDayOverlapsTheWindow() {
+    // Day 0 |         |--| 23:30
+    // Day 1 |--|              ends at 0:30 on day 1
+    Event event = new Event("Late call", TimeRange.fromStartDuration(TIME_1130PM, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A), Recurrence.daily());
+
+    List<TimeRange> actual = occurrences(event, TimeRange.fromDays(1, 1));
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(0, 23, 30), DURATION_1_HOUR),
+        TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(1, 23, 30), DURATION_1_HOUR));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void queryMatchesTheExpandedEvents() {
+    // A daily standup for two weeks gives the same slots as fourteen single events.
+    Event recurring = standup(0, Recurrence.daily().times(14));
+    Collection<Event> single = new ArrayList<>();
+    for (int day = 0; day < 14; day++) {
+      single.add(standup(day, null));
+    }
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR, TimeRange.fromDays(0, 16));
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    Collection<TimeRange> expected = query.query(single, request);
+
+    Assert.assertEquals(expected, query.query(Arrays.asList(recurring), request));
+    Assert.assertEquals(expected,
+        query.query(CalendarStore.of(Arrays.asList(recurring), new AttendeeVersions()), request));
+  }
+
+  @Test
+  public void storeUpdatesAndDeletesRecurringEvents() {
+    CalendarStore store = new CalendarStore(new AttendeeVersions());
+    TimeRange week = TimeRange.fromDays(0, 7);
+    int id = store.add(standup(0, Recurrence.daily()));
+
+    Assert.assertEquals(at(0, 1, 2, 3, 4, 5, 6), busyTimes(store, PERSON_A, week));
+
+    // Moving the standup to Person B only, and to every other day.
+    store.update(id, new Event("Standup", TimeRange.fromStartDuration(TIME_0900AM,
+        DURATION_30_MINUTES), Arrays.asList(PERSON_B), Recurrence.daily().every(2)));
+
+    Assert.assertEquals(Collections.emptyList(), busyTimes(store, PERSON_A, week));
+    Assert.assertEquals(at(0, 2, 4, 6), busyTimes(store, PERSON_B, week));
+
+    // Turning it into a single event.
+    store.update(id, standup(3, null));
+
+    Assert.assertEquals(at(3), busyTimes(store, PERSON_A, week));
+
+    store.delete(id);
+
+    Assert.assertEquals(Collections.emptyList(), busyTimes(store, PERSON_A, week));
+  }
+
+  @Test
+  public void eventIndexExpandsRecurringEvents() {
+    EventIndex index = new EventIndex(Arrays.asList(standup(0, Recurrence.daily().every(3))));
+
+    Assert.assertEquals(at(0, 3, 6), busyTimes(index, PERSON_A, TimeRange.fromDays(0, 7)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroIntervalIsRejected() {
+    Recurrence.daily().every(0);
+  }
+
+  @Test
+  public void lastDayMatchesWalkingTheOccurrences() {
+    List<Recurrence> rules = Arrays.asList(
+        Recurrence.daily(),
+        Recurrence.daily().every(3),
+        Recurrence.weekly(),
+        Recurrence.weekly(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY).every(2),
+        Recurrence.weekly(DayOfWeek.SUNDAY, DayOfWeek.TUESDAY, DayOfWeek.FRIDAY).every(3));
+    for (Recurrence rule : rules) {
+      for (int firstDay = MONDAY; firstDay < MONDAY + 7; firstDay++) {
+        int day = firstDay - 1;
+        for (int count = 1; count <= 20; count++) {
+          day = rule.nextDay(firstDay, day + 1);
+          Assert.assertEquals(day, rule.times(count).lastDay(firstDay));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void hugeCountEndsAtTheLastDay() {
+    // Only days up to MAX_DAY can be reached, so the event just never ends in practice.
+    Recurrence recurrence =
+        Recurrence.weekly(DayOfWeek.MONDAY).every(TimeRange.MAX_DAY).times(TimeRange.MAX_DAY);
+    Event event = standup(MONDAY, recurrence);
+
+    Assert.assertEquals(at(MONDAY), occurrences(event, TimeRange.fromDays(0, 30)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void countBeyondTheLastDayIsRejected() {
+    Recurrence.daily().times(TimeRange.MAX_DAY + 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void untilBeyondTheLastDayIsRejected() {
+    Recurrence.daily().until(Integer.MAX_VALUE);
+  }
+
+  // Returns a 30 minute meeting of Person A at 9:00 on {@code day}.
+  private static Event standup(int day, Recurrence recurrence) {
+    return new Event("Standup",
+        TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(day, 9, 0), DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A), recurrence);
+  }
+
+  // Returns the ranges of {@link #standup} on each of {@code days}.
+  private static List<TimeRange> at(int... days) {
+    List<TimeRange> ranges = new ArrayList<>();
+    for (int day : days) {
+      ranges.add(TimeRange.fromStartDuration(
+          TimeRange.getTimeInMinutes(day, 9, 0), DURATION_30_MINUTES));
+    }
+    return ranges;
+  }
+
+  private static List<TimeRange> occurrences(Event event, TimeRange window) {
+    PackedRangeList ranges = new PackedRangeList();
+    event.addOccurrences(window, ranges);
+    return ranges.toTimeRanges();
+  }
+
+  private static List<TimeRange> busyTimes(Schedule schedule, String attendee, TimeRange window) {
+    return schedule.getBusyTimes(AttendeeDictionary.intern(attendee), window);
+  }
+}
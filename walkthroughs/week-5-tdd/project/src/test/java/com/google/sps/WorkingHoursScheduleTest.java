@@ -0,0 +1,156 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class WorkingHoursScheduleTest {
+  private static final String PERSON_A = "Working Person A";
+  private static final String PERSON_B = "Working Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final TimeRange NINE_TO_FIVE =
+      TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  // Day 0 is a Thursday, so days 2 and 3 are the weekend.
+  private static final int FRIDAY = 1;
+  private static final int MONDAY = 4;
+
+  private AttendeeVersions versions;
+  private CalendarStore store;
+  private WorkingHoursSchedule schedule;
+  private FindMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    versions = new AttendeeVersions();
+    store = new CalendarStore(versions);
+    schedule = new WorkingHoursSchedule(store, versions);
+    query = new FindMeetingQuery();
+  }
+
+  @Test
+  public void dayZeroIsThursday() {
+    Assert.assertEquals(DayOfWeek.THURSDAY, WorkingHours.dayOfWeek(0));
+    Assert.assertEquals(DayOfWeek.MONDAY, WorkingHours.dayOfWeek(MONDAY));
+    Assert.assertNull(WorkingHours.weekdays(NINE_TO_FIVE).getHours(DayOfWeek.SUNDAY));
+    Assert.assertEquals(NINE_TO_FIVE,
+        WorkingHours.weekdays(NINE_TO_FIVE).getHours(DayOfWeek.MONDAY));
+  }
+
+  @Test
+  public void offHoursAreNotOffered() {
+    // Hours   :          |--------A--------|
+    // Events  :             |-A-|
+    // Day     : |--------|
+    // Options :          |--|   |----------|
+    schedule.setWorkingHours(PERSON_A, WorkingHours.daily(NINE_TO_FIVE));
+    store.add(new Event("Event 1", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+        Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<TimeRange> actual = query.query(schedule, request);
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        TimeRange.fromStartEnd(TIME_1100AM, TIME_0500PM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void peopleWithoutHoursAreBookableAnyTime() {
+    schedule.setWorkingHours(PERSON_A, WorkingHours.daily(NINE_TO_FIVE));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_1_HOUR);
+
+    Collection<TimeRange> actual = query.query(schedule, request);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), actual);
+  }
+
+  @Test
+  public void weekendsAreSkippedInLongWindows() {
+    // Friday to Monday, bookable on weekdays only.
+    schedule.setWorkingHours(PERSON_A, WorkingHours.weekdays(NINE_TO_FIVE));
+    schedule.setWorkingHours(PERSON_B, WorkingHours.weekdays(NINE_TO_FIVE));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B),
+        DURATION_1_HOUR, TimeRange.fromDays(FRIDAY, 4));
+
+    Collection<TimeRange> actual = query.query(schedule, request);
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(FRIDAY, 9, 0),
+            TimeRange.getTimeInMinutes(FRIDAY, 17, 0), false),
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(MONDAY, 9, 0),
+            TimeRange.getTimeInMinutes(MONDAY, 17, 0), false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void eventsOutsideWorkingHoursAreNotRead() {
+    // Thursday to Saturday, bookable on Mondays only, so there is nothing to read.
+    Schedule failing = new Schedule() {
+      @Override
+      public List<TimeRange> getBusyTimes(int attendeeId, TimeRange window) {
+        throw new AssertionError("Read " + window);
+      }
+    };
+    WorkingHoursSchedule mondaysOnly = new WorkingHoursSchedule(failing, versions);
+    mondaysOnly.setWorkingHours(PERSON_A, WorkingHours.of(NINE_TO_FIVE,
+        Collections.singleton(DayOfWeek.MONDAY)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR,
+        TimeRange.fromDays(0, 3));
+
+    Assert.assertEquals(Collections.emptyList(), query.query(mondaysOnly, request));
+    Assert.assertEquals(Collections.emptyList(),
+        query.query(mondaysOnly, new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR)));
+  }
+
+  @Test
+  public void settingHoursBumpsTheVersion() {
+    long before = versions.get(PERSON_A);
+    schedule.setWorkingHours(PERSON_A, WorkingHours.daily(NINE_TO_FIVE));
+
+    Assert.assertEquals(before + 1, versions.get(PERSON_A));
+    Assert.assertNotNull(schedule.getWorkingHours(PERSON_A));
+  }
+
+  @Test
+  public void clearingHoursOfUnknownPersonKeepsTheDictionary() {
+    String stranger = "Working Stranger";
+    int dictionarySize = AttendeeDictionary.size();
+
+    schedule.setWorkingHours(stranger, null);
+
+    Assert.assertEquals(dictionarySize, AttendeeDictionary.size());
+    Assert.assertNull(schedule.getWorkingHours(stranger));
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.Recurrence;
+import com.google.sps.TimeRange;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarJsonTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private final Gson gson = CalendarJson.gson;
+
+  @Test
+  public void timeRangeMatchesTheClientForm() {
+    TimeRange range = TimeRange.fromStartDuration(TIME_0900AM, 30);
+
+    Assert.assertEquals("{\"start\":540,\"duration\":30}", gson.toJson(range));
+    Assert.assertEquals(range, gson.fromJson("{\"duration\":30,\"start\":540}", TimeRange.class));
+  }
+
+  @Test
+  public void eventRoundTrips() {
+    Event event = new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, 30),
+        Arrays.asList(PERSON_A, PERSON_B));
+
+    Assert.assertEquals(event, gson.fromJson(gson.toJson(event), Event.class));
+  }
+
+  @Test
+  public void recurringEventRoundTrips() {
+    Recurrence recurrence = Recurrence.weekly(DayOfWeek.MONDAY, DayOfWeek.FRIDAY).every(2)
+        .times(10).except(TimeRange.getTimeInMinutes(4, 9, 0));
+    Event event = new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, 30),
+        Arrays.asList(PERSON_A), recurrence);
+
+    Assert.assertEquals(event, gson.fromJson(gson.toJson(event), Event.class));
+  }
+
+  @Test
+  public void recurrenceLeavesOutDefaults() {
+    Assert.assertEquals("{\"frequency\":\"DAILY\",\"interval\":1}",
+        gson.toJson(Recurrence.daily()));
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void dailyRecurrenceWithDaysIsRejected() {
+    gson.fromJson("{\"frequency\":\"DAILY\",\"days\":[\"MONDAY\"]}", Recurrence.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void recurrenceWithHugeCountIsRejected() {
+    gson.fromJson("{\"frequency\":\"WEEKLY\",\"count\":2000000000}", Recurrence.class);
+  }
+
+  @Test
+  public void eventIdAndUnknownFieldsAreSkipped() {
+    String json = "{\"id\":7,\"title\":\"Event 1\",\"color\":[1,2],"
+        + "\"when\":{\"start\":540,\"duration\":30},\"attendees\":[\"Person A\"]}";
+
+    Event expected = new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, 30),
+        Arrays.asList(PERSON_A));
+    Assert.assertEquals(expected, gson.fromJson(json, Event.class));
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void eventWithoutTimeIsRejected() {
+    gson.fromJson("{\"title\":\"Event 1\",\"attendees\":[]}", Event.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void negativeDurationIsRejected() {
+    gson.fromJson("{\"start\":540,\"duration\":-30}", TimeRange.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void requestWithNegativeDurationIsRejected() {
+    gson.fromJson("{\"duration\":-30,\"attendees\":[\"Person A\"]}", MeetingRequest.class);
+  }
+
+  @Test
+  public void requestFromTheClientUsesDefaults() {
+    // The web client only sends the duration and the attendees.
+    MeetingRequest request =
+        gson.fromJson("{\"duration\":30,\"attendees\":[\"Person A\"]}", MeetingRequest.class);
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_A)),
+        new HashSet<>(request.getAttendees()));
+    Assert.assertEquals(Collections.emptySet(), new HashSet<>(request.getOptionalAttendees()));
+    Assert.assertEquals(30, request.getDuration());
+    Assert.assertEquals(TimeRange.WHOLE_DAY, request.getWindow());
+  }
+
+  @Test
+  public void requestRoundTrips() {
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A), 45, TimeRange.fromDays(2, 3));
+    request.addOptionalAttendee(PERSON_B);
+
+    MeetingRequest read = gson.fromJson(gson.toJson(request), MeetingRequest.class);
+
+    Assert.assertEquals(new HashSet<>(request.getAttendees()), new HashSet<>(read.getAttendees()));
+    Assert.assertEquals(new HashSet<>(request.getOptionalAttendees()),
+        new HashSet<>(read.getOptionalAttendees()));
+    Assert.assertEquals(request.getDuration(), read.getDuration());
+    Assert.assertEquals(request.getWindow(), read.getWindow());
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void durationMustBeANumber() {
+    gson.fromJson("{\"duration\":\"long\",\"attendees\":[]}", MeetingRequest.class);
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.json;
+
+import com.google.sps.AttendeeVersions;
+import com.google.sps.CalendarStore;
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventFeedTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final Event EVENT_1 = new Event("Event 1",
+      TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(9, 0), 30), Arrays.asList(PERSON_A));
+
+  private CalendarStore store;
+  private EventFeed feed;
+
+  @Before
+  public void setUp() {
+    store = new CalendarStore(new AttendeeVersions());
+    store.add(EVENT_1);
+    feed = new EventFeed(store);
+  }
+
+  private static String body(EventFeed.Rendering rendering, boolean gzipped) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    rendering.writeTo(out, gzipped);
+    Assert.assertEquals(rendering.getLength(gzipped), out.size());
+
+    InputStream in = new ByteArrayInputStream(out.toByteArray());
+    if (gzipped) {
+      in = new GZIPInputStream(in);
+    }
+    ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    for (int read = in.read(buffer); read > 0; read = in.read(buffer)) {
+      decoded.write(buffer, 0, read);
+    }
+    return new String(decoded.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void bothEncodingsHoldTheSameEvents() throws IOException {
+    EventFeed.Rendering rendering = feed.get();
+
+    String expected = "[{\"id\":0,\"title\":\"Event 1\",\"when\":{\"start\":540,\"duration\":30},"
+        + "\"attendees\":[\"Person A\"]}]";
+    Assert.assertEquals(expected, body(rendering, false));
+    Assert.assertEquals(expected, body(rendering, true));
+    Assert.assertNotEquals(rendering.getETag(false), rendering.getETag(true));
+  }
+
+  @Test
+  public void renderedOncePerVersion() {
+    Assert.assertSame(feed.get(), feed.get());
+  }
+
+  @Test
+  public void changesAreRenderedWithNewTags() throws IOException {
+    EventFeed.Rendering before = feed.get();
+
+    int id = store.add(new Event("Event 2", TimeRange.fromStartDuration(0, 60),
+        Arrays.asList(PERSON_A)));
+    EventFeed.Rendering after = feed.get();
+
+    Assert.assertTrue(body(after, false).contains("Event 2"));
+    Assert.assertNotEquals(before.getETag(false), after.getETag(false));
+
+    // Same events, same tag.
+    store.delete(id);
+    Assert.assertEquals(before.getETag(false), feed.get().getETag(false));
+  }
+}
@@ -0,0 +1,209 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.shard;
+
+import com.google.sps.AttendeeVersions;
+import com.google.sps.CalendarStore;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ShardCoordinatorTest {
+  private static final int ATTENDEES = 60;
+  private static final int EVENTS = 400;
+  private static final int DAYS = 3;
+
+  private ExecutorService executor;
+  private ShardCoordinator coordinator;
+
+  // Holds every event, to compare the sharded answers with.
+  private CalendarStore reference;
+
+  private final List<Process> processes = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    coordinator = new ShardCoordinator(executor);
+    reference = new CalendarStore(new AttendeeVersions());
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    for (Process process : processes) {
+      process.destroy();
+    }
+  }
+
+  @Test
+  public void shardedQueriesMatchOneStore() throws IOException {
+    for (int i = 0; i < 4; i++) {
+      coordinator.addShard("shard-" + i, localShard());
+    }
+    addRandomEvents(new Random(1));
+
+    assertSameAnswers(new Random(2));
+  }
+
+  @Test
+  public void eventsOnlyGoToTheirAttendeesShards() throws IOException {
+    LocalShard first = localShard();
+    LocalShard second = localShard();
+    coordinator.addShard("first", first);
+    coordinator.addShard("second", second);
+    Event event = new Event("Event 1", TimeRange.fromStartDuration(0, 30),
+        Arrays.asList(attendee(0), attendee(1)));
+
+    coordinator.add(event);
+
+    for (CalendarShard shard : Arrays.asList(first, second)) {
+      boolean owner = coordinator.ownerOf(attendee(0)) == shard
+          || coordinator.ownerOf(attendee(1)) == shard;
+      Assert.assertEquals(owner, shard.getEvents().contains(event));
+    }
+  }
+
+  @Test
+  public void addingAShardOnlyMovesAttendeesToIt() throws IOException {
+    for (int i = 0; i < 3; i++) {
+      coordinator.addShard("shard-" + i, localShard());
+    }
+    addRandomEvents(new Random(3));
+    Map<String, CalendarShard> owners = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      owners.put(attendee(i), coordinator.ownerOf(attendee(i)));
+    }
+
+    LocalShard added = localShard();
+    coordinator.addShard("shard-3", added);
+
+    int moved = 0;
+    for (Map.Entry<String, CalendarShard> owner : owners.entrySet()) {
+      CalendarShard now = coordinator.ownerOf(owner.getKey());
+      if (now != owner.getValue()) {
+        Assert.assertSame(added, now);
+        moved++;
+      }
+    }
+    // About a quarter of the attendees move.
+    Assert.assertTrue("moved " + moved, moved > 150 && moved < 350);
+    assertSameAnswers(new Random(4));
+  }
+
+  @Test
+  public void shardsInLocalProcesses() throws IOException {
+    coordinator.addShard("process-0", startShardProcess());
+    coordinator.addShard("process-1", startShardProcess());
+    addRandomEvents(new Random(5));
+
+    assertSameAnswers(new Random(6));
+
+    // A third process joins while the calendar is in use.
+    coordinator.addShard("process-2", startShardProcess());
+
+    Assert.assertEquals(3, coordinator.getShardCount());
+    assertSameAnswers(new Random(7));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shardNamesAreUnique() throws IOException {
+    coordinator.addShard("shard", localShard());
+    coordinator.addShard("shard", localShard());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void queryWithoutShardsFails() throws IOException {
+    coordinator.query(new MeetingRequest(Arrays.asList(attendee(0)), 30));
+  }
+
+  private static LocalShard localShard() {
+    return new LocalShard(new CalendarStore(new AttendeeVersions()));
+  }
+
+  private static String attendee(int index) {
+    return "Shard Person " + index;
+  }
+
+  // Adds the same events to the coordinator and the reference store.
+  private void addRandomEvents(Random random) throws IOException {
+    for (int i = 0; i < EVENTS; i++) {
+      List<String> attendees = new ArrayList<>();
+      for (int j = 1 + random.nextInt(4); j > 0; j--) {
+        attendees.add(attendee(random.nextInt(ATTENDEES)));
+      }
+      int start = random.nextInt(DAYS * TimeRange.MINUTES_PER_DAY);
+      Event event = new Event("Event " + i,
+          TimeRange.fromStartDuration(start, 15 + random.nextInt(120)), attendees);
+      coordinator.add(event);
+      reference.add(event);
+    }
+  }
+
+  private void assertSameAnswers(Random random) throws IOException {
+    FindMeetingQuery query = new FindMeetingQuery();
+    for (int i = 0; i < 20; i++) {
+      List<String> attendees = new ArrayList<>();
+      for (int j = 1 + random.nextInt(8); j > 0; j--) {
+        attendees.add(attendee(random.nextInt(ATTENDEES)));
+      }
+      MeetingRequest request = new MeetingRequest(
+          attendees, 15 + random.nextInt(60), TimeRange.fromDays(0, DAYS));
+
+      Assert.assertEquals(query.query(reference, request), coordinator.query(request));
+    }
+  }
+
+  // Starts a ShardServer in a new JVM with the same classpath, and connects to it.
+  private RemoteShard startShardProcess() throws IOException {
+    String java =
+        System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+        ShardServer.class.getName(), "0").redirectErrorStream(true).start();
+    processes.add(process);
+
+    BufferedReader output = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    String line = output.readLine();
+    if (line == null || !line.startsWith("Shard listening on port ")) {
+      throw new IOException("The shard did not start: " + line);
+    }
+    int port = Integer.parseInt(line.substring("Shard listening on port ".length()));
+    return new RemoteShard(InetAddress.getLoopbackAddress().getHostAddress(), port);
+  }
+}